@@ -21,8 +21,14 @@ import org.apache.logging.log4j.Logger;
 import org.ogcs.log.config.OkraConfig;
 import org.ogcs.log.config.OkraProperties;
 import org.ogcs.log.core.MissionBoard;
+import org.ogcs.log.core.handler.IpMatcher;
+import org.ogcs.log.core.server.HttpLogServer;
+import org.ogcs.log.core.server.TcpLogServer;
 import org.ogcs.log.core.server.UdpLogServer;
+import org.ogcs.log.serlvet.ApiHandler;
 import org.ogcs.log.serlvet.ApiServer;
+import org.ogcs.log.serlvet.impl.DeadLetterServlet;
+import org.ogcs.log.serlvet.impl.ShardStatsServlet;
 
 /**
  * @author TinyZ
@@ -35,21 +41,41 @@ public class Bootstrap {
     public static void main(String[] args) {
         LOG.info("Bootstrap Okra-LOG ...");
         UdpLogServer server = null;
+        TcpLogServer tcpServer = null;
+        HttpLogServer httpServer = null;
         ApiServer apiServer = null;
         try {
             OkraConfig config = OkraProperties.getConfig();
             MissionBoard missionBoard = new MissionBoard(config);
             missionBoard.init();
 
-            server = new UdpLogServer(config.getPort(), missionBoard);
+            IpMatcher ipMatcher = IpMatcher.newMatcher(config);
+
+            server = new UdpLogServer(config.getPort(), missionBoard, ipMatcher);
             server.start();
 
+            if (config.getTcpPort() > 0) {
+                tcpServer = new TcpLogServer(config.getTcpPort(), missionBoard, ipMatcher);
+                tcpServer.start();
+            }
+            if (config.getHttpPort() > 0) {
+                httpServer = new HttpLogServer(config.getHttpPort(), missionBoard, ipMatcher);
+                httpServer.start();
+            }
+
+            ApiHandler.register("/stats/shards", new ShardStatsServlet(missionBoard));
+            ApiHandler.register("/deadletter", new DeadLetterServlet(missionBoard, false));
+            ApiHandler.register("/deadletter/redrive", new DeadLetterServlet(missionBoard, true));
             apiServer = new ApiServer(9006);
             apiServer.start();
             LOG.info("Okra-LOG bootstrap success.");
         } catch (Exception e) {
             if (server != null)
                 server.stop();
+            if (tcpServer != null)
+                tcpServer.stop();
+            if (httpServer != null)
+                httpServer.stop();
             if (apiServer != null)
                 apiServer.stop();
             LOG.info("Okra-LOG bootstrap failure.", e);
@@ -22,6 +22,48 @@ package org.ogcs.log.config;
  */
 public class OkraConfig {
 
+    /**
+     * Text protocol. example : log_money|2016-06-24|openid|0|105|15|100|1000
+     */
+    public static final String PROTOCOL_TEXT = "text";
+    /**
+     * Protocol buffers binary protocol. see {@link org.ogcs.log.util.ProtoUtil}
+     */
+    public static final String PROTOCOL_PROTOBUF = "protobuf";
+    /**
+     * Overflow policy : block the producer until the queue has space or timeout.
+     * The Netty event loop thread is never blocked, the new log is dropped. see {@link #getHighWaterMark()}
+     */
+    public static final String OVERFLOW_BLOCK = "block";
+    /**
+     * Overflow policy : drop the oldest log in queue.
+     */
+    public static final String OVERFLOW_DROP_OLDEST = "dropOldest";
+    /**
+     * Overflow policy : drop the new log.
+     */
+    public static final String OVERFLOW_DROP_NEWEST = "dropNewest";
+    /**
+     * Overflow policy : divert the new log to overflow file.
+     */
+    public static final String OVERFLOW_DIVERT = "divert";
+    /**
+     * Disruptor wait strategy : lock and condition. lowest CPU usage.
+     */
+    public static final String WAIT_BLOCKING = "blocking";
+    /**
+     * Disruptor wait strategy : spin, yield, then park. balance of latency and CPU usage.
+     */
+    public static final String WAIT_SLEEPING = "sleeping";
+    /**
+     * Disruptor wait strategy : spin then yield. low latency, use a core per consumer when busy.
+     */
+    public static final String WAIT_YIELDING = "yielding";
+    /**
+     * Disruptor wait strategy : busy spin. lowest latency, each consumer must own a physical core.
+     */
+    public static final String WAIT_BUSY_SPIN = "busySpin";
+
     /**
      * The server listen port.
      */
@@ -54,6 +96,226 @@ public class OkraConfig {
      * The max prepare query to batch insert data into database's element size.
      */
     private int maxBatchSize;
+    /**
+     * The report log protocol. text or protobuf.
+     */
+    private String logProtocol = PROTOCOL_TEXT;
+    /**
+     * Is the UDP datagram a multi-record frame. see {@link org.ogcs.log.core.handler.RecordFrames}
+     */
+    private boolean udpFramed = false;
+    /**
+     * The max UDP datagram size. The UDP receive buffer size.
+     */
+    private int udpMaxPacketSize = 2048;
+    /**
+     * Use native epoll transport and bind multiple sockets with SO_REUSEPORT. Linux only.
+     */
+    private boolean udpEpoll = false;
+    /**
+     * The UDP socket count in epoll mode. 0 means the available processors count.
+     */
+    private int udpSockets = 0;
+    /**
+     * The UDP socket's receive buffer size(SO_RCVBUF). 0 means the system default.
+     */
+    private int udpRcvBuf = 0;
+    /**
+     * The accepted IP address or CIDR list. separated by comma.
+     */
+    private String ipAccept;
+    /**
+     * The denied IP address or CIDR list. separated by comma.
+     */
+    private String ipDeny;
+    /**
+     * Is accept the IP address which is not match any rule.
+     */
+    private boolean ipDefaultAccept = true;
+    /**
+     * The TCP server listen port. 0 means disable TCP server.
+     */
+    private int tcpPort = 0;
+    /**
+     * The max TCP frame length.
+     */
+    private int tcpMaxFrameLength = 1048576;
+    /**
+     * The HTTP server listen port. 0 means disable HTTP server.
+     */
+    private int httpPort = 0;
+    /**
+     * The max HTTP request content length.
+     */
+    private int httpMaxContentLength = 1048576;
+    /**
+     * The struct's log queue high water mark. The low water mark is half of it.
+     */
+    private long highWaterMark = 10000L;
+    /**
+     * The Disruptor ringBuffer's high water mark. percentage of the ringBuffer size.
+     */
+    private int ringHighWaterMark = 75;
+    /**
+     * The max log count of single struct's queue.
+     */
+    private int structMaxRecords = 100000;
+    /**
+     * The max estimated memory bytes of single struct's queue.
+     */
+    private long structMaxBytes = 67108864L;
+    /**
+     * The global memory budget bytes of all struct's queue.
+     */
+    private long memoryBudget = 536870912L;
+    /**
+     * The overflow policy when the struct's queue is full. block, dropOldest, dropNewest or divert.
+     */
+    private String overflowPolicy = OVERFLOW_DROP_NEWEST;
+    /**
+     * The max milliseconds to block the producer. block policy only.
+     */
+    private long overflowBlockTimeout = 1000L;
+    /**
+     * The overflow file directory. divert policy only.
+     */
+    private String overflowPath = "./overflow";
+    /**
+     * The flusher thread count. The flushers assemble the record batches and publish to the ringBuffer.
+     */
+    private int flushers = 2;
+    /**
+     * 是否开启预写日志(WAL). 开启后日志入队前先写入内存映射的WAL文件, 批次提交后截断, 重启时回放未提交的日志
+     */
+    private boolean walEnable = false;
+    /**
+     * WAL文件目录. 每个表一个子目录
+     */
+    private String walPath = "./wal";
+    /**
+     * WAL段文件大小(字节)
+     */
+    private int walSegmentSize = 64 * 1024 * 1024;
+    /**
+     * WAL组提交间隔(毫秒). 间隔内追加的日志共用一次force()
+     */
+    private long walSyncInterval = 10L;
+    /**
+     * Disruptor写库消费者数量. 1 : 单个EventHandler; 大于1 : WorkerPool模式N个WorkHandler; 小于等于0 : WorkerPool大小等于数据库连接池大小
+     */
+    private int consumers = 1;
+    /**
+     * Disruptor消费者等待策略 : blocking, sleeping, yielding, busySpin
+     */
+    private String waitStrategy = WAIT_BLOCKING;
+    /**
+     * Disruptor分片(ringBuffer)数量. 每个分片有独立的写库消费者, 表按hash或aolog.xml的shard属性分配到分片
+     */
+    private int shards = 1;
+    /**
+     * 是否开启线程本地缓冲. 开启后每个Netty事件循环线程独占每个表的单写者缓冲, 入队无CAS, 由flusher线程收集合并成批次. 开启WAL时无效
+     */
+    private boolean structLocalLanes = false;
+    /**
+     * 线程本地缓冲的容量. 向上取2的幂, 缓冲满时进入表的共享队列
+     */
+    private int structLaneCapacity = 8192;
+    /**
+     * 是否开启自适应批次. 根据每个表的写库延迟和队列增长以AIMD方式调整批次大小和写入间隔
+     */
+    private boolean adaptiveEnable = false;
+    /**
+     * 自适应批次的最小批次大小
+     */
+    private int adaptiveMinBatchSize = 10;
+    /**
+     * 自适应批次的最大批次大小
+     */
+    private int adaptiveMaxBatchSize = 5000;
+    /**
+     * 自适应批次的加性增加步长
+     */
+    private int adaptiveStep = 10;
+    /**
+     * 自适应批次的目标端到端延迟(毫秒). 写入间隔 = 目标延迟 - 平均写库延迟
+     */
+    private long adaptiveTargetLatency = 500L;
+    /**
+     * 自适应批次的最小写入间隔(毫秒)
+     */
+    private long adaptiveMinInterval = 50L;
+    /**
+     * 自适应批次的最大写入间隔(毫秒)
+     */
+    private long adaptiveMaxInterval = 5000L;
+    /**
+     * 是否使用时间轮管理每个表的写入截止时间. 表的第一条日志(队列为空后)开始计时, 到期写入该表. 关闭时定时任务每隔task.interval写入所有表
+     */
+    private boolean flushWheel = true;
+    /**
+     * 时间轮的刻度(毫秒)
+     */
+    private long flushTickDuration = 10L;
+    /**
+     * 每个表缓存的日志参数数组(String[])数量. 日志写入批次后归还, 翻译器复用. 0 : 不缓存
+     */
+    private int poolSlots = 4096;
+    /**
+     * 每个表缓存的列式批次数量
+     */
+    private int poolBatches = 64;
+    /**
+     * 批次写入失败的最大尝试次数. 超过后批次写入死信文件
+     */
+    private int retryMaxAttempts = 5;
+    /**
+     * 重试的初始退避时间(毫秒). 表连续失败时指数增加, 加随机抖动
+     */
+    private long retryBaseDelay = 200L;
+    /**
+     * 重试的最大退避时间(毫秒)
+     */
+    private long retryMaxDelay = 30000L;
+    /**
+     * 死信文件目录. 文件内容为文本协议日志, 每个表每天一个文件
+     */
+    private String deadLetterPath = "./deadletter";
+    /**
+     * 死信文件重新导入的速率(条/秒)
+     */
+    private int deadLetterRedriveRate = 1000;
+    /**
+     * 批次因数据错误写入失败时, 二分定位错误行并隔离到死信文件, 其余行正常提交
+     */
+    private boolean retryIsolate = true;
+    /**
+     * 多行INSERT语句的数据包预算(字节). 小于等于0时使用单行INSERT批量执行
+     */
+    private int insertMaxPacket = 1048576;
+    /**
+     * 日期后缀的表提前创建下一个周期的时间(毫秒). 小于等于0时不提前创建
+     */
+    private long rotationAhead = 600000L;
+    /**
+     * 日期后缀的表按日志自身的时间字段写入对应周期的表
+     */
+    private boolean routeEnable = false;
+    /**
+     * 路由使用的时间字段名称
+     */
+    private String routeField = "logDate";
+    /**
+     * 迟到日志的时间窗口(毫秒). 日志时间超出当前时间前后窗口的写入当前周期的表
+     */
+    private long routeLateWindow = 172800000L;
+    /**
+     * 按分区写入(partition="DAY"/"MONTH")的表提前创建的分区数量
+     */
+    private int partitionAhead = 7;
+    /**
+     * 分区维护任务的执行间隔(毫秒). 小于等于0时不维护分区
+     */
+    private long partitionInterval = 3600000L;
 
     public OkraConfig(
             int port, String hikariCPConfigPath, String dbJdbcUrl, String dbUsername, String dbPassword,
@@ -158,4 +420,444 @@ public class OkraConfig {
     public void setMaxBatchSize(int maxBatchSize) {
         this.maxBatchSize = maxBatchSize;
     }
+
+    public String getLogProtocol() {
+        return logProtocol;
+    }
+
+    public void setLogProtocol(String logProtocol) {
+        this.logProtocol = logProtocol;
+    }
+
+    public boolean isUdpFramed() {
+        return udpFramed;
+    }
+
+    public void setUdpFramed(boolean udpFramed) {
+        this.udpFramed = udpFramed;
+    }
+
+    public int getUdpMaxPacketSize() {
+        return udpMaxPacketSize;
+    }
+
+    public void setUdpMaxPacketSize(int udpMaxPacketSize) {
+        this.udpMaxPacketSize = udpMaxPacketSize;
+    }
+
+    public boolean isUdpEpoll() {
+        return udpEpoll;
+    }
+
+    public void setUdpEpoll(boolean udpEpoll) {
+        this.udpEpoll = udpEpoll;
+    }
+
+    public int getUdpSockets() {
+        return udpSockets;
+    }
+
+    public void setUdpSockets(int udpSockets) {
+        this.udpSockets = udpSockets;
+    }
+
+    public int getUdpRcvBuf() {
+        return udpRcvBuf;
+    }
+
+    public void setUdpRcvBuf(int udpRcvBuf) {
+        this.udpRcvBuf = udpRcvBuf;
+    }
+
+    public String getIpAccept() {
+        return ipAccept;
+    }
+
+    public void setIpAccept(String ipAccept) {
+        this.ipAccept = ipAccept;
+    }
+
+    public String getIpDeny() {
+        return ipDeny;
+    }
+
+    public void setIpDeny(String ipDeny) {
+        this.ipDeny = ipDeny;
+    }
+
+    public boolean isIpDefaultAccept() {
+        return ipDefaultAccept;
+    }
+
+    public void setIpDefaultAccept(boolean ipDefaultAccept) {
+        this.ipDefaultAccept = ipDefaultAccept;
+    }
+
+    public int getTcpPort() {
+        return tcpPort;
+    }
+
+    public void setTcpPort(int tcpPort) {
+        this.tcpPort = tcpPort;
+    }
+
+    public int getHttpPort() {
+        return httpPort;
+    }
+
+    public void setHttpPort(int httpPort) {
+        this.httpPort = httpPort;
+    }
+
+    public int getHttpMaxContentLength() {
+        return httpMaxContentLength;
+    }
+
+    public void setHttpMaxContentLength(int httpMaxContentLength) {
+        this.httpMaxContentLength = httpMaxContentLength;
+    }
+
+    public int getTcpMaxFrameLength() {
+        return tcpMaxFrameLength;
+    }
+
+    public void setTcpMaxFrameLength(int tcpMaxFrameLength) {
+        this.tcpMaxFrameLength = tcpMaxFrameLength;
+    }
+
+    public long getHighWaterMark() {
+        return highWaterMark;
+    }
+
+    public void setHighWaterMark(long highWaterMark) {
+        this.highWaterMark = highWaterMark;
+    }
+
+    public int getRingHighWaterMark() {
+        return ringHighWaterMark;
+    }
+
+    public void setRingHighWaterMark(int ringHighWaterMark) {
+        this.ringHighWaterMark = ringHighWaterMark;
+    }
+
+    public int getStructMaxRecords() {
+        return structMaxRecords;
+    }
+
+    public void setStructMaxRecords(int structMaxRecords) {
+        this.structMaxRecords = structMaxRecords;
+    }
+
+    public long getStructMaxBytes() {
+        return structMaxBytes;
+    }
+
+    public void setStructMaxBytes(long structMaxBytes) {
+        this.structMaxBytes = structMaxBytes;
+    }
+
+    public long getMemoryBudget() {
+        return memoryBudget;
+    }
+
+    public void setMemoryBudget(long memoryBudget) {
+        this.memoryBudget = memoryBudget;
+    }
+
+    public String getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    public void setOverflowPolicy(String overflowPolicy) {
+        this.overflowPolicy = overflowPolicy;
+    }
+
+    public long getOverflowBlockTimeout() {
+        return overflowBlockTimeout;
+    }
+
+    public void setOverflowBlockTimeout(long overflowBlockTimeout) {
+        this.overflowBlockTimeout = overflowBlockTimeout;
+    }
+
+    public String getOverflowPath() {
+        return overflowPath;
+    }
+
+    public void setOverflowPath(String overflowPath) {
+        this.overflowPath = overflowPath;
+    }
+
+    public int getFlushers() {
+        return flushers;
+    }
+
+    public void setFlushers(int flushers) {
+        this.flushers = flushers;
+    }
+
+    public boolean isWalEnable() {
+        return walEnable;
+    }
+
+    public void setWalEnable(boolean walEnable) {
+        this.walEnable = walEnable;
+    }
+
+    public String getWalPath() {
+        return walPath;
+    }
+
+    public void setWalPath(String walPath) {
+        this.walPath = walPath;
+    }
+
+    public int getWalSegmentSize() {
+        return walSegmentSize;
+    }
+
+    public void setWalSegmentSize(int walSegmentSize) {
+        this.walSegmentSize = walSegmentSize;
+    }
+
+    public long getWalSyncInterval() {
+        return walSyncInterval;
+    }
+
+    public void setWalSyncInterval(long walSyncInterval) {
+        this.walSyncInterval = walSyncInterval;
+    }
+
+    public int getConsumers() {
+        return consumers;
+    }
+
+    public void setConsumers(int consumers) {
+        this.consumers = consumers;
+    }
+
+    public String getWaitStrategy() {
+        return waitStrategy;
+    }
+
+    public void setWaitStrategy(String waitStrategy) {
+        this.waitStrategy = waitStrategy;
+    }
+
+    public int getShards() {
+        return shards;
+    }
+
+    public void setShards(int shards) {
+        this.shards = shards;
+    }
+
+    public boolean isStructLocalLanes() {
+        return structLocalLanes;
+    }
+
+    public void setStructLocalLanes(boolean structLocalLanes) {
+        this.structLocalLanes = structLocalLanes;
+    }
+
+    public int getStructLaneCapacity() {
+        return structLaneCapacity;
+    }
+
+    public void setStructLaneCapacity(int structLaneCapacity) {
+        this.structLaneCapacity = structLaneCapacity;
+    }
+
+    public boolean isAdaptiveEnable() {
+        return adaptiveEnable;
+    }
+
+    public void setAdaptiveEnable(boolean adaptiveEnable) {
+        this.adaptiveEnable = adaptiveEnable;
+    }
+
+    public int getAdaptiveMinBatchSize() {
+        return adaptiveMinBatchSize;
+    }
+
+    public void setAdaptiveMinBatchSize(int adaptiveMinBatchSize) {
+        this.adaptiveMinBatchSize = adaptiveMinBatchSize;
+    }
+
+    public int getAdaptiveMaxBatchSize() {
+        return adaptiveMaxBatchSize;
+    }
+
+    public void setAdaptiveMaxBatchSize(int adaptiveMaxBatchSize) {
+        this.adaptiveMaxBatchSize = adaptiveMaxBatchSize;
+    }
+
+    public int getAdaptiveStep() {
+        return adaptiveStep;
+    }
+
+    public void setAdaptiveStep(int adaptiveStep) {
+        this.adaptiveStep = adaptiveStep;
+    }
+
+    public long getAdaptiveTargetLatency() {
+        return adaptiveTargetLatency;
+    }
+
+    public void setAdaptiveTargetLatency(long adaptiveTargetLatency) {
+        this.adaptiveTargetLatency = adaptiveTargetLatency;
+    }
+
+    public long getAdaptiveMinInterval() {
+        return adaptiveMinInterval;
+    }
+
+    public void setAdaptiveMinInterval(long adaptiveMinInterval) {
+        this.adaptiveMinInterval = adaptiveMinInterval;
+    }
+
+    public long getAdaptiveMaxInterval() {
+        return adaptiveMaxInterval;
+    }
+
+    public void setAdaptiveMaxInterval(long adaptiveMaxInterval) {
+        this.adaptiveMaxInterval = adaptiveMaxInterval;
+    }
+
+    public boolean isFlushWheel() {
+        return flushWheel;
+    }
+
+    public void setFlushWheel(boolean flushWheel) {
+        this.flushWheel = flushWheel;
+    }
+
+    public long getFlushTickDuration() {
+        return flushTickDuration;
+    }
+
+    public void setFlushTickDuration(long flushTickDuration) {
+        this.flushTickDuration = flushTickDuration;
+    }
+
+    public int getPoolSlots() {
+        return poolSlots;
+    }
+
+    public void setPoolSlots(int poolSlots) {
+        this.poolSlots = poolSlots;
+    }
+
+    public int getPoolBatches() {
+        return poolBatches;
+    }
+
+    public void setPoolBatches(int poolBatches) {
+        this.poolBatches = poolBatches;
+    }
+
+    public int getRetryMaxAttempts() {
+        return retryMaxAttempts;
+    }
+
+    public void setRetryMaxAttempts(int retryMaxAttempts) {
+        this.retryMaxAttempts = retryMaxAttempts;
+    }
+
+    public long getRetryBaseDelay() {
+        return retryBaseDelay;
+    }
+
+    public void setRetryBaseDelay(long retryBaseDelay) {
+        this.retryBaseDelay = retryBaseDelay;
+    }
+
+    public long getRetryMaxDelay() {
+        return retryMaxDelay;
+    }
+
+    public void setRetryMaxDelay(long retryMaxDelay) {
+        this.retryMaxDelay = retryMaxDelay;
+    }
+
+    public String getDeadLetterPath() {
+        return deadLetterPath;
+    }
+
+    public void setDeadLetterPath(String deadLetterPath) {
+        this.deadLetterPath = deadLetterPath;
+    }
+
+    public int getDeadLetterRedriveRate() {
+        return deadLetterRedriveRate;
+    }
+
+    public void setDeadLetterRedriveRate(int deadLetterRedriveRate) {
+        this.deadLetterRedriveRate = deadLetterRedriveRate;
+    }
+
+    public boolean isRetryIsolate() {
+        return retryIsolate;
+    }
+
+    public void setRetryIsolate(boolean retryIsolate) {
+        this.retryIsolate = retryIsolate;
+    }
+
+    public int getInsertMaxPacket() {
+        return insertMaxPacket;
+    }
+
+    public void setInsertMaxPacket(int insertMaxPacket) {
+        this.insertMaxPacket = insertMaxPacket;
+    }
+
+    public long getRotationAhead() {
+        return rotationAhead;
+    }
+
+    public void setRotationAhead(long rotationAhead) {
+        this.rotationAhead = rotationAhead;
+    }
+
+    public boolean isRouteEnable() {
+        return routeEnable;
+    }
+
+    public void setRouteEnable(boolean routeEnable) {
+        this.routeEnable = routeEnable;
+    }
+
+    public String getRouteField() {
+        return routeField;
+    }
+
+    public void setRouteField(String routeField) {
+        this.routeField = routeField;
+    }
+
+    public long getRouteLateWindow() {
+        return routeLateWindow;
+    }
+
+    public void setRouteLateWindow(long routeLateWindow) {
+        this.routeLateWindow = routeLateWindow;
+    }
+
+    public int getPartitionAhead() {
+        return partitionAhead;
+    }
+
+    public void setPartitionAhead(int partitionAhead) {
+        this.partitionAhead = partitionAhead;
+    }
+
+    public long getPartitionInterval() {
+        return partitionInterval;
+    }
+
+    public void setPartitionInterval(long partitionInterval) {
+        this.partitionInterval = partitionInterval;
+    }
 }
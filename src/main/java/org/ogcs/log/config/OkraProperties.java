@@ -40,6 +40,61 @@ public final class OkraProperties {
     public static int LOG_MAX_BATCH_SIZE = 100;
     public static String LOG_PATH = "./config/aolog.xml";
     public static char LOG_SEPARATOR = '|';
+    public static String LOG_PROTOCOL = OkraConfig.PROTOCOL_TEXT;
+    public static boolean LOG_UDP_FRAMED = false;
+    public static int LOG_UDP_MAX_PACKET_SIZE = 2048;
+    public static boolean LOG_UDP_EPOLL = false;
+    public static int LOG_UDP_SOCKETS = 0;
+    public static int LOG_UDP_RCVBUF = 0;
+    public static String LOG_IP_ACCEPT = "";
+    public static String LOG_IP_DENY = "";
+    public static boolean LOG_IP_DEFAULT_ACCEPT = true;
+    public static int LOG_TCP_PORT = 0;
+    public static int LOG_TCP_MAX_FRAME_LENGTH = 1048576;
+    public static int LOG_HTTP_PORT = 0;
+    public static int LOG_HTTP_MAX_CONTENT_LENGTH = 1048576;
+    public static long LOG_HIGH_WATER_MARK = 10000L;
+    public static int LOG_RING_HIGH_WATER_MARK = 75;
+    public static int LOG_STRUCT_MAX_RECORDS = 100000;
+    public static long LOG_STRUCT_MAX_BYTES = 67108864L;
+    public static long LOG_MEMORY_BUDGET = 536870912L;
+    public static String LOG_OVERFLOW_POLICY = OkraConfig.OVERFLOW_DROP_NEWEST;
+    public static long LOG_OVERFLOW_BLOCK_TIMEOUT = 1000L;
+    public static String LOG_OVERFLOW_PATH = "./overflow";
+    public static int LOG_FLUSHERS = 2;
+    public static boolean LOG_WAL_ENABLE = false;
+    public static String LOG_WAL_PATH = "./wal";
+    public static int LOG_WAL_SEGMENT_SIZE = 64 * 1024 * 1024;
+    public static long LOG_WAL_SYNC_INTERVAL = 10L;
+    public static int LOG_CONSUMERS = 1;
+    public static String LOG_WAIT_STRATEGY = OkraConfig.WAIT_BLOCKING;
+    public static int LOG_SHARDS = 1;
+    public static boolean LOG_STRUCT_LOCAL_LANES = false;
+    public static int LOG_STRUCT_LANE_CAPACITY = 8192;
+    public static boolean LOG_ADAPTIVE_ENABLE = false;
+    public static int LOG_ADAPTIVE_MIN_BATCH_SIZE = 10;
+    public static int LOG_ADAPTIVE_MAX_BATCH_SIZE = 5000;
+    public static int LOG_ADAPTIVE_STEP = 10;
+    public static long LOG_ADAPTIVE_TARGET_LATENCY = 500L;
+    public static long LOG_ADAPTIVE_MIN_INTERVAL = 50L;
+    public static long LOG_ADAPTIVE_MAX_INTERVAL = 5000L;
+    public static boolean LOG_FLUSH_WHEEL = true;
+    public static long LOG_FLUSH_TICK_DURATION = 10L;
+    public static int LOG_POOL_SLOTS = 4096;
+    public static int LOG_POOL_BATCHES = 64;
+    public static int LOG_RETRY_MAX_ATTEMPTS = 5;
+    public static long LOG_RETRY_BASE_DELAY = 200L;
+    public static long LOG_RETRY_MAX_DELAY = 30000L;
+    public static String LOG_DEAD_LETTER_PATH = "./deadletter";
+    public static int LOG_DEAD_LETTER_REDRIVE_RATE = 1000;
+    public static boolean LOG_RETRY_ISOLATE = true;
+    public static int LOG_INSERT_MAX_PACKET = 1048576;
+    public static long LOG_ROTATION_AHEAD = 600000L;
+    public static boolean LOG_ROUTE_ENABLE = false;
+    public static String LOG_ROUTE_FIELD = "logDate";
+    public static long LOG_ROUTE_LATE_WINDOW = 172800000L;
+    public static int LOG_PARTITION_AHEAD = 7;
+    public static long LOG_PARTITION_INTERVAL = 3600000L;
     public static String LOG_XSD_PATH = "/okra-log.xsd";
     public static int LOG_RING_BUFFER_SIZE = 16;
     public static String DATABASE_JDBC_URL = "";
@@ -70,6 +125,61 @@ public final class OkraProperties {
             LOG_PATH = prop.getProperty("okra.log.path", LOG_PATH);
             LOG_XSD_PATH = prop.getProperty("okra.log.xsd.path", LOG_XSD_PATH);
             LOG_SEPARATOR = prop.getProperty("okra.log.separator", String.valueOf(LOG_SEPARATOR)).charAt(0);
+            LOG_PROTOCOL = prop.getProperty("okra.log.protocol", LOG_PROTOCOL).trim().toLowerCase();
+            LOG_UDP_FRAMED = Boolean.valueOf(prop.getProperty("okra.log.udp.framed", String.valueOf(LOG_UDP_FRAMED)));
+            LOG_UDP_MAX_PACKET_SIZE = Integer.valueOf(prop.getProperty("okra.log.udp.maxPacketSize", String.valueOf(LOG_UDP_MAX_PACKET_SIZE)));
+            LOG_UDP_EPOLL = Boolean.valueOf(prop.getProperty("okra.log.udp.epoll", String.valueOf(LOG_UDP_EPOLL)));
+            LOG_UDP_SOCKETS = Integer.valueOf(prop.getProperty("okra.log.udp.sockets", String.valueOf(LOG_UDP_SOCKETS)));
+            LOG_UDP_RCVBUF = Integer.valueOf(prop.getProperty("okra.log.udp.rcvbuf", String.valueOf(LOG_UDP_RCVBUF)));
+            LOG_IP_ACCEPT = prop.getProperty("okra.log.ip.accept", LOG_IP_ACCEPT);
+            LOG_IP_DENY = prop.getProperty("okra.log.ip.deny", LOG_IP_DENY);
+            LOG_IP_DEFAULT_ACCEPT = Boolean.valueOf(prop.getProperty("okra.log.ip.defaultAccept", String.valueOf(LOG_IP_DEFAULT_ACCEPT)));
+            LOG_TCP_PORT = Integer.valueOf(prop.getProperty("okra.log.tcp.port", String.valueOf(LOG_TCP_PORT)));
+            LOG_TCP_MAX_FRAME_LENGTH = Integer.valueOf(prop.getProperty("okra.log.tcp.maxFrameLength", String.valueOf(LOG_TCP_MAX_FRAME_LENGTH)));
+            LOG_HTTP_PORT = Integer.valueOf(prop.getProperty("okra.log.http.port", String.valueOf(LOG_HTTP_PORT)));
+            LOG_HTTP_MAX_CONTENT_LENGTH = Integer.valueOf(prop.getProperty("okra.log.http.maxContentLength", String.valueOf(LOG_HTTP_MAX_CONTENT_LENGTH)));
+            LOG_HIGH_WATER_MARK = Long.valueOf(prop.getProperty("okra.log.highWaterMark", String.valueOf(LOG_HIGH_WATER_MARK)));
+            LOG_RING_HIGH_WATER_MARK = Integer.valueOf(prop.getProperty("okra.log.rb.highWaterMark", String.valueOf(LOG_RING_HIGH_WATER_MARK)));
+            LOG_STRUCT_MAX_RECORDS = Integer.valueOf(prop.getProperty("okra.log.struct.maxRecords", String.valueOf(LOG_STRUCT_MAX_RECORDS)).trim());
+            LOG_STRUCT_MAX_BYTES = Long.valueOf(prop.getProperty("okra.log.struct.maxBytes", String.valueOf(LOG_STRUCT_MAX_BYTES)).trim());
+            LOG_MEMORY_BUDGET = Long.valueOf(prop.getProperty("okra.log.memoryBudget", String.valueOf(LOG_MEMORY_BUDGET)).trim());
+            LOG_OVERFLOW_POLICY = prop.getProperty("okra.log.overflow.policy", LOG_OVERFLOW_POLICY).trim();
+            LOG_OVERFLOW_BLOCK_TIMEOUT = Long.valueOf(prop.getProperty("okra.log.overflow.blockTimeout", String.valueOf(LOG_OVERFLOW_BLOCK_TIMEOUT)).trim());
+            LOG_OVERFLOW_PATH = prop.getProperty("okra.log.overflow.path", LOG_OVERFLOW_PATH).trim();
+            LOG_FLUSHERS = Integer.valueOf(prop.getProperty("okra.log.flushers", String.valueOf(LOG_FLUSHERS)).trim());
+            LOG_WAL_ENABLE = Boolean.valueOf(prop.getProperty("okra.log.wal.enable", String.valueOf(LOG_WAL_ENABLE)).trim());
+            LOG_WAL_PATH = prop.getProperty("okra.log.wal.path", LOG_WAL_PATH).trim();
+            LOG_WAL_SEGMENT_SIZE = Integer.valueOf(prop.getProperty("okra.log.wal.segmentSize", String.valueOf(LOG_WAL_SEGMENT_SIZE)).trim());
+            LOG_WAL_SYNC_INTERVAL = Long.valueOf(prop.getProperty("okra.log.wal.syncInterval", String.valueOf(LOG_WAL_SYNC_INTERVAL)).trim());
+            LOG_CONSUMERS = Integer.valueOf(prop.getProperty("okra.log.consumers", String.valueOf(LOG_CONSUMERS)).trim());
+            LOG_WAIT_STRATEGY = prop.getProperty("okra.log.waitStrategy", LOG_WAIT_STRATEGY).trim();
+            LOG_SHARDS = Integer.valueOf(prop.getProperty("okra.log.shards", String.valueOf(LOG_SHARDS)).trim());
+            LOG_STRUCT_LOCAL_LANES = Boolean.valueOf(prop.getProperty("okra.log.struct.localLanes", String.valueOf(LOG_STRUCT_LOCAL_LANES)).trim());
+            LOG_STRUCT_LANE_CAPACITY = Integer.valueOf(prop.getProperty("okra.log.struct.laneCapacity", String.valueOf(LOG_STRUCT_LANE_CAPACITY)).trim());
+            LOG_ADAPTIVE_ENABLE = Boolean.valueOf(prop.getProperty("okra.log.adaptive.enable", String.valueOf(LOG_ADAPTIVE_ENABLE)).trim());
+            LOG_ADAPTIVE_MIN_BATCH_SIZE = Integer.valueOf(prop.getProperty("okra.log.adaptive.minBatchSize", String.valueOf(LOG_ADAPTIVE_MIN_BATCH_SIZE)).trim());
+            LOG_ADAPTIVE_MAX_BATCH_SIZE = Integer.valueOf(prop.getProperty("okra.log.adaptive.maxBatchSize", String.valueOf(LOG_ADAPTIVE_MAX_BATCH_SIZE)).trim());
+            LOG_ADAPTIVE_STEP = Integer.valueOf(prop.getProperty("okra.log.adaptive.step", String.valueOf(LOG_ADAPTIVE_STEP)).trim());
+            LOG_ADAPTIVE_TARGET_LATENCY = Long.valueOf(prop.getProperty("okra.log.adaptive.targetLatency", String.valueOf(LOG_ADAPTIVE_TARGET_LATENCY)).trim());
+            LOG_ADAPTIVE_MIN_INTERVAL = Long.valueOf(prop.getProperty("okra.log.adaptive.minInterval", String.valueOf(LOG_ADAPTIVE_MIN_INTERVAL)).trim());
+            LOG_ADAPTIVE_MAX_INTERVAL = Long.valueOf(prop.getProperty("okra.log.adaptive.maxInterval", String.valueOf(LOG_ADAPTIVE_MAX_INTERVAL)).trim());
+            LOG_FLUSH_WHEEL = Boolean.valueOf(prop.getProperty("okra.log.flush.wheel", String.valueOf(LOG_FLUSH_WHEEL)).trim());
+            LOG_FLUSH_TICK_DURATION = Long.valueOf(prop.getProperty("okra.log.flush.tickDuration", String.valueOf(LOG_FLUSH_TICK_DURATION)).trim());
+            LOG_POOL_SLOTS = Integer.valueOf(prop.getProperty("okra.log.pool.slots", String.valueOf(LOG_POOL_SLOTS)).trim());
+            LOG_POOL_BATCHES = Integer.valueOf(prop.getProperty("okra.log.pool.batches", String.valueOf(LOG_POOL_BATCHES)).trim());
+            LOG_RETRY_MAX_ATTEMPTS = Integer.valueOf(prop.getProperty("okra.log.retry.maxAttempts", String.valueOf(LOG_RETRY_MAX_ATTEMPTS)).trim());
+            LOG_RETRY_BASE_DELAY = Long.valueOf(prop.getProperty("okra.log.retry.baseDelay", String.valueOf(LOG_RETRY_BASE_DELAY)).trim());
+            LOG_RETRY_MAX_DELAY = Long.valueOf(prop.getProperty("okra.log.retry.maxDelay", String.valueOf(LOG_RETRY_MAX_DELAY)).trim());
+            LOG_DEAD_LETTER_PATH = prop.getProperty("okra.log.deadLetter.path", LOG_DEAD_LETTER_PATH).trim();
+            LOG_DEAD_LETTER_REDRIVE_RATE = Integer.valueOf(prop.getProperty("okra.log.deadLetter.redriveRate", String.valueOf(LOG_DEAD_LETTER_REDRIVE_RATE)).trim());
+            LOG_RETRY_ISOLATE = Boolean.valueOf(prop.getProperty("okra.log.retry.isolate", String.valueOf(LOG_RETRY_ISOLATE)).trim());
+            LOG_INSERT_MAX_PACKET = Integer.valueOf(prop.getProperty("okra.log.insert.maxPacket", String.valueOf(LOG_INSERT_MAX_PACKET)).trim());
+            LOG_ROTATION_AHEAD = Long.valueOf(prop.getProperty("okra.log.rotation.ahead", String.valueOf(LOG_ROTATION_AHEAD)).trim());
+            LOG_ROUTE_ENABLE = Boolean.valueOf(prop.getProperty("okra.log.route.enable", String.valueOf(LOG_ROUTE_ENABLE)).trim());
+            LOG_ROUTE_FIELD = prop.getProperty("okra.log.route.field", LOG_ROUTE_FIELD).trim();
+            LOG_ROUTE_LATE_WINDOW = Long.valueOf(prop.getProperty("okra.log.route.lateWindow", String.valueOf(LOG_ROUTE_LATE_WINDOW)).trim());
+            LOG_PARTITION_AHEAD = Integer.valueOf(prop.getProperty("okra.log.partition.ahead", String.valueOf(LOG_PARTITION_AHEAD)).trim());
+            LOG_PARTITION_INTERVAL = Long.valueOf(prop.getProperty("okra.log.partition.interval", String.valueOf(LOG_PARTITION_INTERVAL)).trim());
             LOG_RING_BUFFER_SIZE = Integer.valueOf(prop.getProperty("okra.log.rb.size", String.valueOf(LOG_RING_BUFFER_SIZE)));
             LOG_PORT = Integer.valueOf(prop.getProperty("okra.log.port", String.valueOf(LOG_PORT)));
             LOG_TASK_INTERVAL = Long.valueOf(prop.getProperty("okra.log.task.interval", String.valueOf(LOG_TASK_INTERVAL)));
@@ -95,6 +205,61 @@ public final class OkraProperties {
                 LOG_RING_BUFFER_SIZE, LOG_XSD_PATH, LOG_PATH, LOG_SEPARATOR, LOG_TASK_INTERVAL,
                 LOG_MAX_BATCH_SIZE
         );
+        okraConfig.setLogProtocol(LOG_PROTOCOL);
+        okraConfig.setUdpFramed(LOG_UDP_FRAMED);
+        okraConfig.setUdpMaxPacketSize(LOG_UDP_MAX_PACKET_SIZE);
+        okraConfig.setUdpEpoll(LOG_UDP_EPOLL);
+        okraConfig.setUdpSockets(LOG_UDP_SOCKETS);
+        okraConfig.setUdpRcvBuf(LOG_UDP_RCVBUF);
+        okraConfig.setIpAccept(LOG_IP_ACCEPT);
+        okraConfig.setIpDeny(LOG_IP_DENY);
+        okraConfig.setIpDefaultAccept(LOG_IP_DEFAULT_ACCEPT);
+        okraConfig.setTcpPort(LOG_TCP_PORT);
+        okraConfig.setTcpMaxFrameLength(LOG_TCP_MAX_FRAME_LENGTH);
+        okraConfig.setHttpPort(LOG_HTTP_PORT);
+        okraConfig.setHttpMaxContentLength(LOG_HTTP_MAX_CONTENT_LENGTH);
+        okraConfig.setHighWaterMark(LOG_HIGH_WATER_MARK);
+        okraConfig.setRingHighWaterMark(LOG_RING_HIGH_WATER_MARK);
+        okraConfig.setStructMaxRecords(LOG_STRUCT_MAX_RECORDS);
+        okraConfig.setStructMaxBytes(LOG_STRUCT_MAX_BYTES);
+        okraConfig.setMemoryBudget(LOG_MEMORY_BUDGET);
+        okraConfig.setOverflowPolicy(LOG_OVERFLOW_POLICY);
+        okraConfig.setOverflowBlockTimeout(LOG_OVERFLOW_BLOCK_TIMEOUT);
+        okraConfig.setOverflowPath(LOG_OVERFLOW_PATH);
+        okraConfig.setFlushers(LOG_FLUSHERS);
+        okraConfig.setWalEnable(LOG_WAL_ENABLE);
+        okraConfig.setWalPath(LOG_WAL_PATH);
+        okraConfig.setWalSegmentSize(LOG_WAL_SEGMENT_SIZE);
+        okraConfig.setWalSyncInterval(LOG_WAL_SYNC_INTERVAL);
+        okraConfig.setConsumers(LOG_CONSUMERS);
+        okraConfig.setWaitStrategy(LOG_WAIT_STRATEGY);
+        okraConfig.setShards(LOG_SHARDS);
+        okraConfig.setStructLocalLanes(LOG_STRUCT_LOCAL_LANES);
+        okraConfig.setStructLaneCapacity(LOG_STRUCT_LANE_CAPACITY);
+        okraConfig.setAdaptiveEnable(LOG_ADAPTIVE_ENABLE);
+        okraConfig.setAdaptiveMinBatchSize(LOG_ADAPTIVE_MIN_BATCH_SIZE);
+        okraConfig.setAdaptiveMaxBatchSize(LOG_ADAPTIVE_MAX_BATCH_SIZE);
+        okraConfig.setAdaptiveStep(LOG_ADAPTIVE_STEP);
+        okraConfig.setAdaptiveTargetLatency(LOG_ADAPTIVE_TARGET_LATENCY);
+        okraConfig.setAdaptiveMinInterval(LOG_ADAPTIVE_MIN_INTERVAL);
+        okraConfig.setAdaptiveMaxInterval(LOG_ADAPTIVE_MAX_INTERVAL);
+        okraConfig.setFlushWheel(LOG_FLUSH_WHEEL);
+        okraConfig.setFlushTickDuration(LOG_FLUSH_TICK_DURATION);
+        okraConfig.setPoolSlots(LOG_POOL_SLOTS);
+        okraConfig.setPoolBatches(LOG_POOL_BATCHES);
+        okraConfig.setRetryMaxAttempts(LOG_RETRY_MAX_ATTEMPTS);
+        okraConfig.setRetryBaseDelay(LOG_RETRY_BASE_DELAY);
+        okraConfig.setRetryMaxDelay(LOG_RETRY_MAX_DELAY);
+        okraConfig.setDeadLetterPath(LOG_DEAD_LETTER_PATH);
+        okraConfig.setDeadLetterRedriveRate(LOG_DEAD_LETTER_REDRIVE_RATE);
+        okraConfig.setRetryIsolate(LOG_RETRY_ISOLATE);
+        okraConfig.setInsertMaxPacket(LOG_INSERT_MAX_PACKET);
+        okraConfig.setRotationAhead(LOG_ROTATION_AHEAD);
+        okraConfig.setRouteEnable(LOG_ROUTE_ENABLE);
+        okraConfig.setRouteField(LOG_ROUTE_FIELD);
+        okraConfig.setRouteLateWindow(LOG_ROUTE_LATE_WINDOW);
+        okraConfig.setPartitionAhead(LOG_PARTITION_AHEAD);
+        okraConfig.setPartitionInterval(LOG_PARTITION_INTERVAL);
         return okraConfig;
     }
 }
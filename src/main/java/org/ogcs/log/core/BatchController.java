@@ -0,0 +1,111 @@
+/*
+ *     Copyright 2016-2026 TinyZ
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ogcs.log.core;
+
+import org.ogcs.log.config.OkraConfig;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 自适应批次控制器. 每个表一个.
+ * <p>
+ * 批次大小按AIMD调整 : 写库延迟低于目标且队列有积压(队列长度不小于批次大小)时加性增加step,
+ * 写库延迟超过目标或写入失败时减半. 定时写入间隔 = 目标端到端延迟 - 平均写库延迟(EWMA), 限制在配置范围内.
+ * 目标是在不超过目标延迟的前提下每秒写入尽量多的日志.
+ *
+ * @author TinyZ
+ * @date 2016-10-29.
+ */
+public class BatchController {
+
+    /**
+     * EWMA平滑系数
+     */
+    private static final double ALPHA = 0.2D;
+
+    private final int minBatchSize;
+    private final int maxBatchSize;
+    private final int step;
+    private final long targetNanos;
+    private final long minInterval;
+    private final long maxInterval;
+    private volatile int batchSize;
+    private volatile long interval;
+    /**
+     * 平均写库延迟(纳秒)
+     */
+    private double latency = -1D;
+
+    public BatchController(OkraConfig config) {
+        this.minBatchSize = Math.max(config.getAdaptiveMinBatchSize(), 1);
+        this.maxBatchSize = Math.max(config.getAdaptiveMaxBatchSize(), minBatchSize);
+        this.step = Math.max(config.getAdaptiveStep(), 1);
+        this.targetNanos = TimeUnit.MILLISECONDS.toNanos(config.getAdaptiveTargetLatency());
+        this.minInterval = Math.max(config.getAdaptiveMinInterval(), 1L);
+        this.maxInterval = Math.max(config.getAdaptiveMaxInterval(), minInterval);
+        this.batchSize = clamp(config.getMaxBatchSize(), minBatchSize, maxBatchSize);
+        this.interval = Math.max(minInterval, Math.min(config.getTaskInterval(), maxInterval));
+    }
+
+    /**
+     * Called after a batch is committed.
+     *
+     * @param nanos   The executeBatch and commit time in nanoseconds.
+     * @param backlog The log count in queue.
+     */
+    public synchronized void onRecorded(long nanos, long backlog) {
+        latency = latency < 0 ? nanos : latency + ALPHA * (nanos - latency);
+        if (nanos > targetNanos) {
+            batchSize = Math.max(batchSize >> 1, minBatchSize);
+        } else if (backlog >= batchSize) {
+            batchSize = Math.min(batchSize + step, maxBatchSize);
+        }
+        long headroom = TimeUnit.NANOSECONDS.toMillis(targetNanos - (long) latency);
+        interval = Math.max(minInterval, Math.min(headroom, maxInterval));
+    }
+
+    /**
+     * Called after a batch is failed. Treat as congestion.
+     */
+    public synchronized void onFailure() {
+        batchSize = Math.max(batchSize >> 1, minBatchSize);
+    }
+
+    private static int clamp(int value, int min, int max) {
+        return Math.max(min, Math.min(value, max));
+    }
+
+    /**
+     * @return Return the current batch size.
+     */
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * @return Return the current flush interval in milliseconds.
+     */
+    public long getInterval() {
+        return interval;
+    }
+
+    /**
+     * @return Return the average record latency in milliseconds, or -1 if no batch is recorded.
+     */
+    public synchronized double getLatency() {
+        return latency < 0 ? -1D : latency / 1000000.0D;
+    }
+}
@@ -17,30 +17,46 @@
 package org.ogcs.log.core;
 
 import com.lmax.disruptor.BlockingWaitStrategy;
-import com.lmax.disruptor.RingBuffer;
-import com.lmax.disruptor.dsl.Disruptor;
+import com.lmax.disruptor.BusySpinWaitStrategy;
+import com.lmax.disruptor.SleepingWaitStrategy;
+import com.lmax.disruptor.WaitStrategy;
+import com.lmax.disruptor.YieldingWaitStrategy;
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
+import io.netty.buffer.ByteBuf;
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.Timer;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.ogcs.log.config.OkraConfig;
+import org.ogcs.log.core.builder.RecordBatch;
 import org.ogcs.log.core.builder.Table;
-import org.ogcs.log.core.handler.LogRecordTask;
-import org.ogcs.log.core.handler.LogRecordTaskHandler;
+import org.ogcs.log.core.handler.ProtobufRecordTranslator;
+import org.ogcs.log.core.handler.TextRecordTranslator;
+import org.ogcs.log.core.handler.Translator;
 import org.ogcs.log.core.parser.Dom4JParser;
 import org.ogcs.log.core.parser.StructParser;
+import org.ogcs.log.core.store.DeadLetterStore;
+import org.ogcs.log.core.store.RecordFileStore;
+import org.ogcs.log.core.store.WriteAheadLog;
 import org.ogcs.service.SimpleTaskService;
 
 import javax.sql.DataSource;
+import java.io.File;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.*;
-
-import static com.lmax.disruptor.dsl.ProducerType.MULTI;
-import static org.ogcs.log.core.handler.LogRecordTaskFactory.DEFAULT_FACTORY;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * 任务版.
@@ -49,6 +65,13 @@ import static org.ogcs.log.core.handler.LogRecordTaskFactory.DEFAULT_FACTORY;
  * <p>
  * Mission board.
  * Client report log to mission board.
+ * <p>
+ * 开启预写日志时, 启动时回放上次进程未写入数据库的日志, 并定时组提交(force)所有表的WAL.
+ * stop()等待ringBuffer中的记录任务全部执行完成后才关闭WAL. 退避中等待重试的批次在stop()时立即重新入队并写入.
+ * <p>
+ * 每个表的写入截止时间由时间轮管理, 到期的表由flusher线程写入, 避免定时任务同时写入所有表.
+ * <p>
+ * 记录任务按表分配到多个{@link RecordShard}, 每个分片有独立的ringBuffer和写库消费者, 慢表不会阻塞其他分片的表.
  *
  * @author TinyZ
  * @date 2016-07-06.
@@ -62,12 +85,46 @@ public class MissionBoard {
 
     private OkraConfig config;
     private Map<String, Struct> board;
-    private Disruptor<LogRecordTask> disruptor;
+    private RecordShard[] shards;
     private DataSource dataSource;
     private StructParser<Table> parser;
+    private Translator<ByteBuf, String[]> translator;
     private SimpleTaskService tasks;
     private ScheduledFuture<?> future;
     private double version;
+    /**
+     * The estimated memory bytes of all struct's log queue.
+     */
+    private final AtomicLong memory = new AtomicLong(0);
+    /**
+     * The overflow file store. divert policy only.
+     */
+    private RecordFileStore overflowStore;
+    /**
+     * The dead-letter file store. the batches which reach the max retry attempts.
+     */
+    private DeadLetterStore deadLetters;
+    /**
+     * The flusher threads. assemble record batch and publish to ringBuffer.
+     */
+    private ExecutorService flushers;
+    /**
+     * The write-ahead log group commit task.
+     */
+    private ScheduledFuture<?> walFuture;
+    /**
+     * The flush deadline timer. null if disabled.
+     */
+    private Timer timer;
+    /**
+     * The next period's table pre-create task. null if disabled.
+     */
+    private ScheduledFuture<?> rotationFuture;
+    private ScheduledFuture<?> partitionFuture;
+    /**
+     * The waiting retry tasks. stop()时重新入队, 由publishAll()写入
+     */
+    private final Set<RetryTask> retries = ConcurrentHashMap.newKeySet();
 
     public MissionBoard(OkraConfig config) {
         if (config == null) throw new NullPointerException("config");
@@ -84,59 +141,331 @@ public class MissionBoard {
         this.dataSource = new HikariDataSource(hikariConfig);
         //  Disruptor
         int rbSize = (config.getRingBufferSize() % 2 == 0 && config.getRingBufferSize() > 0) ? config.getRingBufferSize() : DEF_BUFFER_SIZE;
-        this.disruptor = new Disruptor<>(DEFAULT_FACTORY, rbSize, DEFAULT_POOL, MULTI, new BlockingWaitStrategy());
-        this.disruptor.handleEventsWith(new LogRecordTaskHandler());
-//        this.disruptor.handleEventsWithWorkerPool(); // TODO: 用于后期EventHandler和WorkPool的WorkHandler对比测试
-//        this.disruptor.handleExceptionsWith(exceptionHandler);
-        this.disruptor.start();
+        int shardCount = shardCount();
+        //  消费者数量小于等于0时, 连接池平均分配给各个分片
+        int consumers = config.getConsumers() > 0 ? config.getConsumers() : Math.max(hikariConfig.getMaximumPoolSize() / shardCount, 1);
+        this.shards = new RecordShard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new RecordShard(i, rbSize, consumers, newWaitStrategy(config.getWaitStrategy()), DEFAULT_POOL);
+            shards[i].start();
+        }
         //  Struct parser
         this.parser = new Dom4JParser(config.getLogPath());
+        this.translator = OkraConfig.PROTOCOL_PROTOBUF.equals(config.getLogProtocol())
+                ? new ProtobufRecordTranslator(parser)
+                : new TextRecordTranslator(parser, config.getLogSeparator());
+        if (OkraConfig.OVERFLOW_DIVERT.equals(config.getOverflowPolicy())) {
+            this.overflowStore = new RecordFileStore(config.getOverflowPath(), "overflow", config.getLogSeparator());
+        }
+        this.deadLetters = new DeadLetterStore(config.getDeadLetterPath(), config.getLogSeparator(), config.getDeadLetterRedriveRate());
+        final AtomicInteger flusherId = new AtomicInteger();
+        this.flushers = Executors.newFixedThreadPool(Math.max(config.getFlushers(), 1),
+                (r) -> new Thread(r, "okra-log-flusher-" + flusherId.incrementAndGet()));
         this.tasks = new SimpleTaskService();
+        if (config.isFlushWheel()) {
+            this.timer = new HashedWheelTimer((r) -> new Thread(r, "okra-log-flush-timer"),
+                    Math.max(config.getFlushTickDuration(), 1L), TimeUnit.MILLISECONDS);
+        }
+        if (config.isWalEnable()) {
+            replay();
+            this.walFuture = this.tasks.scheduleAtFixedRate(this::syncAll,
+                    config.getWalSyncInterval(), config.getWalSyncInterval(), TimeUnit.MILLISECONDS);
+        }
 
-        // schedule publish task
+        if (config.getRotationAhead() > 0L) {
+            long interval = Math.max(Math.min(config.getRotationAhead() / 2, 60000L), 1000L);
+            this.rotationFuture = this.tasks.scheduleAtFixedRate(new TableRotator(this, config.getRotationAhead()),
+                    interval, interval, TimeUnit.MILLISECONDS);
+        }
+        if (config.getPartitionInterval() > 0L) {
+            //  启动后尽快检查一次, 已存在的分区表可能缺少未来的分区
+            this.partitionFuture = this.tasks.scheduleAtFixedRate(new PartitionManager(this, config.getPartitionAhead()),
+                    Math.min(config.getPartitionInterval(), 60000L), config.getPartitionInterval(), TimeUnit.MILLISECONDS);
+        }
+
+        // schedule publish task. 自适应批次时以最小间隔检查每个表的写入间隔. 使用时间轮时只刷新溢出文件
+        long period = config.isAdaptiveEnable() && timer == null ? Math.max(config.getAdaptiveMinInterval(), 1L) : config.getTaskInterval();
         this.future = this.tasks.scheduleAtFixedRate(() -> {
             try {
-                publishAll();
+                if (timer == null) {
+                    publishDue();
+                } else if (overflowStore != null) {
+                    overflowStore.flush();
+                }
+                deadLetters.flush();
             } catch (Exception e) {
-                LOG.error("Error publishAll().", e);
+                LOG.error("Error publishDue().", e);
             }
-        }, 1000L, config.getTaskInterval(), TimeUnit.MILLISECONDS);
+        }, 1000L, period, TimeUnit.MILLISECONDS);
         // add shutdown hook
         Runtime.getRuntime().addShutdownHook(new Thread(() -> {
             stop();
         }));
     }
 
+    private int shardCount() {
+        return Math.max(config.getShards(), 1);
+    }
+
+    /**
+     * Get the table's shard index. The shard attribute in aolog.xml first, or hash of the table name.
+     *
+     * @param table The table.
+     * @return Return the shard index.
+     */
+    public int shardOf(Table table) {
+        final int count = shardCount();
+        if (table.getShard() >= 0) {
+            if (table.getShard() >= count) {
+                LOG.warn("Table [" + table.getName() + "] shard " + table.getShard() + " is out of range, shard count : " + count);
+            }
+            return table.getShard() % count;
+        }
+        return (table.getName().toLowerCase().hashCode() & Integer.MAX_VALUE) % count;
+    }
+
+    /**
+     * Create the disruptor consumer wait strategy.
+     *
+     * @param name The wait strategy name. {@link OkraConfig#WAIT_BLOCKING}, {@link OkraConfig#WAIT_SLEEPING},
+     *             {@link OkraConfig#WAIT_YIELDING}, {@link OkraConfig#WAIT_BUSY_SPIN}
+     * @return Return the wait strategy. default is {@link BlockingWaitStrategy}.
+     */
+    static WaitStrategy newWaitStrategy(String name) {
+        if (name == null) {
+            return new BlockingWaitStrategy();
+        }
+        switch (name) {
+            case OkraConfig.WAIT_SLEEPING:
+                return new SleepingWaitStrategy();
+            case OkraConfig.WAIT_YIELDING:
+                return new YieldingWaitStrategy();
+            case OkraConfig.WAIT_BUSY_SPIN:
+                return new BusySpinWaitStrategy();
+            case OkraConfig.WAIT_BLOCKING:
+                return new BlockingWaitStrategy();
+            default:
+                LOG.warn("Unknown wait strategy : " + name + ", use blocking.");
+                return new BlockingWaitStrategy();
+        }
+    }
+
+    /**
+     * Replay the write-ahead logs left by the last process. One sub directory per table.
+     */
+    private void replay() {
+        File[] dirs = new File(config.getWalPath()).listFiles(File::isDirectory);
+        if (dirs == null) {
+            return;
+        }
+        for (File dir : dirs) {
+            Table table = parser.getTable(dir.getName());
+            if (table == null) {
+                LOG.warn("Unknown table write-ahead log, skip replay : " + dir.getAbsolutePath());
+                continue;
+            }
+            Struct struct = board.computeIfAbsent(table.getName(), (name) -> new Struct(table, this));
+            int count = struct.replay();
+            if (count > 0) {
+                LOG.info("Replay " + count + " logs from write-ahead log : " + dir.getAbsolutePath());
+            }
+        }
+    }
+
+    /**
+     * Group commit all struct's write-ahead log.
+     */
+    private void syncAll() {
+        for (Struct struct : board.values()) {
+            WriteAheadLog wal = struct.getWal();
+            if (wal == null) {
+                continue;
+            }
+            try {
+                wal.sync();
+            } catch (Exception e) {
+                LOG.error("Error sync write-ahead log : " + wal.getDirectory().getAbsolutePath(), e);
+            }
+        }
+    }
+
     /**
      * Add a log to struct task queue.
      *
      * @param tableName The table struct name.
      * @param params    The log data.
+     * @return Return true if the log is enqueued, false if it is dropped or diverted by the overflow policy.
      */
-    public void add(String tableName, String[] params) {
+    public boolean add(String tableName, String[] params) {
         Struct struct = board.get(tableName);
         if (struct == null) {
-            Table table = this.parser.getTable(tableName);
-            struct = new Struct(table, this);
-            board.put(tableName, struct);
+            struct = board.computeIfAbsent(tableName, (name) -> new Struct(this.parser.getTable(name), this));
         }
-        struct.add(params);
+        return struct.add(params);
     }
 
     /**
-     * Publish record task to record special table's log.
+     * Notify the flusher to record the struct's full batch. Never block the caller.
      *
      * @param struct The table struct.
-     * @param list   The log data list.
      */
-    public void publish(Struct struct, List<String[]> list) {
-        RingBuffer<LogRecordTask> rb = disruptor.getRingBuffer();
-        long next = rb.next();
+    public void flush(Struct struct) {
+        if (flushers == null || struct.isBackingOff()) {
+            return;
+        }
         try {
-            LogRecordTask event = rb.get(next);
-            event.setValues(struct, list);
-        } finally {
-            rb.publish(next);
+            flushers.execute(() -> {
+                try {
+                    struct.record(struct.getBatchCount());
+                } catch (Exception e) {
+                    LOG.error("Error flush struct : " + struct.getTable().getName(), e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            LOG.warn("The flusher is shutdown. the logs will be record by publishAll().");
+        }
+    }
+
+    /**
+     * Schedule the struct's flush deadline on the timer wheel. The expired struct is recorded by the flusher.
+     *
+     * @param struct The table struct.
+     * @param delay  The deadline in milliseconds.
+     * @return Return false if the timer is disabled or stopped.
+     */
+    public boolean schedule(Struct struct, long delay) {
+        if (timer == null) {
+            return false;
+        }
+        try {
+            timer.newTimeout((timeout) -> {
+                try {
+                    flushers.execute(() -> {
+                        try {
+                            struct.expire();
+                        } catch (Exception e) {
+                            LOG.error("Error expire struct : " + struct.getTable().getName(), e);
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    LOG.warn("The flusher is shutdown. the logs will be record by publishAll().");
+                }
+            }, Math.max(delay, 1L), TimeUnit.MILLISECONDS);
+            return true;
+        } catch (IllegalStateException e) {
+            //  the timer is stopped.
+            return false;
+        }
+    }
+
+    /**
+     * Publish the failed batch again after the delay. The batch is published by the flusher.
+     *
+     * @param struct The table struct.
+     * @param batch  The failed batch.
+     * @param delay  The delay in milliseconds.
+     */
+    public void retry(Struct struct, RecordBatch batch, long delay) {
+        RetryTask task = new RetryTask(struct, batch);
+        if (tasks == null || tasks.isShutdown()) {
+            task.run();
+            return;
+        }
+        retries.add(task);
+        try {
+            tasks.schedule(task, delay, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            task.run();
+        }
+    }
+
+    /**
+     * The delayed retry of the failed batch. Run once, by the scheduler or by stop().
+     */
+    private final class RetryTask implements Runnable {
+
+        private final Struct struct;
+        private final RecordBatch batch;
+        private final AtomicBoolean done = new AtomicBoolean(false);
+
+        RetryTask(Struct struct, RecordBatch batch) {
+            this.struct = struct;
+            this.batch = batch;
+        }
+
+        @Override
+        public void run() {
+            if (!done.compareAndSet(false, true)) {
+                return;
+            }
+            retries.remove(this);
+            if (flushers != null && !flushers.isShutdown()) {
+                try {
+                    flushers.execute(() -> publish(struct, batch));
+                    return;
+                } catch (RejectedExecutionException e) {
+                    //  stopping.
+                }
+            }
+            //  add to queue, recorded by publishAll() or kept in write-ahead log.
+            struct.addAll(batch);
+            struct.commit(batch);
+            struct.recycle(batch);
+        }
+    }
+
+    /**
+     * Write the log to the dead-letter store.
+     *
+     * @param params The log data.
+     * @return Return true if success.
+     */
+    public boolean deadLetter(String[] params) {
+        return deadLetters != null && deadLetters.append(params);
+    }
+
+    /**
+     * Quarantine the invalid log to the dead-letter store with the error reason.
+     *
+     * @param params The log data.
+     * @param reason The error reason.
+     * @return Return true if success.
+     */
+    public boolean quarantine(String[] params, String reason) {
+        return deadLetters != null && deadLetters.append(params, reason);
+    }
+
+    /**
+     * Get the dead-letter store.
+     *
+     * @return Return the dead-letter store, or null if the board is not initialized.
+     */
+    public DeadLetterStore getDeadLetters() {
+        return deadLetters;
+    }
+
+    /**
+     * Publish record task to record special table's log.
+     *
+     * @param struct The table struct.
+     * @param batch  The log data batch.
+     */
+    public void publish(Struct struct, RecordBatch batch) {
+        shards[struct.getShard()].publish(struct, batch);
+    }
+
+    /**
+     * Publish record task to record the unrecorded log of the structs which flush interval is elapsed.
+     */
+    public void publishDue() {
+        final long now = System.currentTimeMillis();
+        for (Struct struct : board.values()) {
+            if (struct.isFlushDue(now) && !struct.isBackingOff()) {
+                struct.recordAll();
+            }
+        }
+        if (overflowStore != null) {
+            overflowStore.flush();
         }
     }
 
@@ -145,13 +474,195 @@ public class MissionBoard {
      */
     public void publishAll() {
         board.values().forEach(Struct::recordAll);
+        if (overflowStore != null) {
+            overflowStore.flush();
+        }
+    }
+
+    /**
+     * Reserve memory from the global memory budget.
+     *
+     * @param bytes The estimated memory bytes.
+     * @return Return true if success, false if the budget is not enough.
+     */
+    public boolean reserve(long bytes) {
+        final long budget = config.getMemoryBudget();
+        long current;
+        do {
+            current = memory.get();
+            if (current + bytes > budget) {
+                return false;
+            }
+        } while (!memory.compareAndSet(current, current + bytes));
+        return true;
+    }
+
+    /**
+     * Free memory to the global memory budget.
+     *
+     * @param bytes The estimated memory bytes.
+     */
+    public void free(long bytes) {
+        memory.addAndGet(-bytes);
+    }
+
+    /**
+     * Get the estimated memory bytes of all struct's log queue.
+     *
+     * @return Return the estimated memory bytes.
+     */
+    public long getMemory() {
+        return memory.get();
+    }
+
+    /**
+     * Divert the overflow log to the overflow file store.
+     *
+     * @param params The log data.
+     * @return Return true if success.
+     */
+    public boolean divert(String[] params) {
+        return overflowStore != null && overflowStore.append(params);
+    }
+
+    /**
+     * Is any struct's log queue or the ringBuffer pass the high water mark.
+     *
+     * @return Return true if the mission board is overloaded.
+     */
+    public boolean isOverloaded() {
+        return isAbove(config.getHighWaterMark(), config.getRingHighWaterMark());
+    }
+
+    /**
+     * Is all struct's log queue and the ringBuffer under the low water mark. The low water mark is half of the high water mark.
+     *
+     * @return Return true if the mission board is under the low water mark.
+     */
+    public boolean isUnderLowWaterMark() {
+        return !isAbove(config.getHighWaterMark() / 2, config.getRingHighWaterMark() / 2);
+    }
+
+    private boolean isAbove(long structMark, int ringMark) {
+        for (RecordShard shard : shards) {
+            if (shard.depth() * 100L >= (long) shard.capacity() * ringMark) {
+                return true;
+            }
+        }
+        for (Struct struct : board.values()) {
+            if (struct.size() >= structMark) {
+                return true;
+            }
+        }
+        return false;
     }
 
     /**
      * Stop running and publish all record task.
      */
     public void stop() {
+        if (timer != null) {
+            timer.stop();
+        }
+        if (future != null) {
+            future.cancel(false);
+        }
+        if (tasks != null) {
+            //  取消等待中的定时任务, 重试任务在下面重新入队
+            tasks.shutdownNow();
+            try {
+                tasks.awaitTermination(config.getTaskInterval(), TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (flushers != null) {
+            flushers.shutdown();
+            try {
+                flushers.awaitTermination(config.getTaskInterval(), TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        //  flusher已关闭, 等待中的重试批次重新入队, 由publishAll()写入
+        for (RetryTask task : retries) {
+            task.run();
+        }
         publishAll();
+        if (shards != null) {
+            //  等待已发布的记录任务执行完成
+            for (RecordShard shard : shards) {
+                if (!shard.shutdown(config.getTaskInterval())) {
+                    LOG.warn("Wait for the shard " + shard.getIndex() + " record tasks timeout, the unrecorded logs are kept in write-ahead log if enabled.");
+                }
+            }
+        }
+        if (walFuture != null) {
+            walFuture.cancel(false);
+        }
+        if (rotationFuture != null) {
+            rotationFuture.cancel(false);
+        }
+        if (partitionFuture != null) {
+            partitionFuture.cancel(false);
+        }
+        if (board != null) {
+            for (Struct struct : board.values()) {
+                if (struct.getWal() != null) {
+                    struct.getWal().close();
+                }
+            }
+        }
+        if (overflowStore != null) {
+            overflowStore.close();
+        }
+        if (deadLetters != null) {
+            deadLetters.close();
+        }
+    }
+
+    /**
+     * Get the statistics of each shard and the tables in it.
+     *
+     * @return Return the shard statistics.
+     */
+    public List<Map<String, Object>> getShardStats() {
+        List<Map<String, Object>> list = new ArrayList<>();
+        if (shards == null) {
+            return list;
+        }
+        List<List<Map<String, Object>>> tables = new ArrayList<>();
+        for (RecordShard shard : shards) {
+            Map<String, Object> stats = shard.stats();
+            List<Map<String, Object>> shardTables = new ArrayList<>();
+            stats.put("tables", shardTables);
+            tables.add(shardTables);
+            list.add(stats);
+        }
+        for (Struct struct : board.values()) {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("table", struct.getTable().getName());
+            stats.put("queue", struct.size());
+            stats.put("bytes", struct.bytes());
+            stats.put("dropped", struct.getDropped());
+            stats.put("batchSize", struct.getBatchCount());
+            stats.put("retried", struct.getRetried());
+            stats.put("deadLettered", struct.getDeadLettered());
+            stats.put("quarantined", struct.getQuarantined());
+            stats.put("partitions", struct.getTable().getPartitionCount());
+            stats.put("batchPoolHits", struct.getBatches().getHits());
+            stats.put("batchPoolMisses", struct.getBatches().getMisses());
+            if (struct.getTable().getSlots() != null) {
+                stats.put("slotPoolHits", struct.getTable().getSlots().getHits());
+                stats.put("slotPoolMisses", struct.getTable().getSlots().getMisses());
+            }
+            if (struct.getController() != null) {
+                stats.put("flushInterval", struct.getController().getInterval());
+                stats.put("latencyMs", struct.getController().getLatency());
+            }
+            tables.get(struct.getShard()).add(stats);
+        }
+        return list;
     }
 
     /**
@@ -167,6 +678,15 @@ public class MissionBoard {
         return dataSource.getConnection();
     }
 
+    /**
+     * Get the structs of the tables which has received logs.
+     *
+     * @return Return the structs.
+     */
+    public Collection<Struct> getStructs() {
+        return board == null ? Collections.emptyList() : board.values();
+    }
+
     /**
      * Get the struct parser.
      *
@@ -176,6 +696,15 @@ public class MissionBoard {
         return parser;
     }
 
+    /**
+     * Get the binary log message translator. The translator depend on the report log protocol.
+     *
+     * @return Return the log message translator.
+     */
+    public Translator<ByteBuf, String[]> getTranslator() {
+        return translator;
+    }
+
     /**
      * Get Okra-LOG config.
      *
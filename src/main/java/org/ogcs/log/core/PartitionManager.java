@@ -0,0 +1,197 @@
+/*
+ *     Copyright 2016-2026 TinyZ
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ogcs.log.core;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.ogcs.log.core.builder.Table;
+import org.ogcs.log.util.MySQL;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Maintain the MySQL RANGE partitions of the partitioned tables.
+ * <p>
+ * 分区的表(partition="DAY"/"MONTH")使用固定的表名写入. 定时拆分MAXVALUE分区创建未来{@link #ahead}个分区,
+ * 并删除超出保留数量({@link Table#getPartitionKeep()})的过期分区. DROP PARTITION只删除分区的数据文件, 不需要逐行DELETE.
+ *
+ * @author TinyZ
+ * @date 2016-11-03.
+ */
+public final class PartitionManager implements Runnable {
+
+    private static final Logger LOG = LogManager.getLogger(PartitionManager.class);
+
+    private final MissionBoard board;
+    private final int ahead;
+
+    /**
+     * @param board The mission board.
+     * @param ahead The future partition count.
+     */
+    public PartitionManager(MissionBoard board, int ahead) {
+        this.board = board;
+        this.ahead = ahead;
+    }
+
+    @Override
+    public void run() {
+        maintain(LocalDate.now());
+    }
+
+    /**
+     * Maintain the partitions of all partitioned tables.
+     *
+     * @param today The current date.
+     */
+    public void maintain(LocalDate today) {
+        for (Struct struct : board.getStructs()) {
+            Table table = struct.getTable();
+            if (!table.isPartitioned()) {
+                continue;
+            }
+            try (Connection conn = board.getConnection()) {
+                maintain(conn, table, today);
+            } catch (SQLException e) {
+                LOG.error("Maintain partitions failure. table : " + table.getName(), e);
+            }
+        }
+    }
+
+    /**
+     * Add the future partitions and drop the expired partitions.
+     *
+     * @param conn  The connection.
+     * @param table The partitioned table.
+     * @param today The current date.
+     * @return Return the changed partition count. added and dropped.
+     * @throws SQLException The partitions query or alter table failure.
+     */
+    int maintain(Connection conn, Table table, LocalDate today) throws SQLException {
+        List<String> names = partitions(conn, table);
+        if (names.isEmpty()) {
+            //  表尚未创建或者不是分区表
+            LOG.debug("Table is not exist or not partitioned : " + table.getName());
+            return 0;
+        }
+        String unit = table.getPartition();
+        boolean hasMax = false;
+        List<LocalDate> starts = new ArrayList<>();
+        List<String> exists = new ArrayList<>();
+        for (String name : names) {
+            if (MySQL.PARTITION_MAX.equalsIgnoreCase(name)) {
+                hasMax = true;
+                continue;
+            }
+            LocalDate start = MySQL.partitionOf(unit, name);
+            if (start != null) {
+                starts.add(start);
+                exists.add(name);
+            }
+        }
+        int changed = 0;
+        //  创建未来的分区
+        LocalDate current = MySQL.partitionStart(unit, today);
+        LocalDate last = starts.isEmpty() ? null : starts.get(starts.size() - 1);
+        LocalDate start = last == null ? current : MySQL.partitionNext(unit, last);
+        LocalDate target = current;
+        for (int i = 0; i < ahead; i++) {
+            target = MySQL.partitionNext(unit, target);
+        }
+        List<LocalDate> adds = new ArrayList<>();
+        while (!start.isAfter(target)) {
+            adds.add(start);
+            start = MySQL.partitionNext(unit, start);
+        }
+        if (!adds.isEmpty()) {
+            execute(conn, MySQL.addPartitionSQL(table, adds, hasMax));
+            changed += adds.size();
+        }
+        //  删除过期的分区, 至少保留最后一个日期分区
+        int keep = table.getPartitionKeep();
+        if (keep > 0) {
+            LocalDate earliest = current;
+            for (int i = 1; i < keep; i++) {
+                earliest = partitionPrevious(unit, earliest);
+            }
+            List<String> drops = new ArrayList<>();
+            for (int i = 0; i < starts.size() - 1; i++) {
+                if (starts.get(i).isBefore(earliest)) {
+                    drops.add(exists.get(i));
+                }
+            }
+            if (!drops.isEmpty()) {
+                execute(conn, MySQL.dropPartitionSQL(table, drops));
+                changed += drops.size();
+            }
+        }
+        return changed;
+    }
+
+    private static LocalDate partitionPrevious(String unit, LocalDate start) {
+        return Table.PARTITION_MONTH.equalsIgnoreCase(unit) ? start.minusMonths(1) : start.minusDays(1);
+    }
+
+    /**
+     * Query the table's partition names, in partition order.
+     */
+    private List<String> partitions(Connection conn, Table table) throws SQLException {
+        List<String> names = new ArrayList<>();
+        try (PreparedStatement stat = conn.prepareStatement(MySQL.PARTITIONS_QUERY)) {
+            String database = table.getDatabase();
+            if (database == null || database.isEmpty()) {
+                stat.setNull(1, Types.VARCHAR);
+            } else {
+                stat.setString(1, database.toLowerCase());
+            }
+            stat.setString(2, tableName(table));
+            try (ResultSet rs = stat.executeQuery()) {
+                while (rs.next()) {
+                    names.add(rs.getString(1));
+                }
+            }
+        }
+        return names;
+    }
+
+    /**
+     * @return Return the table name without database and quotes. The partitioned table's name has no date suffix.
+     */
+    static String tableName(Table table) {
+        String name = table.name().trim();
+        int index = name.lastIndexOf("`.`");
+        if (index >= 0) {
+            name = name.substring(index + 2);
+        }
+        return name.replace("`", "");
+    }
+
+    private void execute(Connection conn, String sql) throws SQLException {
+        try (Statement statement = conn.createStatement()) {
+            statement.execute(sql);
+            LOG.info("Maintain partitions : " + sql);
+        }
+    }
+}
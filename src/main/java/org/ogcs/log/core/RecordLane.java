@@ -0,0 +1,106 @@
+/*
+ *     Copyright 2016-2026 TinyZ
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ogcs.log.core;
+
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+/**
+ * 单生产者单消费者的日志缓冲.
+ * <p>
+ * 由一个Netty事件循环线程独占写入, flusher线程(同一时刻只有一个)读取. 写入和读取都没有CAS,
+ * 只通过有序写(lazySet)发布head/tail, 生产者缓存消费者的head, 减少跨核读取.
+ * <p>
+ * Single-producer single-consumer bounded ring.
+ *
+ * @author TinyZ
+ * @date 2016-10-29.
+ */
+public final class RecordLane {
+
+    private static final AtomicLongFieldUpdater<RecordLane> HEAD = AtomicLongFieldUpdater.newUpdater(RecordLane.class, "head");
+    private static final AtomicLongFieldUpdater<RecordLane> TAIL = AtomicLongFieldUpdater.newUpdater(RecordLane.class, "tail");
+
+    private final String[][] buffer;
+    private final int mask;
+    /**
+     * 消费者序号, 只由消费者写入
+     */
+    private volatile long head;
+    /**
+     * 生产者序号, 只由生产者写入
+     */
+    private volatile long tail;
+    /**
+     * 生产者缓存的head
+     */
+    private long headCache;
+
+    public RecordLane(int capacity) {
+        int size = 1;
+        while (size < capacity && size < (1 << 30)) {
+            size <<= 1;
+        }
+        this.buffer = new String[size][];
+        this.mask = size - 1;
+    }
+
+    /**
+     * Offer the log. Producer thread only.
+     *
+     * @param params The log data.
+     * @return Return the count of offered logs (include this one), or 0 if the lane is full.
+     */
+    public long offer(String[] params) {
+        final long t = tail;
+        if (t - headCache >= buffer.length) {
+            headCache = head;
+            if (t - headCache >= buffer.length) {
+                return 0L;
+            }
+        }
+        buffer[(int) t & mask] = params;
+        TAIL.lazySet(this, t + 1);
+        return t + 1;
+    }
+
+    /**
+     * Poll the oldest log. Consumer thread only.
+     *
+     * @return Return the log, or null if the lane is empty.
+     */
+    public String[] poll() {
+        final long h = head;
+        if (h >= tail) {
+            return null;
+        }
+        final int index = (int) h & mask;
+        String[] params = buffer[index];
+        buffer[index] = null;
+        HEAD.lazySet(this, h + 1);
+        return params;
+    }
+
+    /**
+     * @return Return the approximate count of logs in lane.
+     */
+    public int size() {
+        return (int) Math.max(tail - head, 0L);
+    }
+
+    public int capacity() {
+        return buffer.length;
+    }
+}
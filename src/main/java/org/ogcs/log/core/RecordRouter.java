@@ -0,0 +1,181 @@
+/*
+ *     Copyright 2016-2026 TinyZ
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ogcs.log.core;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.ogcs.log.config.OkraConfig;
+import org.ogcs.log.core.builder.Field;
+import org.ogcs.log.core.builder.RecordBatch;
+import org.ogcs.log.core.builder.Table;
+import org.ogcs.log.core.builder.TablePeriod;
+import org.ogcs.log.util.TimeV8Util;
+import org.ogcs.utilities.StringUtil;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 按日志时间路由({@link OkraConfig#isRouteEnable()}). 每个表版本一个, 不可变.
+ * <p>
+ * 迟到或回放的日志按路由字段写入所属周期的表, 超出迟到窗口的日志写入当前周期的表.
+ * 每一轮记录创建一个{@link Round}, 一个周期一个批次. 同一轮的批次共享WAL序号区间, 所有批次写入后才提交.
+ *
+ * @author TinyZ
+ * @date 2016-11-04.
+ */
+public final class RecordRouter {
+
+    private static final Logger LOG = LogManager.getLogger(RecordRouter.class);
+
+    private final Struct struct;
+    private final Table table;
+    /**
+     * 路由字段在日志参数中的索引
+     */
+    private final int index;
+    /**
+     * 迟到日志的时间窗口(秒)
+     */
+    private final long window;
+
+    private RecordRouter(Struct struct, Table table, int index, long window) {
+        this.struct = struct;
+        this.table = table;
+        this.index = index;
+        this.window = window;
+    }
+
+    /**
+     * Create the router of the table.
+     *
+     * @param struct The table's struct.
+     * @param table  The MySQL table.
+     * @return Return the router, or null if the table is not routed by event time.
+     */
+    public static RecordRouter newRouter(Struct struct, Table table) {
+        OkraConfig config = struct.getBoard().getConfig();
+        if (!config.isRouteEnable() || !Table.ADORN_DATE.equals(table.getAdorn()) || StringUtil.isEmpty(table.getSuffix())
+                || table.isPartitioned()) {
+            return null;
+        }
+        Field[] fields = table.getFields();
+        for (int i = 0; i < fields.length; i++) {
+            if (fields[i].getName().equalsIgnoreCase(config.getRouteField())) {
+                return new RecordRouter(struct, table, i + 1, TimeUnit.MILLISECONDS.toSeconds(config.getRouteLateWindow()));
+            }
+        }
+        LOG.warn("Table [" + table.getName() + "] has no route field : " + config.getRouteField());
+        return null;
+    }
+
+    /**
+     * Get the log's target period by the route field.
+     *
+     * @param params The log params.
+     * @return Return the period, or null if the route field is invalid(use the current period when recorded).
+     */
+    public TablePeriod partitionOf(String[] params) {
+        String value = index < params.length ? params[index] : null;
+        if (StringUtil.isEmpty(value)) {
+            return null;
+        }
+        long second = TimeV8Util.parseLocalEpochSecond(value);
+        if (second == Long.MIN_VALUE) {
+            return null;
+        }
+        return table.periodOf(second, window);
+    }
+
+    /**
+     * @return Return a new record round. not thread safe.
+     */
+    public Round newRound() {
+        return new Round();
+    }
+
+    /**
+     * 一轮记录的批次, 一个周期一个批次. 只由一个flusher线程使用.
+     */
+    public final class Round {
+
+        private final List<RecordBatch> batches = new ArrayList<>(2);
+
+        private Round() {
+            // no-op
+        }
+
+        /**
+         * Get the batch of the log's target period. create new batch if absent.
+         *
+         * @param params The log params.
+         * @return Return the record batch.
+         */
+        public RecordBatch batchOf(String[] params) {
+            TablePeriod period = partitionOf(params);
+            for (int i = 0; i < batches.size(); i++) {
+                RecordBatch batch = batches.get(i);
+                if (batch.getPeriod() == period) {
+                    return batch;
+                }
+            }
+            RecordBatch batch = struct.newBatch();
+            batch.setPeriod(period);
+            batches.add(batch);
+            return batch;
+        }
+
+        /**
+         * Remove the published full batch. the next log of its period will create new batch.
+         */
+        public void remove(RecordBatch batch) {
+            batches.remove(batch);
+        }
+
+        /**
+         * Publish the batches which share the write-ahead log's sequence range.
+         *
+         * @param sequence The first sequence.
+         * @param count    The sequence count.
+         */
+        public void publish(long sequence, int count) {
+            //  序号区间在所有周期的批次写入后才提交
+            AtomicInteger group = batches.size() > 1 ? new AtomicInteger(batches.size()) : null;
+            for (RecordBatch batch : batches) {
+                batch.setSequence(sequence, count, group);
+            }
+            publish();
+        }
+
+        /**
+         * Publish the batches. the empty batch is committed and recycled.
+         */
+        public void publish() {
+            for (RecordBatch batch : batches) {
+                if (batch.isEmpty()) {
+                    struct.commit(batch);
+                    struct.recycle(batch);
+                } else {
+                    struct.getBoard().publish(struct, batch);
+                }
+            }
+            batches.clear();
+        }
+    }
+}
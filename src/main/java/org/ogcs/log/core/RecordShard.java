@@ -0,0 +1,179 @@
+/*
+ *     Copyright 2016-2026 TinyZ
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ogcs.log.core;
+
+import com.lmax.disruptor.RingBuffer;
+import com.lmax.disruptor.TimeoutException;
+import com.lmax.disruptor.WaitStrategy;
+import com.lmax.disruptor.dsl.Disruptor;
+import org.ogcs.log.core.builder.RecordBatch;
+import org.ogcs.log.core.handler.LogRecordExceptionHandler;
+import org.ogcs.log.core.handler.LogRecordTask;
+import org.ogcs.log.core.handler.LogRecordTaskHandler;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.lmax.disruptor.dsl.ProducerType.MULTI;
+import static org.ogcs.log.core.handler.LogRecordTaskFactory.DEFAULT_FACTORY;
+
+/**
+ * Disruptor分片.
+ * <p>
+ * 每个分片有独立的ringBuffer和写库消费者(独立的线程和数据库连接), 慢表只阻塞自己所在的分片, 不影响其他分片的表.
+ * 统计分片的队列深度和写库延迟, 用于调整热点表的分片(aolog.xml的shard属性).
+ *
+ * @author TinyZ
+ * @date 2016-10-28.
+ */
+public class RecordShard {
+
+    private final int index;
+    private final Disruptor<LogRecordTask> disruptor;
+    /**
+     * 写入完成的批次数量
+     */
+    private final AtomicLong batches = new AtomicLong(0);
+    /**
+     * 写入完成的日志数量
+     */
+    private final AtomicLong records = new AtomicLong(0);
+    /**
+     * 批次写库总耗时(纳秒)
+     */
+    private final AtomicLong totalNanos = new AtomicLong(0);
+    /**
+     * 上次统计后的最大批次写库耗时(纳秒)
+     */
+    private final AtomicLong maxNanos = new AtomicLong(0);
+
+    /**
+     * @param index        The shard index.
+     * @param bufferSize   The ringBuffer size, must be power of 2.
+     * @param consumers    The consumer count. 1 : single EventHandler, greater than 1 : WorkerPool.
+     * @param waitStrategy The consumer wait strategy.
+     * @param executor     The consumer thread executor.
+     */
+    public RecordShard(int index, int bufferSize, int consumers, WaitStrategy waitStrategy, Executor executor) {
+        this.index = index;
+        this.disruptor = new Disruptor<>(DEFAULT_FACTORY, bufferSize, executor, MULTI, waitStrategy);
+        this.disruptor.handleExceptionsWith(new LogRecordExceptionHandler());
+        if (consumers <= 1) {
+            this.disruptor.handleEventsWith(new LogRecordTaskHandler(this));
+        } else {
+            //  WorkerPool : 每个事件只由一个WorkHandler处理, 多个连接并行写库
+            LogRecordTaskHandler[] handlers = new LogRecordTaskHandler[consumers];
+            for (int i = 0; i < consumers; i++) {
+                handlers[i] = new LogRecordTaskHandler(this);
+            }
+            this.disruptor.handleEventsWithWorkerPool(handlers);
+        }
+    }
+
+    public void start() {
+        disruptor.start();
+    }
+
+    /**
+     * Publish record task to the shard's ringBuffer. Block the caller if the ringBuffer is full.
+     *
+     * @param struct The table struct.
+     * @param batch  The log data batch.
+     */
+    public void publish(Struct struct, RecordBatch batch) {
+        RingBuffer<LogRecordTask> rb = disruptor.getRingBuffer();
+        long next = rb.next();
+        try {
+            LogRecordTask event = rb.get(next);
+            event.setValues(struct, batch);
+        } finally {
+            rb.publish(next);
+        }
+    }
+
+    /**
+     * Called by the consumer after a batch is recorded.
+     *
+     * @param size  The batch's log count.
+     * @param nanos The record time in nanoseconds.
+     */
+    public void recorded(int size, long nanos) {
+        batches.incrementAndGet();
+        records.addAndGet(size);
+        totalNanos.addAndGet(nanos);
+        long max;
+        while (nanos > (max = maxNanos.get())) {
+            if (maxNanos.compareAndSet(max, nanos)) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * @return Return the unprocessed event count in ringBuffer.
+     */
+    public long depth() {
+        RingBuffer<LogRecordTask> rb = disruptor.getRingBuffer();
+        return rb.getBufferSize() - rb.remainingCapacity();
+    }
+
+    /**
+     * @return Return the ringBuffer size.
+     */
+    public int capacity() {
+        return disruptor.getRingBuffer().getBufferSize();
+    }
+
+    /**
+     * Get the shard's statistics. The max latency is reset after read.
+     *
+     * @return Return the statistics.
+     */
+    public Map<String, Object> stats() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        long count = batches.get();
+        map.put("shard", index);
+        map.put("depth", depth());
+        map.put("capacity", capacity());
+        map.put("batches", count);
+        map.put("records", records.get());
+        map.put("avgLatencyMs", count > 0 ? totalNanos.get() / count / 1000000.0D : 0.0D);
+        map.put("maxLatencyMs", maxNanos.getAndSet(0L) / 1000000.0D);
+        return map;
+    }
+
+    /**
+     * Wait for the published record tasks, then stop the consumers.
+     *
+     * @param timeout The wait timeout in milliseconds.
+     * @return Return false if timeout.
+     */
+    public boolean shutdown(long timeout) {
+        try {
+            disruptor.shutdown(timeout, TimeUnit.MILLISECONDS);
+            return true;
+        } catch (TimeoutException e) {
+            return false;
+        }
+    }
+
+    public int getIndex() {
+        return index;
+    }
+}
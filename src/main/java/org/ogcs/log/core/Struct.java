@@ -16,20 +16,75 @@
 
 package org.ogcs.log.core;
 
+import io.netty.util.concurrent.FastThreadLocal;
+import io.netty.util.concurrent.FastThreadLocalThread;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.ogcs.log.config.OkraConfig;
+import org.ogcs.log.core.builder.RecordBatch;
+import org.ogcs.log.core.builder.RecordBinder;
 import org.ogcs.log.core.builder.Table;
+import org.ogcs.log.core.store.WriteAheadLog;
+import org.ogcs.log.util.ObjectPool;
 import org.ogcs.utilities.StringUtil;
 
+import java.io.File;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
 
 /**
  * 结构体. 处理Table的版本信息和预查询语句
+ * <p>
+ * 日志队列有界 : 同时限制日志数量({@link OkraConfig#getStructMaxRecords()})和估算内存({@link OkraConfig#getStructMaxBytes()}),
+ * 并从任务版的全局内存预算({@link OkraConfig#getMemoryBudget()})中申请内存. 超出限制时按照溢出策略处理 :
+ * <ul>
+ * <li>block : 阻塞生产者直到队列有空间, 超时后丢弃新日志. 只阻塞非Netty事件循环的调用者(回放、死信重新导入等),
+ * 事件循环线程不阻塞, 直接丢弃新日志. 网络接收的反压由高水位线完成 : TCP关闭连接的auto-read, HTTP返回503</li>
+ * <li>dropOldest : 丢弃队列中最旧的日志</li>
+ * <li>dropNewest : 丢弃新日志</li>
+ * <li>divert : 新日志转存到溢出文件</li>
+ * </ul>
+ * 日志从队列中取出写入批次后释放占用的内存. 写入失败重新入队的日志不会阻塞.
+ * <p>
+ * 批次领取 : 生产者入队后增加pending计数, flusher通过CAS从pending中领取(claim)N条日志, 然后从队列中取出正好N条.
+ * 不同flusher领取的日志互不相交, 多个flusher可以同时组装同一个表的不同批次. I/O线程只负责入队,
+ * 每累计batchCount条日志通知任务版的flusher线程组装批次, 不在I/O线程中组装和提交批次.
+ * <p>
+ * 预写日志({@link OkraConfig#isWalEnable()}) : 日志入队前先追加到表的{@link WriteAheadLog}, 入队和出队在WAL的锁内执行,
+ * 保证WAL的序号和出队顺序一致, 每个批次对应一段连续的序号. 批次写入数据库(或重新入队)后提交序号, 释放WAL段.
+ * <p>
+ * 线程本地缓冲({@link OkraConfig#isStructLocalLanes()}) : 每个Netty事件循环线程独占一个单写者的{@link RecordLane},
+ * 入队没有CAS和共享计数. 缓冲满时进入共享队列. flusher线程在{@link #record(int)}中收集所有缓冲合并成批次.
+ * 缓冲中的日志不计入内存预算, 最多占用 缓冲容量 x 事件循环线程数. 开启WAL时不使用线程本地缓冲.
+ * <p>
+ * 自适应批次({@link OkraConfig#isAdaptiveEnable()}) : 批次写入完成后由{@link BatchController}根据写库延迟和队列积压调整
+ * 批次大小和定时写入间隔.
+ * <p>
+ * 写入截止时间 : 队列为空后的第一条日志在任务版的时间轮上登记截止时间({@link #deadline()}), 到期时写入该表的所有日志.
+ * 截止时间到期前不会重复登记, 各个表的写入在时间上错开.
+ * <p>
+ * 对象池 : 列式批次写入完成后回收到{@link #batches}, 日志参数数组(String[])绑定到批次后清空并归还给表的
+ * {@link Table#getSlots()}, 翻译器从中借用. 稳定状态下入队到提交的路径几乎不分配容器对象.
+ * <p>
+ * 失败重试 : 批次写入失败后按表的连续失败次数指数退避(加随机抖动)后重新提交, 退避期间暂停该表的定时和批量写入.
+ * 批次失败次数达到{@link OkraConfig#getRetryMaxAttempts()}后写入死信文件.
+ * <p>
+ * 按日志时间路由({@link OkraConfig#isRouteEnable()}) : 由表的{@link RecordRouter}把一轮记录的日志按所属周期分到多个批次.
  *
  * @author TinyZ
  * @date 2016-07-01.
@@ -41,7 +96,7 @@ public class Struct {
     /**
      * MySQL table builder.
      */
-    protected Table table;
+    protected Table<?> table;
     /**
      * The mission board.
      */
@@ -53,7 +108,7 @@ public class Struct {
     /**
      * 每次批量写入数量
      */
-    protected int batchCount;
+    protected volatile int batchCount;
     /**
      * 日志队列
      */
@@ -63,18 +118,160 @@ public class Struct {
      */
     protected AtomicLong logsSize = new AtomicLong(0);
     /**
-     * 是否正在写入
+     * 日志队列估算内存(字节)
      */
-    private volatile boolean writing = false;
+    protected AtomicLong logsBytes = new AtomicLong(0);
+    /**
+     * 单个日志队列的最大内存(字节)
+     */
+    protected long maxBytes;
+    /**
+     * 队列满时的溢出策略
+     */
+    protected String overflowPolicy;
+    /**
+     * block策略的最长阻塞时间(纳秒)
+     */
+    protected long blockTimeout;
+    /**
+     * 溢出丢弃的日志数量
+     */
+    protected final AtomicLong dropped = new AtomicLong(0);
+    /**
+     * 溢出转存的日志数量
+     */
+    protected final AtomicLong diverted = new AtomicLong(0);
+    /**
+     * 回收的列式批次
+     */
+    protected final ObjectPool<RecordBatch> batches;
+    /**
+     * 类型转换失败被拒绝写入的日志数量. reason => count
+     */
+    protected final ConcurrentMap<String, AtomicLong> rejects = new ConcurrentHashMap<>();
+    /**
+     * 已入队但未被flusher领取的日志数量
+     */
+    protected final AtomicLong pending = new AtomicLong(0);
+    /**
+     * 预写日志. 未开启时为null
+     */
+    protected WriteAheadLog wal;
+    /**
+     * 写库的Disruptor分片
+     */
+    protected volatile int shard;
+    /**
+     * 线程本地缓冲. 未开启时为null
+     */
+    protected FastThreadLocal<RecordLane> localLane;
+    /**
+     * 所有事件循环线程的缓冲
+     */
+    protected final List<RecordLane> lanes = new CopyOnWriteArrayList<>();
+    /**
+     * 同一时刻只有一个flusher收集线程本地缓冲
+     */
+    protected final AtomicBoolean harvesting = new AtomicBoolean(false);
+    /**
+     * 自适应批次控制器. 未开启时为null
+     */
+    protected BatchController controller;
+    /**
+     * 上次定时写入的时间(毫秒)
+     */
+    protected volatile long lastFlush = System.currentTimeMillis();
+    /**
+     * 是否已在时间轮上登记写入截止时间
+     */
+    protected final AtomicBoolean armed = new AtomicBoolean(false);
+    /**
+     * 连续写入失败次数. WorkerPool模式下多个消费者同时更新
+     */
+    protected final AtomicInteger failures = new AtomicInteger(0);
+    /**
+     * 退避结束时间(毫秒)
+     */
+    protected volatile long retryAt;
+    /**
+     * 重试的批次数量
+     */
+    protected final AtomicLong retried = new AtomicLong(0);
+    /**
+     * 写入死信文件的日志数量
+     */
+    protected final AtomicLong deadLettered = new AtomicLong(0);
+    /**
+     * 因数据错误被隔离的日志数量
+     */
+    protected final AtomicLong quarantined = new AtomicLong(0);
+    /**
+     * 按日志时间路由. null时不路由
+     */
+    protected volatile RecordRouter router;
 
     public Struct(Table table, MissionBoard board) {
         if (table == null) throw new NullPointerException("table");
         if (board == null) throw new NullPointerException("board");
         this.board = board;
-        this.batchCount = board.getConfig().getMaxBatchSize();
+        OkraConfig config = board.getConfig();
+        this.batchCount = config.getMaxBatchSize();
+        this.threshold = config.getStructMaxRecords();
+        this.maxBytes = config.getStructMaxBytes();
+        this.overflowPolicy = config.getOverflowPolicy();
+        this.blockTimeout = TimeUnit.MILLISECONDS.toNanos(config.getOverflowBlockTimeout());
+        if (config.isAdaptiveEnable()) {
+            this.controller = new BatchController(config);
+            this.batchCount = controller.getBatchSize();
+        }
 
         this.table = table;
+        this.shard = board.shardOf(table);
+        this.router = RecordRouter.newRouter(this, table);
+        this.batches = new ObjectPool<>(config.getPoolBatches(), () -> this.table.binder().newBatch(this.table.getName(), batchCount));
+        initSlots(table);
         this.logs = newStructQueue();
+        if (config.isWalEnable()) {
+            this.wal = new WriteAheadLog(config.getWalPath() + File.separator + table.getName(), config.getWalSegmentSize());
+        } else if (config.isStructLocalLanes()) {
+            final int capacity = config.getStructLaneCapacity();
+            this.localLane = new FastThreadLocal<RecordLane>() {
+                @Override
+                protected RecordLane initialValue() {
+                    RecordLane lane = new RecordLane(capacity);
+                    lanes.add(lane);
+                    return lane;
+                }
+            };
+        }
+    }
+
+    /**
+     * Replay the logs left in the write-ahead log by the last process.
+     * <p>
+     * 回放的日志重新追加到新的WAL段并同步后才删除旧段. 队列满时在当前线程记录批次, 不丢弃回放的日志.
+     *
+     * @return Return the replayed log count.
+     */
+    public int replay() {
+        if (wal == null) {
+            return 0;
+        }
+        List<String[]> list = wal.recover();
+        for (String[] params : list) {
+            final long bytes = sizeOf(params);
+            while (!reserve(bytes)) {
+                if (pending.get() > 0) {
+                    record(batchCount);
+                } else {
+                    LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1L));
+                }
+            }
+            enqueue(params);
+        }
+        wal.sync();
+        wal.deleteRecovered();
+        return list.size();
     }
 
     /**
@@ -85,48 +282,288 @@ public class Struct {
     public synchronized void update(Table table) {
         if (table == null) throw new NullPointerException("table");
         this.table = table;
+        this.shard = board.shardOf(table);
+        this.router = RecordRouter.newRouter(this, table);
+        initSlots(table);
+    }
+
+    /**
+     * Create the table's log params array pool if absent.
+     */
+    private void initSlots(Table<?> table) {
+        int capacity = board.getConfig().getPoolSlots();
+        if (capacity > 0 && table.getSlots() == null) {
+            final int length = table.getFields().length + 1;
+            table.setSlots(new ObjectPool<>(capacity, () -> new String[length]));
+        }
+    }
+
+    /**
+     * Clear and return the log params array to the table's pool. The caller must not use it anymore.
+     *
+     * @param params The log params.
+     */
+    protected void release(String[] params) {
+        ObjectPool<String[]> slots = table.getSlots();
+        if (slots != null && params.length == table.getFields().length + 1) {
+            Arrays.fill(params, null);
+            slots.release(params);
+        }
     }
 
     /**
      * Add a log to queue.
      *
-     * @param params
+     * @param params The log data.
+     * @return Return true if the log is enqueued, false if it is dropped or diverted by the overflow policy.
      */
-    public void add(String[] params) {
+    public boolean add(String[] params) {
         if (params == null) {
-            return;
+            return false;
         }
-        logs.add(params);
-        long count = logsSize.incrementAndGet();
-        if (count >= batchCount) {
-            record(batchCount);
+        if (localLane != null && Thread.currentThread() instanceof FastThreadLocalThread) {
+            long count = localLane.get().offer(params);
+            if (count > 0) {
+                arm();
+                if (count % batchCount == 0) {
+                    board.flush(this);
+                }
+                return true;
+            }
+            //  缓冲已满, 进入共享队列
         }
+        return offer(params, true);
     }
 
-    public void addAll(final Collection<String[]> params) {
-        if (params == null) {
-            return;
+    /**
+     * Offer the log to the bounded queue. handle overflow by the overflow policy.
+     *
+     * @param params   The log data.
+     * @param mayBlock Is allow to block the caller. (block policy) The Netty event loop thread is never blocked.
+     * @return Return true if the log is added to queue.
+     */
+    protected boolean offer(String[] params, boolean mayBlock) {
+        final long bytes = sizeOf(params);
+        long deadline = 0L;
+        while (!reserve(bytes)) {
+            switch (overflowPolicy) {
+                case OkraConfig.OVERFLOW_DROP_OLDEST:
+                    String[] oldest = pollOldest();
+                    if (oldest != null) {
+                        free(oldest);
+                        drop(oldest);
+                        continue;
+                    }
+                    break;  //  the queue is empty, the global budget is used by other structs.
+                case OkraConfig.OVERFLOW_BLOCK:
+                    //  不阻塞事件循环线程, 否则该线程上的所有连接都会停顿
+                    if (mayBlock && !(Thread.currentThread() instanceof FastThreadLocalThread)) {
+                        long now = System.nanoTime();
+                        if (deadline == 0L) {
+                            deadline = now + blockTimeout;
+                        }
+                        if (now < deadline) {
+                            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1L));
+                            continue;
+                        }
+                    }
+                    break;
+                case OkraConfig.OVERFLOW_DIVERT:
+                    if (board.divert(params)) {
+                        diverted.incrementAndGet();
+                        release(params);
+                        return false;
+                    }
+                    break;
+                default:
+                    break;
+            }
+            drop(params);
+            return false;
+        }
+        enqueue(params);
+        return true;
+    }
+
+    /**
+     * Add the log to the queue, the space must be reserved.
+     */
+    private void enqueue(String[] params) {
+        long count;
+        if (wal == null) {
+            logs.add(params);
+            count = pending.incrementAndGet();
+        } else {
+            synchronized (wal) {
+                wal.append(params);
+                logs.add(params);
+                count = pending.incrementAndGet();
+            }
+        }
+        arm();
+        if (count >= batchCount && count % batchCount == 0) {
+            board.flush(this);
         }
-        final int paramsSize = params.size();
-        if (paramsSize <= 0) {
+    }
+
+    /**
+     * Arm the flush deadline if not armed. Only the first log after the deadline is expired do CAS.
+     */
+    private void arm() {
+        if (!armed.get() && armed.compareAndSet(false, true)) {
+            if (!board.schedule(this, deadline())) {
+                armed.set(false);
+            }
+        }
+    }
+
+    /**
+     * Called by the timer when the flush deadline is expired. Disarm first, the logs added after disarm will arm again.
+     */
+    public void expire() {
+        armed.set(false);
+        if (isBackingOff()) {
+            arm();
             return;
         }
-        long size = logsSize.get();
-        if (size + paramsSize > threshold()) {
-            if (LOG.isInfoEnabled()) {
-                for (String[] param : params) {
-                    LOG.info("Queue is full. drop log : " + StringUtil.implode(param, '|'));
-                }
+        recordAll();
+    }
+
+    /**
+     * Get the max latency of the log in queue. The table's maxLatency attribute first, then the adaptive flush interval,
+     * or the global task interval.
+     *
+     * @return Return the deadline in milliseconds.
+     */
+    public long deadline() {
+        if (table.getMaxLatency() > 0) {
+            return table.getMaxLatency();
+        }
+        return controller != null ? controller.getInterval() : board.getConfig().getTaskInterval();
+    }
+
+    /**
+     * Poll the oldest log in queue. the log is committed to the write-ahead log immediately.
+     */
+    private String[] pollOldest() {
+        if (wal == null) {
+            return claim(1) > 0 ? logs.poll() : null;
+        }
+        String[] oldest;
+        long seq;
+        synchronized (wal) {
+            if (claim(1) <= 0) {
+                return null;
+            }
+            oldest = logs.poll();
+            seq = wal.claim(1);
+        }
+        wal.commit(seq, 1);
+        return oldest;
+    }
+
+    /**
+     * Claim the logs in queue. The claimed logs must be polled from the queue by the claimer.
+     *
+     * @param max The max claim count.
+     * @return Return the claimed count.
+     */
+    private int claim(int max) {
+        long current;
+        int count;
+        do {
+            current = pending.get();
+            if (current <= 0) {
+                return 0;
             }
-            LOG.warn("Queue is full. drop extra elements.");
+            count = (int) Math.min(current, max);
+        } while (!pending.compareAndSet(current, current - count));
+        return count;
+    }
+
+    /**
+     * Reserve the queue space and global memory budget.
+     */
+    private boolean reserve(long bytes) {
+        if (logsSize.incrementAndGet() > threshold()) {
+            logsSize.decrementAndGet();
+            return false;
+        }
+        if (logsBytes.addAndGet(bytes) > maxBytes) {
+            logsBytes.addAndGet(-bytes);
+            logsSize.decrementAndGet();
+            return false;
+        }
+        if (!board.reserve(bytes)) {
+            logsBytes.addAndGet(-bytes);
+            logsSize.decrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Free the space of the log which is polled from queue.
+     */
+    private void free(String[] params) {
+        long bytes = sizeOf(params);
+        logsSize.decrementAndGet();
+        logsBytes.addAndGet(-bytes);
+        board.free(bytes);
+    }
+
+    private void drop(String[] params) {
+        dropped.incrementAndGet();
+        if (LOG.isInfoEnabled())
+            LOG.info("Queue is full. drop log : " + StringUtil.implode(params, '|'));
+        release(params);
+    }
+
+    /**
+     * Estimate the memory bytes of the log params. (String[] and String with char[])
+     *
+     * @param params The log data.
+     * @return Return the estimated bytes.
+     */
+    public static long sizeOf(String[] params) {
+        long bytes = 16L + 4L * params.length;
+        for (String param : params) {
+            if (param != null) {
+                bytes += 40L + 2L * param.length();
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * Add the batch's logs to queue again. The batch is not recycled.
+     *
+     * @param batch The record batch.
+     */
+    public void addAll(final RecordBatch batch) {
+        if (batch == null || batch.isEmpty()) {
             return;
         }
-        for (String[] param : params) {
-            logs.add(param);
+        List<String[]> list = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            list.add(batch.row(i));
         }
-        long length = logsSize.addAndGet(paramsSize);
-        if (length >= batchCount) {
-            record(batchCount);
+        addAll(list);
+    }
+
+    /**
+     * Add the logs to queue again. Never block the caller, the logs overflow will be dropped or diverted.
+     *
+     * @param params The log data.
+     */
+    public void addAll(final Collection<String[]> params) {
+        if (params == null) {
+            return;
+        }
+        for (String[] param : params) {
+            if (param != null) {
+                offer(param, false);
+            }
         }
     }
 
@@ -134,32 +571,382 @@ public class Struct {
      * Record all log in queue.
      */
     public void recordAll() {
+        lastFlush = System.currentTimeMillis();
         record(-1);
     }
 
+    /**
+     * Is the flush interval elapsed since last {@link #recordAll()}. Always true if adaptive batch is disabled.
+     *
+     * @param now The current time in milliseconds.
+     * @return Return true if the struct should be recorded.
+     */
+    public boolean isFlushDue(long now) {
+        return controller == null || now - lastFlush >= controller.getInterval();
+    }
+
+    /**
+     * Called after a batch is committed. Adjust the batch size by the record latency.
+     *
+     * @param nanos The executeBatch and commit time in nanoseconds.
+     */
+    public void recorded(long nanos) {
+        if (failures.get() > 0) {
+            failures.set(0);
+            retryAt = 0L;
+        }
+        if (controller != null) {
+            controller.onRecorded(nanos, size());
+            batchCount = controller.getBatchSize();
+        }
+    }
+
+    /**
+     * Called after a batch is failed. Back off the table by exponential delay with jitter.
+     */
+    public void failed() {
+        final OkraConfig config = board.getConfig();
+        int count = failures.incrementAndGet();
+        long delay = Math.min(config.getRetryBaseDelay() << Math.min(count - 1, 20), config.getRetryMaxDelay());
+        //  抖动 : [delay/2, delay]
+        delay = delay / 2 + ThreadLocalRandom.current().nextLong(delay / 2 + 1);
+        retryAt = System.currentTimeMillis() + delay;
+        if (controller != null) {
+            controller.onFailure();
+            batchCount = controller.getBatchSize();
+        }
+    }
+
+    /**
+     * Retry the failed batch after the back off, or write to the dead-letter store if the max attempts is reached.
+     *
+     * @param batch The failed batch.
+     */
+    public void retry(RecordBatch batch) {
+        if (batch.incrementAttempts() >= board.getConfig().getRetryMaxAttempts()) {
+            deadLetter(batch);
+            recycle(batch);
+            return;
+        }
+        retried.incrementAndGet();
+        board.retry(this, batch, Math.max(retryAt - System.currentTimeMillis(), 0L));
+    }
+
+    /**
+     * Write the batch's logs to the dead-letter store and commit the write-ahead log. The batch is not recycled.
+     *
+     * @param batch The unrecorded batch.
+     */
+    public void deadLetter(RecordBatch batch) {
+        for (int i = 0; i < batch.size(); i++) {
+            if (!board.deadLetter(batch.row(i))) {
+                LOG.error("Drop dead-letter log : " + StringUtil.implode(batch.row(i), '|'));
+            }
+        }
+        deadLettered.addAndGet(batch.size());
+        commit(batch);
+    }
+
+    /**
+     * Quarantine the invalid log row which is rejected by database.
+     *
+     * @param params The log params.
+     * @param reason The database error. example : [1292|22007] Incorrect datetime value
+     */
+    public void quarantine(String[] params, String reason) {
+        quarantined.incrementAndGet();
+        if (!board.quarantine(params, reason)) {
+            LOG.error("Drop quarantined log : " + StringUtil.implode(params, '|') + ", " + reason);
+        }
+    }
+
+    /**
+     * Is the table backing off after failure.
+     *
+     * @return Return true if the table should not be recorded now.
+     */
+    public boolean isBackingOff() {
+        return retryAt > 0L && System.currentTimeMillis() < retryAt;
+    }
+
+    /**
+     * @return Return the consecutive failure count.
+     */
+    public int getFailures() {
+        return failures.get();
+    }
+
+    public long getRetried() {
+        return retried.get();
+    }
+
+    public long getDeadLettered() {
+        return deadLettered.get();
+    }
+
+    public long getQuarantined() {
+        return quarantined.get();
+    }
+
+    /**
+     * @return Return the adaptive batch controller, or null if disabled.
+     */
+    public BatchController getController() {
+        return controller;
+    }
+
     /**
      * Record special count log.
-     * if batchCount number less than 0, will record all log.
+     * if batchCount number less than 0, will record all log, split into batches of batchCount.
      *
      * @param limit The record count.
      */
     public void record(int limit) {
-        if (writing)
+        final int size = limit > 0 ? limit : batchCount;
+        if (!lanes.isEmpty() && harvest(size, limit <= 0)) {
             return;
-        writing = true;
-        List<String[]> list = new ArrayList<>();
-        String[] params;
-        while ((params = logs.poll()) != null) {
-            list.add(params);
-            logsSize.decrementAndGet();
-            if (limit > 0 && list.size() >= limit) {
-                break;
+        }
+        do {
+            final RecordRouter router = this.router;
+            RecordBatch batch;
+            if (wal == null) {
+                int claimed = claim(size);
+                if (claimed <= 0) {
+                    return;
+                }
+                if (router != null) {
+                    RecordRouter.Round round = router.newRound();
+                    for (int i = 0; i < claimed; i++) {
+                        route(round, logs.poll());
+                    }
+                    round.publish();
+                    continue;
+                }
+                batch = newBatch();
+                for (int i = 0; i < claimed; i++) {
+                    add(batch, logs.poll());
+                }
+            } else {
+                //  在锁内出队, 保证批次的日志是连续的WAL序号. 锁外组装批次
+                String[][] polled;
+                long seq;
+                synchronized (wal) {
+                    int claimed = claim(size);
+                    if (claimed <= 0) {
+                        return;
+                    }
+                    polled = new String[claimed][];
+                    for (int i = 0; i < claimed; i++) {
+                        polled[i] = logs.poll();
+                    }
+                    seq = wal.claim(claimed);
+                }
+                if (router != null) {
+                    RecordRouter.Round round = router.newRound();
+                    for (String[] params : polled) {
+                        route(round, params);
+                    }
+                    round.publish(seq, polled.length);
+                    continue;
+                }
+                batch = newBatch();
+                batch.setSequence(seq, polled.length);
+                for (String[] params : polled) {
+                    add(batch, params);
+                }
+            }
+            if (batch.isEmpty()) {
+                commit(batch);
+                recycle(batch);
+            } else {
+                board.publish(this, batch);
+            }
+        } while (limit <= 0);
+    }
+
+    /**
+     * Harvest the thread local lanes, merge into batches and publish.
+     *
+     * @param size The batch size.
+     * @param all  Harvest all logs in lanes, or only one batch.
+     * @return Return true if a full batch is published and not harvest all.
+     */
+    private boolean harvest(int size, boolean all) {
+        if (!harvesting.compareAndSet(false, true)) {
+            return false;
+        }
+        RecordBatch batch = null;
+        final RecordRouter router = this.router;
+        RecordRouter.Round round = router != null ? router.newRound() : null;
+        try {
+            for (RecordLane lane : lanes) {
+                String[] params;
+                while ((params = lane.poll()) != null) {
+                    RecordBatch target;
+                    if (round != null) {
+                        target = round.batchOf(params);
+                    } else {
+                        if (batch == null) {
+                            batch = newBatch();
+                        }
+                        target = batch;
+                    }
+                    bind(target, params);
+                    if (target.size() >= size) {
+                        board.publish(this, target);
+                        if (round != null) {
+                            round.remove(target);
+                        } else {
+                            batch = null;
+                        }
+                        if (!all) {
+                            return true;
+                        }
+                    }
+                }
+            }
+        } finally {
+            harvesting.set(false);
+            if (batch != null) {
+                if (batch.isEmpty()) {
+                    recycle(batch);
+                } else {
+                    board.publish(this, batch);
+                }
+            }
+            if (round != null) {
+                round.publish();
             }
         }
-        if (!list.isEmpty()) {
-            board.publish(this, list);
+        return false;
+    }
+
+    private void add(RecordBatch batch, String[] params) {
+        free(params);
+        bind(batch, params);
+    }
+
+    private void route(RecordRouter.Round round, String[] params) {
+        free(params);
+        bind(round.batchOf(params), params);
+    }
+
+    private void bind(RecordBatch batch, String[] params) {
+        String reason = batch.add(params);
+        if (reason != null) {   //  拒绝无法转换类型的日志
+            reject(reason, params);
+        }
+        //  日志已复制到列式批次
+        release(params);
+    }
+
+    /**
+     * Commit the batch's logs to the write-ahead log after the batch is recorded or add to queue again.
+     *
+     * @param batch The record batch.
+     */
+    public void commit(RecordBatch batch) {
+        if (wal != null && batch.getSequence() >= 0 && batch.releaseSequence()) {
+            wal.commit(batch.getSequence(), batch.getSequenceCount());
+        }
+    }
+
+    /**
+     * @return Return the write-ahead log, or null if disabled.
+     */
+    public WriteAheadLog getWal() {
+        return wal;
+    }
+
+    /**
+     * Get a cleared record batch from the pool, or create new one if the pool is empty.
+     *
+     * @return Return the record batch.
+     */
+    public RecordBatch newBatch() {
+        RecordBinder binder = table.binder();
+        RecordBatch batch;
+        while ((batch = batches.poll()) != null) {
+            if (batch.binder() == binder) {
+                batches.hit();
+                return batch;
+            }
+            //  the table is updated. discard the old batch.
+        }
+        batches.miss();
+        return binder.newBatch(table.getName(), batchCount);
+    }
+
+    /**
+     * Recycle the record batch after recorded.
+     * <p>
+     * 回收的批次数量不会超过ringBuffer的大小, 因为每个未回收的批次都占用一个ringBuffer事件.
+     *
+     * @param batch The record batch.
+     */
+    public void recycle(RecordBatch batch) {
+        batch.clear();
+        if (batch.binder() == table.binder()) {
+            batches.release(batch);
         }
-        writing = false;
+    }
+
+    /**
+     * Reject the log which can not be coerced to the table's field type.
+     *
+     * @param reason The reject reason.
+     * @param params The log data.
+     */
+    public void reject(String reason, String[] params) {
+        rejects.computeIfAbsent(reason, (k) -> new AtomicLong()).incrementAndGet();
+        LOG.warn("Reject log, invalid field " + reason + " : " + StringUtil.implode(params, '|'));
+    }
+
+    /**
+     * Get the rejected log count group by reason.
+     *
+     * @return Return the rejected log count. reason => count
+     */
+    public Map<String, Long> getRejects() {
+        Map<String, Long> map = new HashMap<>();
+        rejects.forEach((reason, count) -> map.put(reason, count.get()));
+        return map;
+    }
+
+    /**
+     * Get the estimated memory bytes of the unrecorded log in queue.
+     *
+     * @return Return the estimated memory bytes.
+     */
+    public long bytes() {
+        return logsBytes.get();
+    }
+
+    /**
+     * @return Return the log count which is dropped because of overflow.
+     */
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    /**
+     * @return Return the log count which is diverted because of overflow.
+     */
+    public long getDiverted() {
+        return diverted.get();
+    }
+
+    /**
+     * Get the unrecorded log count in queue.
+     *
+     * @return Return the log queue's length.
+     */
+    public long size() {
+        long size = logsSize.get();
+        for (RecordLane lane : lanes) {
+            size += lane.size();
+        }
+        return size;
     }
 
     /**
@@ -180,6 +967,13 @@ public class Struct {
         return threshold;
     }
 
+    /**
+     * @return Return the record batch pool.
+     */
+    public ObjectPool<RecordBatch> getBatches() {
+        return batches;
+    }
+
     public Table getTable() {
         return table;
     }
@@ -196,6 +990,10 @@ public class Struct {
         this.board = board;
     }
 
+    public int getShard() {
+        return shard;
+    }
+
     public int getBatchCount() {
         return batchCount;
     }
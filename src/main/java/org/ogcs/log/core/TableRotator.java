@@ -0,0 +1,96 @@
+/*
+ *     Copyright 2016-2026 TinyZ
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ogcs.log.core;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.ogcs.log.core.builder.Table;
+import org.ogcs.log.core.builder.TablePeriod;
+import org.ogcs.log.util.MySQL;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Pre-create the next period's date suffixed tables.
+ * <p>
+ * 周期切换前{@link #ahead}毫秒创建下一个周期的表并准备写入语句. 到达周期边界时{@link Table#period()}直接切换到已创建的周期,
+ * 写入路径不再同步执行CREATE TABLE.
+ *
+ * @author TinyZ
+ * @date 2016-11-01.
+ */
+public final class TableRotator implements Runnable {
+
+    private static final Logger LOG = LogManager.getLogger(TableRotator.class);
+
+    private final MissionBoard board;
+    private final long ahead;
+
+    /**
+     * @param board The mission board.
+     * @param ahead The pre-create time before the period boundary(millisecond).
+     */
+    public TableRotator(MissionBoard board, long ahead) {
+        this.board = board;
+        this.ahead = ahead;
+    }
+
+    @Override
+    public void run() {
+        rotate(System.currentTimeMillis() + ahead);
+    }
+
+    /**
+     * Create the tables of the period which contains the time.
+     *
+     * @param time The future time(millisecond).
+     */
+    public void rotate(long time) {
+        for (Struct struct : board.getStructs()) {
+            Table table = struct.getTable();
+            TablePeriod next = table.nextPeriod(time);
+            if (next == null || next.isExist()) {
+                continue;
+            }
+            create(table, next);
+        }
+    }
+
+    /**
+     * Create the period's table.
+     *
+     * @param table  The table.
+     * @param period The period.
+     * @return Return true if the table is created.
+     */
+    boolean create(Table table, TablePeriod period) {
+        String sql = MySQL.createTableSQL(table, period.getName());
+        if (sql == null) {
+            return false;
+        }
+        try (Connection conn = board.getConnection(); Statement statement = conn.createStatement()) {
+            statement.execute(sql);
+            table.afterTableExist(period);
+            LOG.info("Pre-create table :" + period.getName());
+            return true;
+        } catch (SQLException e) {
+            LOG.error("Pre-create table failure. SQL : " + sql, e);
+            return false;
+        }
+    }
+}
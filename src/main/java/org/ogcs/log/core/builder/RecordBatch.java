@@ -0,0 +1,291 @@
+/*
+ *     Copyright 2016-2026 TinyZ
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ogcs.log.core.builder;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Columnar record batch.
+ * <p>
+ * 按表结构列式存储一个批次的日志, 每一列由{@link RecordBinder}根据字段类型生成(基本类型数组、字典编码字符串、epoch时间).
+ * 批次写入完成后清空并回收复用, 不再为每个批次创建新的容器.
+ * <p>
+ * 非线程安全. 同一时刻只由一个线程写入或读取.
+ *
+ * @author TinyZ
+ * @date 2016-10-25.
+ */
+public final class RecordBatch {
+
+    private final RecordBinder binder;
+    private final String tableName;
+    private final RecordBinder.Vector[] vectors;
+    private final int fieldCount;
+    private int capacity;
+    private int size;
+    /**
+     * 批次对应的预写日志序号区间. 未开启WAL时为-1
+     */
+    private long sequence = -1L;
+    private int sequenceCount;
+    /**
+     * 同一序号区间拆分为多个批次(按周期路由)时共享的未提交批次计数. 最后一个批次提交整个区间
+     */
+    private AtomicInteger sequenceGroup;
+    /**
+     * 批次写入的周期(按日志时间路由). null表示写入时的当前周期
+     */
+    private TablePeriod period;
+    /**
+     * 写入失败的次数
+     */
+    private int attempts;
+    /**
+     * 批次中最长一行的字符数. 用于估算多行INSERT语句的大小
+     */
+    private int maxRowChars;
+
+    RecordBatch(RecordBinder binder, String tableName, RecordBinder.Vector[] vectors, int fieldCount) {
+        this.binder = binder;
+        this.tableName = tableName;
+        this.vectors = vectors;
+        this.fieldCount = fieldCount;
+        this.capacity = vectors.length > 0 ? vectors[0].nulls.length : Integer.MAX_VALUE;
+    }
+
+    /**
+     * Append the log params to the batch.
+     *
+     * @param params The log params. params[0] is the table name.
+     * @return Return null if success, otherwise the reject reason. example : "logDate(DATETIME)"
+     */
+    public String add(String[] params) {
+        if (size >= capacity) {
+            grow();
+        }
+        int chars = 0;
+        for (RecordBinder.Vector vector : vectors) {
+            int index = vector.column.index;
+            String value = index < params.length ? params[index] : null;
+            if (!vector.set(size, value)) {
+                return vector.column.reason;
+            }
+            chars += value == null ? 4 : value.length();
+        }
+        if (chars > maxRowChars) {
+            maxRowChars = chars;
+        }
+        size++;
+        return null;
+    }
+
+    private void grow() {
+        capacity = capacity << 1;
+        for (RecordBinder.Vector vector : vectors) {
+            vector.grow(capacity);
+        }
+    }
+
+    /**
+     * Bind the row's values to the prepared statement.
+     *
+     * @param stat The prepared statement.
+     * @param row  The row index.
+     * @throws SQLException if a database access error occurs
+     */
+    public void bind(PreparedStatement stat, int row) throws SQLException {
+        bind(stat, row, 0);
+    }
+
+    /**
+     * Bind the row's values to the multi-row prepared statement.
+     *
+     * @param stat   The prepared statement.
+     * @param row    The row index.
+     * @param offset The parameter offset. the first parameter's index is offset + 1.
+     * @throws SQLException if a database access error occurs
+     */
+    public void bind(PreparedStatement stat, int row, int offset) throws SQLException {
+        for (int i = 0; i < vectors.length; i++) {
+            vectors[i].bind(stat, offset + i + 1, row);
+        }
+    }
+
+    /**
+     * Append the row as LOAD DATA text line. tab separated, NULL is \N, special characters are escaped by backslash.
+     *
+     * @param sb  The string builder.
+     * @param row The row index.
+     */
+    void appendTsv(StringBuilder sb, int row) {
+        for (int i = 0; i < vectors.length; i++) {
+            if (i > 0) {
+                sb.append('\t');
+            }
+            RecordBinder.Vector vector = vectors[i];
+            if (vector.nulls[row]) {
+                sb.append("\\N");
+                continue;
+            }
+            String value = vector.format(row);
+            for (int k = 0; k < value.length(); k++) {
+                char c = value.charAt(k);
+                switch (c) {
+                    case '\\':
+                        sb.append("\\\\");
+                        break;
+                    case '\t':
+                        sb.append("\\t");
+                        break;
+                    case '\n':
+                        sb.append("\\n");
+                        break;
+                    case '\r':
+                        sb.append("\\r");
+                        break;
+                    case '\0':
+                        sb.append("\\0");
+                        break;
+                    default:
+                        sb.append(c);
+                        break;
+                }
+            }
+        }
+        sb.append('\n');
+    }
+
+    /**
+     * Get the row as log params. The auto increment field's value is "".
+     *
+     * @param row The row index.
+     * @return Return the log params.
+     */
+    public String[] row(int row) {
+        String[] params = new String[fieldCount + 1];
+        params[0] = tableName;
+        for (int i = 1; i < params.length; i++) {
+            params[i] = "";
+        }
+        for (RecordBinder.Vector vector : vectors) {
+            params[vector.column.index] = vector.get(row);
+        }
+        return params;
+    }
+
+    /**
+     * Clear the batch for reuse.
+     */
+    public void clear() {
+        for (RecordBinder.Vector vector : vectors) {
+            vector.clear(size);
+        }
+        size = 0;
+        sequence = -1L;
+        sequenceCount = 0;
+        sequenceGroup = null;
+        period = null;
+        attempts = 0;
+        maxRowChars = 0;
+    }
+
+    /**
+     * Increase the failed attempt count.
+     *
+     * @return Return the failed attempt count.
+     */
+    public int incrementAttempts() {
+        return ++attempts;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    /**
+     * Set the batch's write-ahead log sequence range. The count include the rejected logs.
+     *
+     * @param sequence The first log's sequence number.
+     * @param count    The polled log count.
+     */
+    public void setSequence(long sequence, int count) {
+        this.sequence = sequence;
+        this.sequenceCount = count;
+    }
+
+    /**
+     * Set the batch's write-ahead log sequence range, which is shared by the batches split from the same logs.
+     *
+     * @param sequence The first log's sequence number.
+     * @param count    The polled log count.
+     * @param group    The uncommitted batch count of the sequence range.
+     */
+    public void setSequence(long sequence, int count, AtomicInteger group) {
+        setSequence(sequence, count);
+        this.sequenceGroup = group;
+    }
+
+    /**
+     * Release the batch's part of the shared sequence range.
+     *
+     * @return Return true if the sequence range should be committed. all batches of the range are committed.
+     */
+    public boolean releaseSequence() {
+        return sequenceGroup == null || sequenceGroup.decrementAndGet() <= 0;
+    }
+
+    public TablePeriod getPeriod() {
+        return period;
+    }
+
+    public void setPeriod(TablePeriod period) {
+        this.period = period;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public int getSequenceCount() {
+        return sequenceCount;
+    }
+
+    /**
+     * @return Return the longest row's character count. exclude the table name.
+     */
+    public int getMaxRowChars() {
+        return maxRowChars;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public RecordBinder binder() {
+        return binder;
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+}
@@ -0,0 +1,728 @@
+/*
+ *     Copyright 2016-2026 TinyZ
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ogcs.log.core.builder;
+
+import org.ogcs.log.util.ProtoUtil;
+import org.ogcs.log.util.TimeV8Util;
+import org.ogcs.utilities.StringUtil;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.ogcs.log.util.MySQL.DataType.*;
+
+/**
+ * Typed record binder compiled from the table's fields.
+ * <p>
+ * 根据字段声明的类型预先生成每一列的类型描述, 日志写入{@link RecordBatch}时把字符串解析为基本类型列存储,
+ * 绑定时使用setInt/setLong/setTimestamp等方法, 不再使用setObject(String)由驱动发送文本、由MySQL逐行转换类型.
+ * 自增字段不绑定(与{@link org.ogcs.log.util.MySQL#prepareQuery(Table)}的列对应).
+ * <p>
+ * 列存储 : 整数类型为int[]/long[], 浮点类型为double[], DATETIME|TIMESTAMP为本地epoch秒long[], DATE为epoch天long[],
+ * CHAR|VARCHAR为字典编码(int[] + 批次内字典).
+ * <p>
+ * 值为NULL时 : 有默认值使用默认值; 字段NOT NULL时数值类型为0, 字符串类型为""; 否则绑定NULL.
+ * 数值和时间类型的null、空字符串和"NULL"都表示NULL; 字符串类型只有null表示NULL, "NULL"和空字符串按原文写入.
+ * 值无法转换(格式错误、超出类型范围、超出字符串长度)时拒绝该行, 返回拒绝原因.
+ *
+ * @author TinyZ
+ * @date 2016-10-24.
+ */
+public final class RecordBinder {
+
+    private final Column[] columns;
+    /**
+     * The table's field count.
+     */
+    private final int fieldCount;
+    /**
+     * The field's protobuf value type. index is the field index, include the auto increment field.
+     */
+    private final String[] protoTypes;
+
+    private RecordBinder(Column[] columns, int fieldCount, String[] protoTypes) {
+        this.columns = columns;
+        this.fieldCount = fieldCount;
+        this.protoTypes = protoTypes;
+    }
+
+    /**
+     * Compile the table's record binder.
+     *
+     * @param table The table.
+     * @return Return the record binder.
+     */
+    public static RecordBinder compile(Table table) {
+        Field[] fields = table.getFields();
+        List<Column> list = new ArrayList<>(fields.length);
+        String[] protoTypes = new String[fields.length];
+        for (int i = 0; i < fields.length; i++) {
+            if (!fields[i].isAutoIncrement()) {
+                list.add(column(fields[i], i + 1));
+            }
+            protoTypes[i] = ProtoUtil.protoType(fields[i]);
+        }
+        return new RecordBinder(list.toArray(new Column[list.size()]), fields.length, protoTypes);
+    }
+
+    /**
+     * Create new columnar record batch.
+     *
+     * @param tableName The table name.
+     * @param capacity  The initial row capacity.
+     * @return Return new record batch.
+     */
+    public RecordBatch newBatch(String tableName, int capacity) {
+        Vector[] vectors = new Vector[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            vectors[i] = columns[i].newVector(Math.max(capacity, 1));
+        }
+        return new RecordBatch(this, tableName, vectors, fieldCount);
+    }
+
+    /**
+     * Get the field's protobuf value type. see {@link ProtoUtil.ProtoType}
+     *
+     * @param field The field index of the table.
+     * @return Return the proto type.
+     */
+    public String protoType(int field) {
+        return protoTypes[field];
+    }
+
+    /**
+     * Get the bound column count.
+     */
+    public int size() {
+        return columns.length;
+    }
+
+    private static Column column(Field field, int index) {
+        String type = field.getType().toUpperCase();
+        switch (type) {
+            case TINYINT:
+                return field.isUnsigned() ? new IntColumn(field, index, 0, 0xFF) : new IntColumn(field, index, Byte.MIN_VALUE, Byte.MAX_VALUE);
+            case SMALLINT:
+                return field.isUnsigned() ? new IntColumn(field, index, 0, 0xFFFF) : new IntColumn(field, index, Short.MIN_VALUE, Short.MAX_VALUE);
+            case MEDIUMINT:
+                return field.isUnsigned() ? new IntColumn(field, index, 0, 0xFFFFFF) : new IntColumn(field, index, -0x800000, 0x7FFFFF);
+            case INT:
+            case INTEGER:
+                return field.isUnsigned() ? new LongColumn(field, index, 0, 0xFFFFFFFFL) : new IntColumn(field, index, Integer.MIN_VALUE, Integer.MAX_VALUE);
+            case YEAR:
+                return new IntColumn(field, index, 0, 2155);
+            case BIGINT:
+                return field.isUnsigned() ? new DecimalColumn(field, index, true) : new LongColumn(field, index, Long.MIN_VALUE, Long.MAX_VALUE);
+            case BIT:
+                return new LongColumn(field, index, 0, Long.MAX_VALUE);
+            case FLOAT:
+                return new DoubleColumn(field, index, true);
+            case DOUBLE:
+                return new DoubleColumn(field, index, false);
+            case DECIMAL:
+                return new DecimalColumn(field, index, field.isUnsigned());
+            case DATE:
+                return new EpochColumn(field, index, true);
+            case DATETIME:
+            case TIMESTAMP:
+                return new EpochColumn(field, index, false);
+            case CHAR:
+            case VARCHAR:
+                return new StringColumn(field, index, maxLength(field.getLength()), true);
+            default:    //  TIME|TEXT|BLOB...
+                return new StringColumn(field, index, -1, false);
+        }
+    }
+
+    private static int maxLength(String length) {
+        if (StringUtil.isEmpty(length)) {
+            return -1;
+        }
+        try {
+            return Integer.parseInt(length.trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    Column column(int i) {
+        return columns[i];
+    }
+
+    /**
+     * The column type description.
+     */
+    static abstract class Column {
+
+        /**
+         * The value index of the log params.
+         */
+        final int index;
+        final String reason;
+        final String defaultValue;
+        final boolean notNull;
+        final int sqlType;
+
+        Column(Field field, int index, int sqlType) {
+            this.index = index;
+            this.reason = field.getName() + "(" + field.getType().toUpperCase() + ")";
+            this.defaultValue = StringUtil.isEmpty(field.getDefaultValue()) ? null : field.getDefaultValue();
+            this.notNull = field.isPrimaryKey() || field.isNotNull();
+            this.sqlType = sqlType;
+        }
+
+        /**
+         * Is the value means NULL. The numeric and temporal column's "NULL" and empty string means NULL.
+         */
+        boolean isNull(String value) {
+            return value == null || value.isEmpty() || "NULL".equalsIgnoreCase(value);
+        }
+
+        abstract Vector newVector(int capacity);
+    }
+
+    /**
+     * The column values storage of the record batch.
+     */
+    static abstract class Vector {
+
+        final Column column;
+        boolean[] nulls;
+
+        Vector(Column column, int capacity) {
+            this.column = column;
+            this.nulls = new boolean[capacity];
+        }
+
+        /**
+         * Parse and set the value of the row.
+         *
+         * @return Return false if the value is invalid.
+         */
+        final boolean set(int row, String value) {
+            try {
+                if (column.isNull(value)) {
+                    if (column.defaultValue != null) {
+                        nulls[row] = false;
+                        return parse(row, column.defaultValue);
+                    }
+                    if (column.notNull) {
+                        nulls[row] = false;
+                        return zero(row);
+                    }
+                    nulls[row] = true;
+                    return true;
+                }
+                nulls[row] = false;
+                return parse(row, value);
+            } catch (RuntimeException e) {
+                return false;
+            }
+        }
+
+        final void bind(PreparedStatement stat, int i, int row) throws SQLException {
+            if (nulls[row]) {
+                stat.setNull(i, column.sqlType);
+            } else {
+                bindValue(stat, i, row);
+            }
+        }
+
+        /**
+         * Get the string value of the row.
+         *
+         * @return Return the value, or null if the value is NULL.
+         */
+        final String get(int row) {
+            return nulls[row] ? null : format(row);
+        }
+
+        void grow(int capacity) {
+            nulls = Arrays.copyOf(nulls, capacity);
+        }
+
+        /**
+         * Clear the batch's values. release the object reference.
+         */
+        void clear(int size) {
+            // no-op
+        }
+
+        /**
+         * Parse the value.
+         *
+         * @return Return false if the value is out of range.
+         * @throws RuntimeException if the value can not be parsed.
+         */
+        abstract boolean parse(int row, String value);
+
+        /**
+         * Set the NOT NULL column's empty value.
+         */
+        abstract boolean zero(int row);
+
+        abstract void bindValue(PreparedStatement stat, int i, int row) throws SQLException;
+
+        abstract String format(int row);
+    }
+
+    private static final class IntColumn extends Column {
+
+        private final int min;
+        private final int max;
+
+        IntColumn(Field field, int index, int min, int max) {
+            super(field, index, Types.INTEGER);
+            this.min = min;
+            this.max = max;
+        }
+
+        @Override
+        Vector newVector(int capacity) {
+            return new Vector(this, capacity) {
+                int[] values = new int[capacity];
+
+                @Override
+                boolean parse(int row, String value) {
+                    int v = Integer.parseInt(value);
+                    values[row] = v;
+                    return v >= min && v <= max;
+                }
+
+                @Override
+                boolean zero(int row) {
+                    values[row] = 0;
+                    return true;
+                }
+
+                @Override
+                void bindValue(PreparedStatement stat, int i, int row) throws SQLException {
+                    stat.setInt(i, values[row]);
+                }
+
+                @Override
+                String format(int row) {
+                    return Integer.toString(values[row]);
+                }
+
+                @Override
+                void grow(int capacity) {
+                    super.grow(capacity);
+                    values = Arrays.copyOf(values, capacity);
+                }
+            };
+        }
+    }
+
+    private static final class LongColumn extends Column {
+
+        private final long min;
+        private final long max;
+
+        LongColumn(Field field, int index, long min, long max) {
+            super(field, index, Types.BIGINT);
+            this.min = min;
+            this.max = max;
+        }
+
+        @Override
+        Vector newVector(int capacity) {
+            return new Vector(this, capacity) {
+                long[] values = new long[capacity];
+
+                @Override
+                boolean parse(int row, String value) {
+                    long v = Long.parseLong(value);
+                    values[row] = v;
+                    return v >= min && v <= max;
+                }
+
+                @Override
+                boolean zero(int row) {
+                    values[row] = 0L;
+                    return true;
+                }
+
+                @Override
+                void bindValue(PreparedStatement stat, int i, int row) throws SQLException {
+                    stat.setLong(i, values[row]);
+                }
+
+                @Override
+                String format(int row) {
+                    return Long.toString(values[row]);
+                }
+
+                @Override
+                void grow(int capacity) {
+                    super.grow(capacity);
+                    values = Arrays.copyOf(values, capacity);
+                }
+            };
+        }
+    }
+
+    private static final class DoubleColumn extends Column {
+
+        private final boolean single;
+
+        DoubleColumn(Field field, int index, boolean single) {
+            super(field, index, single ? Types.REAL : Types.DOUBLE);
+            this.single = single;
+        }
+
+        @Override
+        Vector newVector(int capacity) {
+            return new Vector(this, capacity) {
+                double[] values = new double[capacity];
+
+                @Override
+                boolean parse(int row, String value) {
+                    double v = Double.parseDouble(value);
+                    values[row] = v;
+                    return !Double.isNaN(v) && !Double.isInfinite(v);
+                }
+
+                @Override
+                boolean zero(int row) {
+                    values[row] = 0D;
+                    return true;
+                }
+
+                @Override
+                void bindValue(PreparedStatement stat, int i, int row) throws SQLException {
+                    if (single) {
+                        stat.setFloat(i, (float) values[row]);
+                    } else {
+                        stat.setDouble(i, values[row]);
+                    }
+                }
+
+                @Override
+                String format(int row) {
+                    return single ? Float.toString((float) values[row]) : Double.toString(values[row]);
+                }
+
+                @Override
+                void grow(int capacity) {
+                    super.grow(capacity);
+                    values = Arrays.copyOf(values, capacity);
+                }
+            };
+        }
+    }
+
+    /**
+     * DECIMAL and BIGINT UNSIGNED.
+     */
+    private static final class DecimalColumn extends Column {
+
+        private final boolean unsigned;
+
+        DecimalColumn(Field field, int index, boolean unsigned) {
+            super(field, index, Types.DECIMAL);
+            this.unsigned = unsigned;
+        }
+
+        @Override
+        Vector newVector(int capacity) {
+            return new Vector(this, capacity) {
+                BigDecimal[] values = new BigDecimal[capacity];
+
+                @Override
+                boolean parse(int row, String value) {
+                    BigDecimal v = new BigDecimal(value);
+                    values[row] = v;
+                    return !unsigned || v.signum() >= 0;
+                }
+
+                @Override
+                boolean zero(int row) {
+                    values[row] = BigDecimal.ZERO;
+                    return true;
+                }
+
+                @Override
+                void bindValue(PreparedStatement stat, int i, int row) throws SQLException {
+                    stat.setBigDecimal(i, values[row]);
+                }
+
+                @Override
+                String format(int row) {
+                    return values[row].toPlainString();
+                }
+
+                @Override
+                void grow(int capacity) {
+                    super.grow(capacity);
+                    values = Arrays.copyOf(values, capacity);
+                }
+
+                @Override
+                void clear(int size) {
+                    Arrays.fill(values, 0, size, null);
+                }
+            };
+        }
+    }
+
+    /**
+     * DATE (epoch day), DATETIME and TIMESTAMP (local epoch second).
+     * accept "yyyy-MM-dd" and "yyyy-MM-dd HH:mm:ss".
+     */
+    private static final class EpochColumn extends Column {
+
+        private final boolean date;
+
+        EpochColumn(Field field, int index, boolean date) {
+            super(field, index, date ? Types.DATE : Types.TIMESTAMP);
+            this.date = date;
+        }
+
+        @Override
+        Vector newVector(int capacity) {
+            return new Vector(this, capacity) {
+                long[] values = new long[capacity];
+
+                @Override
+                boolean parse(int row, String value) {
+                    long v = TimeV8Util.parseLocalEpochSecond(value);
+                    if (v == Long.MIN_VALUE) {
+                        return false;
+                    }
+                    values[row] = date ? Math.floorDiv(v, 86400L) : v;
+                    return true;
+                }
+
+                @Override
+                boolean zero(int row) {
+                    return false;
+                }
+
+                @Override
+                void bindValue(PreparedStatement stat, int i, int row) throws SQLException {
+                    if (date) {
+                        stat.setDate(i, Date.valueOf(LocalDate.ofEpochDay(values[row])));
+                    } else {
+                        stat.setTimestamp(i, Timestamp.valueOf(LocalDateTime.ofEpochSecond(values[row], 0, ZoneOffset.UTC)));
+                    }
+                }
+
+                @Override
+                String format(int row) {
+                    return date
+                            ? TimeV8Util.date(LocalDate.ofEpochDay(values[row]))
+                            : TimeV8Util.dateTime(LocalDateTime.ofEpochSecond(values[row], 0, ZoneOffset.UTC));
+                }
+
+                @Override
+                void grow(int capacity) {
+                    super.grow(capacity);
+                    values = Arrays.copyOf(values, capacity);
+                }
+            };
+        }
+    }
+
+    /**
+     * String column. CHAR and VARCHAR use dictionary encoding.
+     */
+    private static final class StringColumn extends Column {
+
+        /**
+         * The max character count. -1 means unlimited.
+         */
+        private final int maxLength;
+        private final boolean dictionary;
+
+        StringColumn(Field field, int index, int maxLength, boolean dictionary) {
+            super(field, index, Types.VARCHAR);
+            this.maxLength = maxLength;
+            this.dictionary = dictionary;
+        }
+
+        /**
+         * Only null means NULL. Empty string and "NULL" (example : nickname) are valid string values.
+         */
+        @Override
+        boolean isNull(String value) {
+            return value == null;
+        }
+
+        private boolean valid(String value) {
+            return maxLength < 0 || value.length() <= maxLength || value.codePointCount(0, value.length()) <= maxLength;
+        }
+
+        @Override
+        Vector newVector(int capacity) {
+            return dictionary ? new DictionaryVector(this, capacity) : new Vector(this, capacity) {
+                String[] values = new String[capacity];
+
+                @Override
+                boolean parse(int row, String value) {
+                    values[row] = value;
+                    return valid(value);
+                }
+
+                @Override
+                boolean zero(int row) {
+                    values[row] = "";
+                    return true;
+                }
+
+                @Override
+                void bindValue(PreparedStatement stat, int i, int row) throws SQLException {
+                    stat.setString(i, values[row]);
+                }
+
+                @Override
+                String format(int row) {
+                    return values[row];
+                }
+
+                @Override
+                void grow(int capacity) {
+                    super.grow(capacity);
+                    values = Arrays.copyOf(values, capacity);
+                }
+
+                @Override
+                void clear(int size) {
+                    Arrays.fill(values, 0, size, null);
+                }
+            };
+        }
+
+        /**
+         * Dictionary encoded string vector. The dictionary is reset per batch.
+         * <p>
+         * 字典使用线性探测的开放寻址表(String -> int code), 不装箱, 没有Entry对象. 批次回收时只清空使用过的槽位,
+         * 表和数组随批次在对象池中复用.
+         */
+        private final class DictionaryVector extends Vector {
+
+            /**
+             * 开放寻址表. 存储 code + 1, 0表示空槽
+             */
+            private int[] slots = new int[16];
+            /**
+             * The distinct words by code.
+             */
+            private String[] words = new String[8];
+            /**
+             * The slot index by code. 用于清空
+             */
+            private int[] slotOf = new int[8];
+            private int size;
+            private int[] values;
+
+            DictionaryVector(Column column, int capacity) {
+                super(column, capacity);
+                this.values = new int[capacity];
+            }
+
+            @Override
+            boolean parse(int row, String value) {
+                if (!valid(value)) {
+                    return false;
+                }
+                values[row] = codeOf(value);
+                return true;
+            }
+
+            private int codeOf(String value) {
+                final int mask = slots.length - 1;
+                int i = hash(value) & mask;
+                for (int entry; (entry = slots[i]) != 0; i = (i + 1) & mask) {
+                    if (words[entry - 1].equals(value)) {
+                        return entry - 1;
+                    }
+                }
+                final int code = size++;
+                if (code == words.length) {
+                    words = Arrays.copyOf(words, code << 1);
+                    slotOf = Arrays.copyOf(slotOf, code << 1);
+                }
+                words[code] = value;
+                slotOf[code] = i;
+                slots[i] = code + 1;
+                if (size << 1 > slots.length) {     //  负载因子不超过0.5
+                    rehash(slots.length << 1);
+                }
+                return code;
+            }
+
+            private void rehash(int length) {
+                slots = new int[length];
+                final int mask = length - 1;
+                for (int code = 0; code < size; code++) {
+                    int i = hash(words[code]) & mask;
+                    while (slots[i] != 0) {
+                        i = (i + 1) & mask;
+                    }
+                    slots[i] = code + 1;
+                    slotOf[code] = i;
+                }
+            }
+
+            private int hash(String value) {
+                int h = value.hashCode() * 0x9E3779B9;
+                return h ^ (h >>> 16);
+            }
+
+            @Override
+            boolean zero(int row) {
+                return parse(row, "");
+            }
+
+            @Override
+            void bindValue(PreparedStatement stat, int i, int row) throws SQLException {
+                stat.setString(i, words[values[row]]);
+            }
+
+            @Override
+            String format(int row) {
+                return words[values[row]];
+            }
+
+            @Override
+            void grow(int capacity) {
+                super.grow(capacity);
+                values = Arrays.copyOf(values, capacity);
+            }
+
+            @Override
+            void clear(int size) {
+                for (int code = 0; code < this.size; code++) {
+                    slots[slotOf[code]] = 0;
+                    words[code] = null;
+                }
+                this.size = 0;
+            }
+        }
+    }
+}
@@ -17,12 +17,15 @@
 package org.ogcs.log.core.builder;
 
 import org.ogcs.log.util.HashCodeUtil;
-import org.ogcs.log.util.MySQL;
-import org.ogcs.log.util.TimeV8Util;
+import org.ogcs.log.util.ObjectPool;
 import org.ogcs.utilities.StringUtil;
 
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentSkipListMap;
 
 /**
  * MySQL table builder.
@@ -31,6 +34,27 @@ import java.util.Objects;
  */
 public class Table<F extends Field> {
 
+    /**
+     * 使用PreparedStatement批量INSERT写入
+     */
+    public static final String WRITER_INSERT = "INSERT";
+    /**
+     * 使用LOAD DATA LOCAL INFILE流式写入
+     */
+    public static final String WRITER_LOAD = "LOAD";
+    /**
+     * 日期后缀
+     */
+    public static final String ADORN_DATE = "DATE";
+    /**
+     * 按天RANGE分区
+     */
+    public static final String PARTITION_DAY = "DAY";
+    /**
+     * 按月RANGE分区
+     */
+    public static final String PARTITION_MONTH = "MONTH";
+
     private String database;
     private String name;
     private String dbEngine;
@@ -47,13 +71,53 @@ public class Table<F extends Field> {
     private String adorn;   //  后缀类型
     private String suffix;  //  后缀字符串
     /**
-     * 记录的数据库表名称
+     * 指定写入的Disruptor分片. 小于0时按表名hash分配
      */
-    private volatile String logTableName;
+    private int shard = -1;
     /**
-     * The table prepare query sql.
+     * 日志最长等待写入时间(毫秒). 小于等于0时使用全局的写入间隔
      */
-    private volatile String prepareQuery;
+    private int maxLatency = 0;
+    /**
+     * 日志写入方式. INSERT or LOAD
+     */
+    private String writer = WRITER_INSERT;
+    /**
+     * MySQL RANGE分区类型. DAY or MONTH. 为空时不分区. 分区的表使用固定的表名, 忽略日期后缀
+     */
+    private String partition;
+    /**
+     * 分区使用的时间字段. 必须包含在表的每个PRIMARY/UNIQUE索引中
+     */
+    private String partitionField = "logDate";
+    /**
+     * 保留的分区数量. 小于等于0时不删除过期的分区
+     */
+    private int partitionKeep = 0;
+    /**
+     * 当前周期的数据库表名称和写入语句
+     */
+    private volatile TablePeriod period;
+    /**
+     * 预先创建的下一个周期
+     */
+    private volatile TablePeriod next;
+    /**
+     * 按日志时间路由的其他周期(迟到的日志), key : 周期开始时间(本地时间的epoch秒)
+     */
+    private final ConcurrentSkipListMap<Long, TablePeriod> partitions = new ConcurrentSkipListMap<>();
+    /**
+     * The date suffix formatter.
+     */
+    private volatile DateTimeFormatter formatter;
+    /**
+     * The typed record binder. compiled from fields.
+     */
+    private volatile RecordBinder binder;
+    /**
+     * The pooled log params array. borrowed by translator, returned by struct after bound to batch.
+     */
+    private volatile ObjectPool<String[]> slots;
 
     @Deprecated
     public Table() {
@@ -86,48 +150,243 @@ public class Table<F extends Field> {
 
     /**
      * Return database table name.  example : `database`.`prefix_table_suffix`
+     * The date suffixed name is computed once per period.
      * @return Return database table name.
      */
     public String name() {
+        return period().getName();
+    }
+
+    /**
+     * Build the database table name with the formatted date suffix.
+     *
+     * @param date The formatted date suffix, or null if the suffix is not date.
+     * @return Return database table name.
+     */
+    String name(String date) {
         StringBuilder sb = new StringBuilder();
         sb.append(" `");
         if (!StringUtil.isEmpty(database)) {
             sb.append(database.toLowerCase()).append("`.`");
         }
         sb.append(name.toLowerCase());
-        if (!StringUtil.isEmpty(suffix)) {
+        if (!StringUtil.isEmpty(suffix) && !(isPartitioned() && ADORN_DATE.equals(adorn))) {
             sb.append("_");
-            appendAdorn(sb, this.adorn, this.suffix);
+            sb.append(date != null ? date : suffix);
         }
         sb.append("` ");
         return sb.toString();
     }
 
-    private void appendAdorn(StringBuilder sb, String adorn, String pattern) {
-        switch(adorn) {
-            case "DATE":
-                sb.append(TimeV8Util.dateTime(LocalDateTime.now(), pattern));
-                break;
-            default:
-                sb.append(pattern);
-                break;
+    private DateTimeFormatter formatter() {
+        if (!ADORN_DATE.equals(adorn) || StringUtil.isEmpty(suffix) || isPartitioned()) {
+            return null;
+        }
+        DateTimeFormatter f = this.formatter;
+        if (f == null) {
+            f = DateTimeFormatter.ofPattern(suffix);
+            this.formatter = f;
+        }
+        return f;
+    }
+
+    /**
+     * Get the current period. switch to the pre-created next period at the period boundary.
+     *
+     * @return Return the current period.
+     */
+    public TablePeriod period() {
+        TablePeriod p = this.period;
+        if (p != null && p.contains(System.currentTimeMillis())) {
+            return p;
+        }
+        return rotate(System.currentTimeMillis());
+    }
+
+    private synchronized TablePeriod rotate(long now) {
+        TablePeriod p = this.period;
+        if (p != null && p.contains(now)) {
+            return p;
+        }
+        if (p != null && p.isBounded()) {
+            //  保留上一个周期的表名和语句, 迟到的日志继续使用. 更早的周期按需重新创建
+            partitions.headMap(p.getLocalStart()).clear();
+            partitions.put(p.getLocalStart(), p);
+        }
+        TablePeriod n = this.next;
+        if (n != null && n.contains(now)) {
+            p = n;
+        } else {
+            DateTimeFormatter f = formatter();
+            p = TablePeriod.of(this, f == null ? null : suffix, f, now);
+            //  已按日志时间提前使用过的周期
+            TablePeriod routed = partitions.get(p.getLocalStart());
+            if (routed != null) {
+                p = routed;
+            }
+        }
+        if (p.isBounded()) {
+            partitions.remove(p.getLocalStart());
+        }
+        this.next = null;
+        this.period = p;
+        return p;
+    }
+
+    /**
+     * Get the period which contains the event time. The event later than the window or earlier than the window
+     * is routed to the current period. The partitions earlier than the window are removed.
+     *
+     * @param second The event time. local epoch second.
+     * @param window The late-arrival window. second.
+     * @return Return the event time's period.
+     */
+    public TablePeriod periodOf(long second, long window) {
+        TablePeriod p = period();
+        if (!p.isBounded() || p.containsLocal(second)) {
+            return p;
+        }
+        long now = p.getLocalStart() + (System.currentTimeMillis() - p.getStart()) / 1000L;
+        if (second < now - window || second > now + window) {
+            return p;
+        }
+        TablePeriod n = this.next;
+        if (n != null && n.containsLocal(second)) {
+            return n;
+        }
+        Map.Entry<Long, TablePeriod> entry = partitions.floorEntry(second);
+        if (entry != null && entry.getValue().containsLocal(second)) {
+            return entry.getValue();
+        }
+        return partition(second, now - window);
+    }
+
+    private synchronized TablePeriod partition(long second, long earliest) {
+        Map.Entry<Long, TablePeriod> entry = partitions.floorEntry(second);
+        if (entry != null && entry.getValue().containsLocal(second)) {
+            return entry.getValue();
+        }
+        //  移除超出迟到窗口的周期
+        partitions.headMap(earliest).entrySet().removeIf((e) -> e.getValue().getLocalEnd() <= earliest);
+        DateTimeFormatter f = formatter();
+        TablePeriod p = TablePeriod.of(this, suffix, f, LocalDateTime.ofEpochSecond(second, 0, ZoneOffset.UTC));
+        partitions.put(p.getLocalStart(), p);
+        return p;
+    }
+
+    /**
+     * @return Return the cached partition count. exclude the current and next period.
+     */
+    public int getPartitionCount() {
+        return partitions.size();
+    }
+
+    /**
+     * Get the period which contains the time. The period is cached as the next period.
+     *
+     * @param time The future time(millisecond).
+     * @return Return the next period, or null if the time is in the current period.
+     */
+    public synchronized TablePeriod nextPeriod(long time) {
+        TablePeriod p = period();
+        if (p.contains(time)) {
+            return null;
+        }
+        TablePeriod n = this.next;
+        if (n == null || !n.contains(time)) {
+            DateTimeFormatter f = formatter();
+            n = TablePeriod.of(this, f == null ? null : suffix, f, time);
+            TablePeriod routed = partitions.get(n.getLocalStart());
+            if (routed != null) {
+                n = routed;
+            }
+            this.next = n;
         }
+        return n;
+    }
+
+    /**
+     * Mark the period's table is exist, and prepare the insert SQL.
+     *
+     * @param p The period.
+     */
+    public void afterTableExist(TablePeriod p) {
+        p.afterExist(this);
+    }
+
+    /**
+     * Reset the cached periods. The table name or fields is changed.
+     */
+    private void reset() {
+        this.partitions.clear();
+        this.period = null;
+        this.next = null;
+        this.formatter = null;
     }
 
     public boolean tableExist() {
-        return logTableName != null && logTableName.equals(name());
+        return period().isExist();
     }
 
     public void afterTableExist() {
-        this.logTableName = name();
-        this.prepareQuery = MySQL.prepareQuery(this);
+        period().afterExist(this);
     }
 
     /**
      * @return prepare query SQL.
      */
     public String prepareQuery() {
-        return prepareQuery;
+        return period().prepareQuery();
+    }
+
+    /**
+     * Get the multi-row prepare query sql. The sql is cached by row count.
+     *
+     * @param rows The row count.
+     * @return multi-row prepare query SQL.
+     */
+    public String prepareQuery(int rows) {
+        return period().prepareQuery(this, rows);
+    }
+
+    /**
+     * @return LOAD DATA LOCAL INFILE SQL.
+     */
+    public String loadQuery() {
+        return period().loadQuery();
+    }
+
+    /**
+     * @return Return true if the table's logs are written by LOAD DATA LOCAL INFILE.
+     */
+    public boolean isLoadData() {
+        return WRITER_LOAD.equalsIgnoreCase(writer);
+    }
+
+    /**
+     * @return Return true if the table is partitioned by MySQL RANGE partitioning.
+     */
+    public boolean isPartitioned() {
+        return PARTITION_DAY.equalsIgnoreCase(partition) || PARTITION_MONTH.equalsIgnoreCase(partition);
+    }
+
+    /**
+     * Compile the typed record binder by the table's fields.
+     */
+    public void compile() {
+        this.binder = RecordBinder.compile(this);
+    }
+
+    /**
+     * @return Return the typed record binder. compile it if the binder is not compiled.
+     */
+    public RecordBinder binder() {
+        RecordBinder rb = this.binder;
+        if (rb == null) {
+            rb = RecordBinder.compile(this);
+            this.binder = rb;
+        }
+        return rb;
     }
 
     public String getDatabase() {
@@ -136,6 +395,7 @@ public class Table<F extends Field> {
 
     public void setDatabase(String database) {
         this.database = database;
+        reset();
     }
 
     public String getName() {
@@ -144,6 +404,7 @@ public class Table<F extends Field> {
 
     public void setName(String name) {
         this.name = name;
+        reset();
     }
 
     public String getDbEngine() {
@@ -178,6 +439,82 @@ public class Table<F extends Field> {
         this.desc = desc;
     }
 
+    public String getAdorn() {
+        return adorn;
+    }
+
+    public void setAdorn(String adorn) {
+        this.adorn = adorn;
+        reset();
+    }
+
+    public String getSuffix() {
+        return suffix;
+    }
+
+    public void setSuffix(String suffix) {
+        this.suffix = suffix;
+        reset();
+    }
+
+    public int getShard() {
+        return shard;
+    }
+
+    public void setShard(int shard) {
+        this.shard = shard;
+    }
+
+    public ObjectPool<String[]> getSlots() {
+        return slots;
+    }
+
+    public void setSlots(ObjectPool<String[]> slots) {
+        this.slots = slots;
+    }
+
+    public int getMaxLatency() {
+        return maxLatency;
+    }
+
+    public void setMaxLatency(int maxLatency) {
+        this.maxLatency = maxLatency;
+    }
+
+    public String getWriter() {
+        return writer;
+    }
+
+    public void setWriter(String writer) {
+        this.writer = writer;
+        reset();
+    }
+
+    public String getPartition() {
+        return partition;
+    }
+
+    public void setPartition(String partition) {
+        this.partition = partition;
+        reset();
+    }
+
+    public String getPartitionField() {
+        return partitionField;
+    }
+
+    public void setPartitionField(String partitionField) {
+        this.partitionField = partitionField;
+    }
+
+    public int getPartitionKeep() {
+        return partitionKeep;
+    }
+
+    public void setPartitionKeep(int partitionKeep) {
+        this.partitionKeep = partitionKeep;
+    }
+
     public int getAutoIncrement() {
         return autoIncrement;
     }
@@ -192,6 +529,8 @@ public class Table<F extends Field> {
 
     public void setFields(F[] fields) {
         this.fields = fields;
+        this.binder = null;
+        reset();
     }
 
     public KeyIndex[] getIndexes() {
@@ -0,0 +1,284 @@
+/*
+ *     Copyright 2016-2026 TinyZ
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ogcs.log.core.builder;
+
+import org.ogcs.log.util.MySQL;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The table's name and prepared SQL of one rotation period.
+ * <p>
+ * 表名后缀为日期(adorn="DATE")时, 根据后缀格式中最小的时间单位计算周期 : yyyy-MM-dd按天, yyyyMMddHH按小时, yyyy-MM按月.
+ * 每个周期只计算一次表名, 表创建后生成该表名的INSERT/LOAD DATA语句, 写入路径只读取缓存的字符串.
+ * 固定后缀或无后缀的表只有一个无限长的周期.
+ *
+ * @author TinyZ
+ * @date 2016-11-01.
+ */
+public final class TablePeriod {
+
+    /**
+     * 每个表每个周期最多缓存的多行INSERT语句数量
+     */
+    private static final int MAX_QUERY_SHAPES = 64;
+
+    private final String name;
+    /**
+     * 周期开始时间(毫秒, 包含)
+     */
+    private final long start;
+    /**
+     * 周期结束时间(毫秒, 不包含)
+     */
+    private final long end;
+    /**
+     * 周期开始时间(本地时间的epoch秒, 包含). 与{@link org.ogcs.log.util.TimeV8Util#parseLocalEpochSecond(String)}对应
+     */
+    private final long localStart;
+    /**
+     * 周期结束时间(本地时间的epoch秒, 不包含)
+     */
+    private final long localEnd;
+    private final ConcurrentMap<Integer, String> prepareQueries = new ConcurrentHashMap<>();
+    private volatile String prepareQuery;
+    private volatile String loadQuery;
+    private volatile boolean exist;
+
+    private TablePeriod(String name, long start, long end, long localStart, long localEnd) {
+        this.name = name;
+        this.start = start;
+        this.end = end;
+        this.localStart = localStart;
+        this.localEnd = localEnd;
+    }
+
+    /**
+     * Create the table's period which contains the time.
+     *
+     * @param table     The table.
+     * @param pattern   The date suffix pattern, or null if the suffix is not date.
+     * @param formatter The date suffix formatter, or null if the suffix is not date.
+     * @param time      The time(millisecond).
+     * @return Return the period.
+     */
+    static TablePeriod of(Table table, String pattern, DateTimeFormatter formatter, long time) {
+        return of(table, pattern, formatter, LocalDateTime.ofInstant(Instant.ofEpochMilli(time), ZoneId.systemDefault()));
+    }
+
+    /**
+     * Create the table's period which contains the local date time.
+     *
+     * @param table     The table.
+     * @param pattern   The date suffix pattern, or null if the suffix is not date.
+     * @param formatter The date suffix formatter, or null if the suffix is not date.
+     * @param time      The local date time.
+     * @return Return the period.
+     */
+    static TablePeriod of(Table table, String pattern, DateTimeFormatter formatter, LocalDateTime time) {
+        ChronoUnit unit = pattern == null ? null : unitOf(pattern);
+        if (unit == null) {
+            return new TablePeriod(table.name(formatter == null ? null : formatter.format(LocalDateTime.now())),
+                    Long.MIN_VALUE, Long.MAX_VALUE, Long.MIN_VALUE, Long.MAX_VALUE);
+        }
+        ZoneId zone = ZoneId.systemDefault();
+        LocalDateTime begin = truncate(time, unit);
+        LocalDateTime finish = begin.plus(1, unit);
+        return new TablePeriod(table.name(formatter.format(begin)),
+                begin.atZone(zone).toInstant().toEpochMilli(), finish.atZone(zone).toInstant().toEpochMilli(),
+                begin.toEpochSecond(ZoneOffset.UTC), finish.toEpochSecond(ZoneOffset.UTC));
+    }
+
+    /**
+     * Get the smallest time unit of the date pattern. The quoted text is skipped.
+     *
+     * @param pattern The date pattern. example : yyyy-MM-dd
+     * @return Return the time unit, or null if the pattern has no time field.
+     */
+    static ChronoUnit unitOf(String pattern) {
+        ChronoUnit unit = null;
+        boolean quoted = false;
+        for (int i = 0; i < pattern.length(); i++) {
+            char c = pattern.charAt(i);
+            if (c == '\'') {
+                quoted = !quoted;
+                continue;
+            }
+            if (quoted) {
+                continue;
+            }
+            ChronoUnit u;
+            switch (c) {
+                case 's':
+                case 'S':
+                case 'n':
+                case 'N':
+                case 'A':
+                    u = ChronoUnit.SECONDS;
+                    break;
+                case 'm':
+                    u = ChronoUnit.MINUTES;
+                    break;
+                case 'H':
+                case 'h':
+                case 'k':
+                case 'K':
+                case 'a':
+                    u = ChronoUnit.HOURS;
+                    break;
+                case 'd':
+                case 'D':
+                case 'E':
+                case 'e':
+                case 'c':
+                case 'F':
+                case 'w':
+                case 'W':
+                case 'Y':
+                    u = ChronoUnit.DAYS;    //  星期相关的格式按天检查
+                    break;
+                case 'M':
+                case 'L':
+                case 'Q':
+                case 'q':
+                    u = ChronoUnit.MONTHS;
+                    break;
+                case 'y':
+                case 'u':
+                    u = ChronoUnit.YEARS;
+                    break;
+                default:
+                    continue;
+            }
+            if (unit == null || u.compareTo(unit) < 0) {
+                unit = u;
+            }
+        }
+        return unit;
+    }
+
+    private static LocalDateTime truncate(LocalDateTime time, ChronoUnit unit) {
+        switch (unit) {
+            case YEARS:
+                return time.truncatedTo(ChronoUnit.DAYS).withDayOfYear(1);
+            case MONTHS:
+                return time.truncatedTo(ChronoUnit.DAYS).withDayOfMonth(1);
+            default:
+                return time.truncatedTo(unit);
+        }
+    }
+
+    /**
+     * Mark the table is exist, and prepare the insert SQL.
+     *
+     * @param table The table.
+     */
+    void afterExist(Table table) {
+        if (exist) {
+            return;
+        }
+        this.prepareQuery = MySQL.prepareQuery(table, name, 1);
+        this.loadQuery = table.isLoadData() ? MySQL.loadDataSQL(table, name) : null;
+        this.exist = true;
+    }
+
+    /**
+     * Get the multi-row prepare query sql. The sql is cached by row count.
+     *
+     * @param table The table.
+     * @param rows  The row count.
+     * @return multi-row prepare query SQL.
+     */
+    public String prepareQuery(Table table, int rows) {
+        if (rows <= 1) {
+            return prepareQuery;
+        }
+        String query = prepareQueries.get(rows);
+        if (query == null) {
+            query = MySQL.prepareQuery(table, name, rows);
+            if (prepareQueries.size() < MAX_QUERY_SHAPES) {
+                prepareQueries.putIfAbsent(rows, query);
+            }
+        }
+        return query;
+    }
+
+    /**
+     * Is the time in the period.
+     */
+    boolean contains(long time) {
+        return time >= start && time < end;
+    }
+
+    /**
+     * Is the local epoch second in the period.
+     *
+     * @param second The local epoch second. example : the parsed logDate field.
+     * @return Return true if the local time is in the period.
+     */
+    public boolean containsLocal(long second) {
+        return second >= localStart && second < localEnd;
+    }
+
+    /**
+     * @return Return true if the period is not infinite. the table is date suffixed.
+     */
+    public boolean isBounded() {
+        return end != Long.MAX_VALUE;
+    }
+
+    /**
+     * @return Return the database table name. example : `database`.`prefix_table_suffix`
+     */
+    public String getName() {
+        return name;
+    }
+
+    public long getStart() {
+        return start;
+    }
+
+    public long getEnd() {
+        return end;
+    }
+
+    public long getLocalStart() {
+        return localStart;
+    }
+
+    public long getLocalEnd() {
+        return localEnd;
+    }
+
+    public boolean isExist() {
+        return exist;
+    }
+
+    public String prepareQuery() {
+        return prepareQuery;
+    }
+
+    public String loadQuery() {
+        return loadQuery;
+    }
+}
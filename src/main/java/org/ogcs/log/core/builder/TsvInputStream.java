@@ -0,0 +1,106 @@
+/*
+ *     Copyright 2016-2026 TinyZ
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ogcs.log.core.builder;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Stream the record batch as LOAD DATA LOCAL INFILE text.
+ * <p>
+ * 逐行把批次编码为UTF-8的TSV文本, 不会一次性生成整个批次的数据. 转义规则与{@link org.ogcs.log.util.MySQL#loadDataSQL(Table)}对应.
+ * <p>
+ * 非线程安全.
+ *
+ * @author TinyZ
+ * @date 2016-10-31.
+ */
+public final class TsvInputStream extends InputStream {
+
+    private final RecordBatch batch;
+    private final StringBuilder line = new StringBuilder(256);
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    private ByteBuffer buffer = ByteBuffer.allocate(1024);
+    private int row;
+
+    public TsvInputStream(RecordBatch batch) {
+        this.batch = batch;
+        this.buffer.flip();
+    }
+
+    /**
+     * Encode the next row to the buffer.
+     *
+     * @return Return false if all rows is read.
+     */
+    private boolean fill() {
+        while (!buffer.hasRemaining()) {
+            if (row >= batch.size()) {
+                return false;
+            }
+            line.setLength(0);
+            batch.appendTsv(line, row++);
+            CharBuffer in = CharBuffer.wrap(line);
+            buffer.clear();
+            encoder.reset();
+            while (encoder.encode(in, buffer, true).isOverflow()) {
+                buffer = grow(buffer);
+            }
+            while (encoder.flush(buffer).isOverflow()) {
+                buffer = grow(buffer);
+            }
+            buffer.flip();
+        }
+        return true;
+    }
+
+    private static ByteBuffer grow(ByteBuffer buffer) {
+        buffer.flip();
+        ByteBuffer bigger = ByteBuffer.allocate(buffer.capacity() << 1);
+        bigger.put(buffer);
+        return bigger;
+    }
+
+    @Override
+    public int read() {
+        return fill() ? buffer.get() & 0xFF : -1;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) {
+        if (len == 0) {
+            return 0;
+        }
+        int count = 0;
+        while (count < len && fill()) {
+            int n = Math.min(len - count, buffer.remaining());
+            buffer.get(b, off + count, n);
+            count += n;
+        }
+        return count == 0 ? -1 : count;
+    }
+
+    @Override
+    public int available() {
+        return buffer.remaining();
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ *     Copyright 2016-2026 TinyZ
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ogcs.log.core.handler;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandler.Sharable;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.SimpleChannelInboundHandler;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.ogcs.log.core.MissionBoard;
+
+/**
+ * Record the multi-record frame. see {@link RecordFrames}
+ *
+ * @author TinyZ
+ * @date 2016-10-19.
+ */
+@Sharable
+public class FramedRecordHandler extends SimpleChannelInboundHandler<ByteBuf> {
+
+    private static final Logger LOG = LogManager.getLogger(FramedRecordHandler.class);
+
+    private final MissionBoard missions;
+    private final Translator<ByteBuf, String[]> translator;
+
+    public FramedRecordHandler(MissionBoard missions, Translator<ByteBuf, String[]> translator) {
+        if (translator == null) throw new NullPointerException("translator");
+        this.missions = missions;
+        this.translator = translator;
+    }
+
+    @Override
+    protected void channelRead0(ChannelHandlerContext ctx, ByteBuf msg) throws Exception {
+        if (missions == null) {
+            return;
+        }
+        if (RecordFrames.dispatch(msg, translator, missions) < 0) {
+            LOG.info("Drop invalid frame from : " + ctx.channel());
+        }
+    }
+}
@@ -28,6 +28,8 @@ import java.util.List;
 
 /**
  * HTTP protocol matcher.
+ * <p>
+ * 拒绝的连接直接关闭, 接受的请求原样传递给下一个handler.
  *
  * @author TinyZ.
  * @since 1.0
@@ -35,7 +37,7 @@ import java.util.List;
 @Sharable
 public final class HttpProtocolHandler
         extends MessageToMessageDecoder<FullHttpRequest>
-        implements Filter<ChannelHandlerContext>, Translator<FullHttpRequest, String> {
+        implements Filter<ChannelHandlerContext> {
 
     private static final Logger LOG = LogManager.getLogger(HttpProtocolHandler.class);
 
@@ -49,34 +51,16 @@ public final class HttpProtocolHandler
     protected void decode(ChannelHandlerContext ctx, FullHttpRequest msg, List<Object> out) throws Exception {
         if (filter(ctx)) {
             InetSocketAddress sender = (InetSocketAddress) ctx.channel().remoteAddress();
-            LOG.info("Access denied for host(IP) : [" + sender.getHostName() + ":" + sender.getPort() + "].");
+            LOG.info("Access denied for host(IP) : [" + sender.getAddress().getHostAddress() + ":" + sender.getPort() + "].");
+            ctx.close();
             return;
         }
-        String data = translate(msg);
-        if (data == null) {
-            LOG.info("The message data is null.");
-            return;
-        }
-        out.add(data);
+        out.add(msg.retain());
     }
 
     @Override
     public boolean filter(ChannelHandlerContext ctx) {
         InetSocketAddress address = (InetSocketAddress) ctx.channel().remoteAddress();
-        return matcher != null && !matcher.accept(address.getHostName());
-    }
-
-    @Override
-    public String translate(FullHttpRequest msg) {
-        String data = msg.uri();
-        int index = data.indexOf("?");
-        if (index < 0) {
-            return null;
-        }
-        String params = data.substring(index + 1, data.length());
-        if (params.length() <= 0) {
-            return null;
-        }
-        return data;
+        return matcher != null && !matcher.accept(address);
     }
 }
@@ -0,0 +1,207 @@
+/*
+ *     Copyright 2016-2026 TinyZ
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ogcs.log.core.handler;
+
+import com.alibaba.fastjson.JSON;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandler.Sharable;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaderValues;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpUtil;
+import io.netty.handler.codec.http.QueryStringDecoder;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.ogcs.log.core.MissionBoard;
+
+import java.nio.charset.Charset;
+import java.util.HashMap;
+import java.util.Map;
+
+import static io.netty.handler.codec.http.HttpVersion.HTTP_1_1;
+
+/**
+ * Record the log received by HTTP request.
+ * <p>
+ * GET : 单条日志, 放在URI的查询字符串中. 示例 : /?log_money|2016-06-24|openid|0|105|15|100|1000
+ * <p>
+ * POST : 批量日志, 请求体(body)可以包含任意表的多条日志.
+ * <ul>
+ * <li>Content-Type为application/octet-stream时, body为一个{@link RecordFrames}数据帧, 日志内容格式由配置的协议决定.</li>
+ * <li>其他Content-Type, body为换行符(\n或\r\n)分隔的文本日志.</li>
+ * </ul>
+ * 响应内容为JSON : {"accepted":n,"rejected":m}. accepted只统计进入队列的日志, 被溢出策略丢弃或转存的日志计为rejected.
+ * 支持HTTP keep-alive, 只有客户端不要求保持连接时才关闭连接.
+ * 任务版过载时返回503, 所有日志计为rejected, 由客户端稍后重发.
+ *
+ * @author TinyZ
+ * @date 2016-10-23.
+ */
+@Sharable
+public class HttpRecordHandler extends SimpleChannelInboundHandler<FullHttpRequest> {
+
+    private static final Logger LOG = LogManager.getLogger(HttpRecordHandler.class);
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final byte LF = '\n';
+    private static final byte CR = '\r';
+
+    private final MissionBoard missions;
+    private final Translator<ByteBuf, String[]> text;
+    private final Translator<ByteBuf, String[]> binary;
+
+    public HttpRecordHandler(MissionBoard missions) {
+        if (missions == null) throw new NullPointerException("missions");
+        this.missions = missions;
+        this.text = new TextRecordTranslator(missions.getParser(), missions.getConfig().getLogSeparator());
+        this.binary = missions.getTranslator();
+    }
+
+    @Override
+    protected void channelRead0(ChannelHandlerContext ctx, FullHttpRequest msg) throws Exception {
+        if (msg.method() != HttpMethod.GET && msg.method() != HttpMethod.POST) {
+            response(ctx, msg, HttpResponseStatus.METHOD_NOT_ALLOWED, 0, 0);
+            return;
+        }
+        if (missions.isOverloaded()) {
+            response(ctx, msg, HttpResponseStatus.SERVICE_UNAVAILABLE, 0, msg.method() == HttpMethod.GET ? 1 : count(msg));
+            return;
+        }
+        if (msg.method() == HttpMethod.GET) {
+            String[] params = translate(msg.uri());
+            if (params == null) {
+                response(ctx, msg, HttpResponseStatus.BAD_REQUEST, 0, 1);
+                return;
+            }
+            boolean accepted = missions.add(params[0], params);
+            response(ctx, msg, HttpResponseStatus.OK, accepted ? 1 : 0, accepted ? 0 : 1);
+            return;
+        }
+        ByteBuf body = msg.content();
+        if (isBinary(msg)) {
+            int accepted = RecordFrames.dispatch(body, binary, missions);
+            if (accepted < 0) {
+                response(ctx, msg, HttpResponseStatus.BAD_REQUEST, 0, -1);
+                return;
+            }
+            int count = body.getUnsignedShort(body.readerIndex() + 3);
+            response(ctx, msg, HttpResponseStatus.OK, accepted, count - accepted);
+            return;
+        }
+        dispatchLines(ctx, msg, body);
+    }
+
+    /**
+     * Translate the newline separated text records. Empty line is ignored.
+     */
+    private void dispatchLines(ChannelHandlerContext ctx, FullHttpRequest msg, ByteBuf body) {
+        int accepted = 0;
+        int rejected = 0;
+        int index = body.readerIndex();
+        final int end = body.writerIndex();
+        while (index < end) {
+            int lf = body.indexOf(index, end, LF);
+            int next = lf < 0 ? end : lf + 1;
+            int last = lf < 0 ? end : lf;
+            if (last > index && body.getByte(last - 1) == CR) {
+                last--;
+            }
+            if (last > index) {
+                String[] params = text.translate(body.slice(index, last - index));
+                if (params != null && missions.add(params[0], params)) {
+                    accepted++;
+                } else {
+                    rejected++;
+                }
+            }
+            index = next;
+        }
+        response(ctx, msg, HttpResponseStatus.OK, accepted, rejected);
+    }
+
+    /**
+     * Count the records of the POST body without translating.
+     *
+     * @return Return the frame's record count, or the non-empty line count.
+     */
+    private static int count(FullHttpRequest msg) {
+        ByteBuf body = msg.content();
+        if (isBinary(msg)) {
+            return body.readableBytes() >= RecordFrames.HEADER_LENGTH ? body.getUnsignedShort(body.readerIndex() + 3) : 0;
+        }
+        int count = 0;
+        int index = body.readerIndex();
+        final int end = body.writerIndex();
+        while (index < end) {
+            int lf = body.indexOf(index, end, LF);
+            int last = lf < 0 ? end : lf;
+            if (last > index && !(last == index + 1 && body.getByte(index) == CR)) {
+                count++;
+            }
+            index = lf < 0 ? end : lf + 1;
+        }
+        return count;
+    }
+
+    private String[] translate(String uri) {
+        int index = uri.indexOf('?');
+        if (index < 0 || index + 1 >= uri.length()) {
+            LOG.info("The message data is null.");
+            return null;
+        }
+        String data = QueryStringDecoder.decodeComponent(uri.substring(index + 1), UTF_8);
+        ByteBuf buf = Unpooled.wrappedBuffer(data.getBytes(UTF_8));
+        try {
+            return text.translate(buf);
+        } finally {
+            buf.release();
+        }
+    }
+
+    private static boolean isBinary(FullHttpRequest msg) {
+        String contentType = msg.headers().get(HttpHeaderNames.CONTENT_TYPE);
+        return contentType != null && contentType.regionMatches(true, 0, HttpHeaderValues.APPLICATION_OCTET_STREAM.toString(), 0, HttpHeaderValues.APPLICATION_OCTET_STREAM.length());
+    }
+
+    /**
+     * Write the response. Keep the connection alive if the client required.
+     *
+     * @param rejected The rejected record count. -1 means unknown.
+     */
+    private void response(ChannelHandlerContext ctx, FullHttpRequest msg, HttpResponseStatus status, int accepted, int rejected) {
+        Map<String, Object> result = new HashMap<>();
+        result.put("accepted", accepted);
+        result.put("rejected", rejected);
+        FullHttpResponse response = new DefaultFullHttpResponse(HTTP_1_1, status, Unpooled.wrappedBuffer(JSON.toJSONString(result).getBytes(UTF_8)));
+        response.headers().set(HttpHeaderNames.CONTENT_TYPE, HttpHeaderValues.APPLICATION_JSON);
+        HttpUtil.setContentLength(response, response.content().readableBytes());
+        boolean keepAlive = HttpUtil.isKeepAlive(msg);
+        HttpUtil.setKeepAlive(response, keepAlive);
+        ChannelFuture future = ctx.writeAndFlush(response);
+        if (!keepAlive) {
+            future.addListener(ChannelFutureListener.CLOSE);
+        }
+    }
+}
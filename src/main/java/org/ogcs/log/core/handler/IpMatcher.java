@@ -16,11 +16,26 @@
 
 package org.ogcs.log.core.handler;
 
+import io.netty.util.NetUtil;
+import org.ogcs.log.config.OkraConfig;
+import org.ogcs.utilities.StringUtil;
+
+import java.net.Inet4Address;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Simple IP matcher. Use to filter report log info.
+ * <p>
+ * 规则为IP或CIDR网段(示例: 10.0.0.0/8, 192.168.1.1, fe80::/10), 使用最长前缀匹配.
+ * IPv4和IPv6规则分别保存在二进制前缀树(prefix trie)中, 匹配时直接使用地址的字节, 不做反向DNS解析.
+ * IPv4地址的匹配过程没有对象分配.
+ * <p>
+ * 修改规则时重建前缀树并整体替换, 匹配过程无锁. 支持运行时重新加载规则.
  *
  * @author TinyZ
  * @since 1.0
@@ -31,29 +46,240 @@ public class IpMatcher {
     /**
      * Default value. if the filter is empty.
      */
-    private boolean nuAccept = false;
-
-    private Map<String /* host */, Boolean /* accept */> filter;
+    private final boolean nuAccept;
+    /**
+     * The rules. CIDR => accept
+     */
+    private final Map<String /* cidr */, Boolean /* accept */> filter;
+    private volatile Trie ipv4;
+    private volatile Trie ipv6;
 
     public IpMatcher() {
-        this(new ConcurrentHashMap<>(), DEFAULT_ACCEPT);
+        this(Collections.emptyMap(), DEFAULT_ACCEPT);
     }
 
     public IpMatcher(Map<String, Boolean> filter, boolean nuAccept) {
-        this.filter = filter;
+        this.filter = new LinkedHashMap<>();
         this.nuAccept = nuAccept;
+        reload(filter);
+    }
+
+    /**
+     * Create IP matcher by the config's rules.
+     *
+     * @param config The Okra-LOG config.
+     * @return Return the IP matcher, null if there is no rule.
+     */
+    public static IpMatcher newMatcher(OkraConfig config) {
+        Map<String, Boolean> rules = new LinkedHashMap<>();
+        putRules(rules, config.getIpAccept(), true);
+        putRules(rules, config.getIpDeny(), false);
+        if (rules.isEmpty() && config.isIpDefaultAccept()) {
+            return null;
+        }
+        return new IpMatcher(rules, config.isIpDefaultAccept());
+    }
+
+    private static void putRules(Map<String, Boolean> rules, String cidrs, boolean accept) {
+        if (StringUtil.isEmpty(cidrs)) {
+            return;
+        }
+        for (String cidr : StringUtil.splitWithoutEmpty(cidrs, ',')) {
+            if (!StringUtil.isEmpty(cidr.trim())) {
+                rules.put(cidr.trim(), accept);
+            }
+        }
     }
 
+    /**
+     * Is accept the host.
+     *
+     * @param host The IP address literal. host name is not support.
+     * @return Return true if accept the host.
+     */
     public boolean accept(String host) {
-        Boolean accept = filter.get(host);
-        return accept == null ? nuAccept : accept;
+        byte[] address = NetUtil.createByteArrayFromIpAddressString(host);
+        return address == null ? nuAccept : accept(address);
+    }
+
+    public boolean accept(InetSocketAddress address) {
+        return address == null || address.getAddress() == null ? nuAccept : accept(address.getAddress());
+    }
+
+    public boolean accept(InetAddress address) {
+        if (address instanceof Inet4Address) {
+            //  Inet4Address's hash code is the big-endian IPv4 address, 不复制地址数组. 由IpMatcherTest#testInetAddress校验
+            return match(ipv4.lookup(address.hashCode()));
+        }
+        return accept(address.getAddress());
+    }
+
+    private boolean accept(byte[] address) {
+        return match(address.length == 4 ? ipv4.lookup(address) : ipv6.lookup(address));
+    }
+
+    private boolean match(int value) {
+        return value == Trie.NONE ? nuAccept : value == Trie.ACCEPT;
+    }
+
+    /**
+     * Add rule.
+     *
+     * @param cidr   The IP address or CIDR. example : 10.0.0.0/8
+     * @param accept Is accept.
+     */
+    public synchronized void add(String cidr, boolean accept) {
+        parse(cidr);
+        filter.put(cidr, accept);
+        rebuild();
+    }
+
+    public synchronized void remove(String cidr) {
+        if (filter.remove(cidr) != null) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Replace all rules.
+     *
+     * @param rules The new rules. CIDR => accept
+     * @throws IllegalArgumentException if any rule is invalid. the old rules will be keep.
+     */
+    public synchronized void reload(Map<String, Boolean> rules) {
+        for (String cidr : rules.keySet()) {
+            parse(cidr);
+        }
+        filter.clear();
+        filter.putAll(rules);
+        rebuild();
+    }
+
+    private void rebuild() {
+        Trie v4 = new Trie();
+        Trie v6 = new Trie();
+        for (Map.Entry<String, Boolean> entry : filter.entrySet()) {
+            Cidr cidr = parse(entry.getKey());
+            (cidr.address.length == 4 ? v4 : v6).insert(cidr.address, cidr.prefix, entry.getValue());
+        }
+        this.ipv4 = v4.compact();
+        this.ipv6 = v6.compact();
     }
 
-    public void add(String host, boolean accept) {
-        filter.put(host, accept);
+    private static Cidr parse(String cidr) {
+        int index = cidr.indexOf('/');
+        String ip = (index < 0 ? cidr : cidr.substring(0, index)).trim();
+        byte[] address = NetUtil.createByteArrayFromIpAddressString(ip);
+        if (address == null) {
+            throw new IllegalArgumentException("Invalid IP address : " + cidr);
+        }
+        int prefix = address.length * 8;
+        if (index >= 0) {
+            try {
+                prefix = Integer.parseInt(cidr.substring(index + 1).trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid CIDR : " + cidr);
+            }
+            if (prefix < 0 || prefix > address.length * 8) {
+                throw new IllegalArgumentException("Invalid CIDR : " + cidr);
+            }
+        }
+        return new Cidr(address, prefix);
     }
 
-    public void remove(String host) {
-        filter.remove(host);
+    private static final class Cidr {
+
+        private final byte[] address;
+        private final int prefix;
+
+        Cidr(byte[] address, int prefix) {
+            this.address = address;
+            this.prefix = prefix;
+        }
+    }
+
+    /**
+     * Array based binary prefix trie.
+     */
+    private static final class Trie {
+
+        static final byte NONE = 0;
+        static final byte ACCEPT = 1;
+        static final byte DENY = 2;
+
+        private int[] zero = new int[16];
+        private int[] one = new int[16];
+        private byte[] values = new byte[16];
+        private int size = 1;   //  node 0 is root.
+
+        void insert(byte[] address, int prefix, boolean accept) {
+            int node = 0;
+            for (int i = 0; i < prefix; i++) {
+                int b = bit(address, i);
+                int child = b == 0 ? zero[node] : one[node];
+                if (child == 0) {
+                    child = newNode();  // the arrays maybe grow
+                    (b == 0 ? zero : one)[node] = child;
+                }
+                node = child;
+            }
+            values[node] = accept ? ACCEPT : DENY;
+        }
+
+        private int newNode() {
+            if (size == values.length) {
+                zero = Arrays.copyOf(zero, size << 1);
+                one = Arrays.copyOf(one, size << 1);
+                values = Arrays.copyOf(values, size << 1);
+            }
+            return size++;
+        }
+
+        Trie compact() {
+            zero = Arrays.copyOf(zero, size);
+            one = Arrays.copyOf(one, size);
+            values = Arrays.copyOf(values, size);
+            return this;
+        }
+
+        /**
+         * Longest prefix match the IPv4 address.
+         */
+        int lookup(int address) {
+            int node = 0;
+            int value = values[0];
+            for (int i = 31; i >= 0; i--) {
+                node = ((address >>> i) & 1) == 0 ? zero[node] : one[node];
+                if (node == 0) {
+                    break;
+                }
+                if (values[node] != NONE) {
+                    value = values[node];
+                }
+            }
+            return value;
+        }
+
+        /**
+         * Longest prefix match the address.
+         */
+        int lookup(byte[] address) {
+            int node = 0;
+            int value = values[0];
+            for (int i = 0, bits = address.length * 8; i < bits; i++) {
+                node = bit(address, i) == 0 ? zero[node] : one[node];
+                if (node == 0) {
+                    break;
+                }
+                if (values[node] != NONE) {
+                    value = values[node];
+                }
+            }
+            return value;
+        }
+
+        private static int bit(byte[] address, int i) {
+            return (address[i >>> 3] >>> (7 - (i & 7))) & 1;
+        }
     }
 }
@@ -0,0 +1,56 @@
+/*
+ *     Copyright 2016-2026 TinyZ
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ogcs.log.core.handler;
+
+import com.lmax.disruptor.ExceptionHandler;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Disruptor 's ringBuffer exception handler.
+ * <p>
+ * 默认的FatalExceptionHandler会抛出异常终止消费者线程, 一个错误的批次导致后续所有日志无法写入.
+ * 这里记录错误, 未写入的批次写入死信文件并提交预写日志, 然后释放事件, 消费者继续处理下一个事件.
+ *
+ * @author TinyZ
+ * @date 2016-10-28.
+ */
+public class LogRecordExceptionHandler implements ExceptionHandler<LogRecordTask> {
+
+    private static final Logger LOG = LogManager.getLogger(LogRecordExceptionHandler.class);
+
+    @Override
+    public void handleEventException(Throwable ex, long sequence, LogRecordTask event) {
+        LOG.error("LogRecordTask error, sequence : " + sequence, ex);
+        if (event != null) {
+            try {
+                event.abort();
+            } catch (Throwable e) {
+                LOG.error("LogRecordTask release error, sequence : " + sequence, e);
+            }
+        }
+    }
+
+    @Override
+    public void handleOnStartException(Throwable ex) {
+        LOG.error("LogRecordTask consumer start error.", ex);
+    }
+
+    @Override
+    public void handleOnShutdownException(Throwable ex) {
+        LOG.error("LogRecordTask consumer shutdown error.", ex);
+    }
+}
@@ -20,18 +20,33 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.ogcs.app.Releasable;
 import org.ogcs.log.core.Struct;
+import org.ogcs.log.core.builder.RecordBatch;
 import org.ogcs.log.core.builder.Table;
+import org.ogcs.log.core.builder.TablePeriod;
+import org.ogcs.log.core.builder.TsvInputStream;
 import org.ogcs.log.util.MySQL;
 
+import java.sql.BatchUpdateException;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.sql.SQLWarning;
+import java.sql.Savepoint;
 import java.sql.Statement;
-import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 
 /**
  * Disruptor ringBuffer event.
  * 数据记录任务
+ * <p>
+ * 批次按数据包预算(okra.log.insert.maxPacket)拆分为多行INSERT语句 : 完整的N行语句和剩余行数的语句, 各自只准备一次.
+ * <p>
+ * 批次因数据错误(非法时间、超长字段、重复主键等)写入失败时, 在同一事务中通过保存点二分定位错误行,
+ * 提交其余的行, 错误行附带MySQL错误隔离到死信文件. 其他错误(连接断开、死锁等)整批回滚并交给重试调度.
+ * <p>
+ * 表的writer为LOAD时, 批次以TSV流的形式通过LOAD DATA LOCAL INFILE导入. LOCAL模式下数据错误只产生警告, 错误的行被转换后写入或跳过,
+ * 无法事后隔离. 开启隔离(okra.log.retry.isolate)时, 产生警告的批次回滚后按INSERT方式重新写入, 由保存点二分隔离错误行.
  *
  * @author TinyZ.
  * @date 2016-07-08.
@@ -40,15 +55,22 @@ public final class LogRecordTask implements Releasable {
 
     private static final Logger LOG = LogManager.getLogger(LogRecordTask.class);
     private Struct struct;
-    private List<String[]> list;
+    private RecordBatch batch;
 
     public LogRecordTask() {
         // no-op
     }
 
-    public void setValues(Struct struct, List<String[]> list) {
+    public void setValues(Struct struct, RecordBatch batch) {
         this.struct = struct;
-        this.list = list;
+        this.batch = batch;
+    }
+
+    /**
+     * @return Return the batch's log count.
+     */
+    public int size() {
+        return batch == null ? 0 : batch.size();
     }
 
     /**
@@ -56,49 +78,59 @@ public final class LogRecordTask implements Releasable {
      */
     public void record() {
         if (struct == null) throw new NullPointerException("struct");
-        if (list == null || list.isEmpty()) throw new IllegalStateException("list is Null or size is empty.");
+        if (batch == null || batch.isEmpty()) throw new IllegalStateException("batch is Null or size is empty.");
         Connection conn = null;
         PreparedStatement stat = null;
+        boolean committed = false;
         try {
             conn = struct.getBoard().getConnection();
             Table table = struct.getTable();
-            //  check table is exist.
-            if (!table.tableExist()) {
-                String tableCreateSQL = MySQL.createTableSQL(table);
+            //  整个批次使用同一个周期的表名和语句. 按日志时间路由的批次使用路由的周期
+            TablePeriod period = batch.getPeriod() != null ? batch.getPeriod() : table.period();
+            //  check table is exist. 日期后缀的表通常已由TableRotator提前创建
+            if (!period.isExist()) {
+                String tableCreateSQL = MySQL.createTableSQL(table, period.getName());
                 try (Statement statement = conn.createStatement()) {
                     statement.execute(tableCreateSQL);
-                    table.afterTableExist();
+                    table.afterTableExist(period);
                 } catch (Exception e) {
                     LOG.error("SQL ERROR : " + tableCreateSQL);
+                    //  周期的语句未准备, 批次交给重试调度
+                    throw new SQLException("Create table " + period.getName() + " failed.", e);
                 }
             }
             //  record log data.
             conn.setAutoCommit(false);
-            String query = table.prepareQuery();
-            stat = conn.prepareStatement(query);
-            int lastIndex = table.getFields().length + 1;
-            for (String[] params : list) {
-                for (int i = 1; i < params.length; i++) {
-                    stat.setObject(i, params[i]);
-                }
-                if (lastIndex > params.length) { // 补全SQL中缺少的参数为null
-                    for (int j = params.length; j < lastIndex; j++) {
-                        stat.setObject(j, null);
+            final long start = System.nanoTime();
+            Map<Integer, SQLException> invalid = null;
+            if (!table.isLoadData() || !load(conn, table, period)) {
+                try {
+                    insert(conn, table, period);
+                } catch (SQLException e) {
+                    if (!struct.getBoard().getConfig().isRetryIsolate() || !MySQL.isDataError(e)) {
+                        throw e;
                     }
+                    invalid = new TreeMap<>();
+                    stat = conn.prepareStatement(period.prepareQuery());
+                    isolate(conn, stat, e, invalid);
                 }
-                stat.addBatch();
             }
-            stat.executeBatch();
-        } catch (SQLException e) {
-            try {
-                if (conn != null)
-                    conn.rollback();
-                struct.addAll(list);
-            } catch (SQLException e1) {
-                LOG.warn("Query rollback error.", e);
+            conn.commit();
+            committed = true;
+            struct.recorded(System.nanoTime() - start);
+            if (invalid != null) {
+                LOG.warn("Quarantine " + invalid.size() + " invalid logs of table : " + table.getName());
+                for (Map.Entry<Integer, SQLException> entry : invalid.entrySet()) {
+                    struct.quarantine(batch.row(entry.getKey()), MySQL.errorMessage(entry.getValue()));
+                }
             }
+        } catch (SQLException e) {
+            rollback(conn);
             LOG.warn("SQL query error.", e);
         } catch (Exception e) {
+            if (!committed) {
+                rollback(conn);
+            }
             LOG.error("Log record logic error.", e);
         } finally {
             try {
@@ -112,17 +144,171 @@ public final class LogRecordTask implements Releasable {
             } catch (SQLException e) {
                 LOG.error("Database connection close error.", e);
             }
+            //  事务提交后才截断预写日志. 未提交的批次(包括逻辑错误)交给重试调度, 不在release()中回收
+            if (committed) {
+                struct.commit(batch);
+            } else {
+                RecordBatch failed = batch;
+                batch = null;
+                struct.failed();
+                struct.retry(failed);
+            }
             // release
             release();
         }
     }
 
+    private void rollback(Connection conn) {
+        try {
+            if (conn != null)
+                conn.rollback();
+        } catch (SQLException e) {
+            LOG.warn("Query rollback error.", e);
+        }
+    }
+
+    /**
+     * Stream the batch by LOAD DATA LOCAL INFILE. The invalid and duplicate rows are coerced or skipped by MySQL with warnings.
+     *
+     * @return Return false if the load is rolled back because of warnings, the batch should be inserted and isolated.
+     */
+    private boolean load(Connection conn, Table table, TablePeriod period) throws SQLException {
+        try (Statement statement = conn.createStatement()) {
+            statement.unwrap(com.mysql.jdbc.Statement.class).setLocalInfileInputStream(new TsvInputStream(batch));
+            int count = statement.executeUpdate(period.loadQuery());
+            SQLWarning warning = statement.getWarnings();
+            if (count >= batch.size() && warning == null) {
+                return true;
+            }
+            if (struct.getBoard().getConfig().isRetryIsolate()) {
+                LOG.warn("LOAD DATA warning, insert and isolate " + batch.size() + " logs of table : " + table.getName() + ", warning : " + warning);
+                conn.rollback();
+                return false;
+            }
+            LOG.warn("LOAD DATA skip " + (batch.size() - count) + " logs of table : " + table.getName() + ", warning : " + warning);
+            return true;
+        }
+    }
+
+    /**
+     * Insert the batch by multi-row statements. The rows per statement is limited by the packet budget.
+     */
+    private void insert(Connection conn, Table table, TablePeriod period) throws SQLException {
+        final int size = batch.size();
+        final int columns = batch.binder().size();
+        final String query = period.prepareQuery();
+        final int rows = MySQL.rowsPerStatement(struct.getBoard().getConfig().getInsertMaxPacket(), query.length(), columns, batch.getMaxRowChars());
+        if (rows <= 1 || size <= 1) {
+            try (PreparedStatement stat = conn.prepareStatement(query)) {
+                execute(stat, 0, size);
+            }
+            return;
+        }
+        int from = 0;
+        final int full = size - size % rows;
+        if (full > 0) {
+            try (PreparedStatement stat = conn.prepareStatement(period.prepareQuery(table, rows))) {
+                for (; from < full; from += rows) {
+                    executeRows(stat, from, rows, columns);
+                }
+            }
+        }
+        if (from < size) {
+            try (PreparedStatement stat = conn.prepareStatement(period.prepareQuery(table, size - from))) {
+                executeRows(stat, from, size - from, columns);
+            }
+        }
+    }
+
+    private void executeRows(PreparedStatement stat, int from, int rows, int columns) throws SQLException {
+        for (int i = 0; i < rows; i++) {
+            batch.bind(stat, from + i, i * columns);
+        }
+        stat.executeUpdate();
+    }
+
+    private void execute(PreparedStatement stat, int from, int to) throws SQLException {
+        stat.clearBatch();
+        for (int i = from; i < to; i++) {
+            batch.bind(stat, i);
+            stat.addBatch();
+        }
+        stat.executeBatch();
+    }
+
+    /**
+     * Find the invalid rows of the failed batch. The valid rows are executed in the current transaction.
+     *
+     * @param conn    The connection.
+     * @param stat    The prepared statement.
+     * @param e       The batch's data error.
+     * @param invalid The invalid rows and errors.
+     * @throws SQLException if a non data error occurs.
+     */
+    private void isolate(Connection conn, PreparedStatement stat, SQLException e, Map<Integer, SQLException> invalid) throws SQLException {
+        final int size = batch.size();
+        if (e instanceof BatchUpdateException) {
+            int[] counts = ((BatchUpdateException) e).getUpdateCounts();
+            //  驱动逐行执行且出错后继续(continueBatchOnError), 成功的行仍在事务中, 只需逐行确认失败的行
+            if (counts != null && counts.length == size) {
+                boolean found = false;
+                for (int i = 0; i < size; i++) {
+                    if (counts[i] == Statement.EXECUTE_FAILED) {
+                        found = true;
+                        bisect(conn, stat, i, i + 1, invalid);
+                    }
+                }
+                if (found) {
+                    return;
+                }
+            }
+        }
+        conn.rollback();
+        if (size == 1) {
+            invalid.put(0, e);
+            return;
+        }
+        int mid = size >>> 1;
+        bisect(conn, stat, 0, mid, invalid);
+        bisect(conn, stat, mid, size, invalid);
+    }
+
+    private void bisect(Connection conn, PreparedStatement stat, int from, int to, Map<Integer, SQLException> invalid) throws SQLException {
+        Savepoint savepoint = conn.setSavepoint();
+        try {
+            execute(stat, from, to);
+            conn.releaseSavepoint(savepoint);
+        } catch (SQLException e) {
+            if (!MySQL.isDataError(e)) {
+                throw e;
+            }
+            conn.rollback(savepoint);
+            if (to - from <= 1) {
+                invalid.put(from, e);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            bisect(conn, stat, from, mid, invalid);
+            bisect(conn, stat, mid, to, invalid);
+        }
+    }
+
+    /**
+     * Dead-letter the unrecorded batch after the consumer is failed. The batch's write-ahead log sequences are committed.
+     */
+    public void abort() {
+        if (struct != null && batch != null) {
+            struct.deadLetter(batch);
+        }
+        release();
+    }
+
     @Override
     public void release() {
-        struct = null;
-        if (list != null) {
-            list.clear();
-            list = null;
+        if (struct != null && batch != null) {
+            struct.recycle(batch);
         }
+        struct = null;
+        batch = null;
     }
 }
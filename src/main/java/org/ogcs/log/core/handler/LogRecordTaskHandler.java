@@ -17,24 +17,52 @@
 package org.ogcs.log.core.handler;
 
 import com.lmax.disruptor.EventHandler;
+import com.lmax.disruptor.WorkHandler;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.ogcs.log.core.RecordShard;
 
 /**
  * Disruptor 's ringBuffer event handler.
+ * <p>
+ * 单消费者模式作为{@link EventHandler}, WorkerPool模式作为{@link WorkHandler}, 每个事件只由一个WorkHandler处理.
+ * WorkerPool模式每个WorkHandler需要独立的实例.
  */
-public class LogRecordTaskHandler implements EventHandler<LogRecordTask> {
+public class LogRecordTaskHandler implements EventHandler<LogRecordTask>, WorkHandler<LogRecordTask> {
 
     private static final Logger LOG = LogManager.getLogger(LogRecordTaskHandler.class);
 
+    /**
+     * The shard which the handler belong to. record the latency statistics.
+     */
+    private final RecordShard shard;
+
+    public LogRecordTaskHandler() {
+        this(null);
+    }
+
+    public LogRecordTaskHandler(RecordShard shard) {
+        this.shard = shard;
+    }
+
     @Override
     public void onEvent(LogRecordTask event, long sequence, boolean endOfBatch) {
+        onEvent(event);
+    }
+
+    @Override
+    public void onEvent(LogRecordTask event) {
+        final long start = System.nanoTime();
+        final int size = event.size();
         try {
             event.record();
         } catch (Exception e) {
             LOG.error("LogRecordTask Error : ", e);
         } finally {
             event.release();
+            if (shard != null) {
+                shard.recorded(size, System.nanoTime() - start);
+            }
         }
     }
 }
@@ -0,0 +1,124 @@
+/*
+ *     Copyright 2016-2026 TinyZ
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ogcs.log.core.handler;
+
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.WireFormat;
+import io.netty.buffer.ByteBuf;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.ogcs.log.core.builder.Field;
+import org.ogcs.log.core.builder.RecordBinder;
+import org.ogcs.log.core.builder.Table;
+import org.ogcs.log.core.parser.StructParser;
+import org.ogcs.log.util.ObjectPool;
+import org.ogcs.log.util.ProtoUtil;
+import org.ogcs.log.util.TimeV8Util;
+
+import java.io.IOException;
+
+import static org.ogcs.log.util.MySQL.DataType.DATE;
+import static org.ogcs.log.util.ProtoUtil.ProtoType.*;
+
+/**
+ * Translate protobuf binary message to log params.
+ * <p>
+ * The message struct see {@link ProtoUtil}. The result params's element 0 is table name,
+ * and element (i + 1) is the table's field i. Absent field's value is null.
+ *
+ * @author TinyZ
+ * @date 2016-10-18.
+ * @since 1.0
+ */
+public final class ProtobufRecordTranslator implements Translator<ByteBuf, String[]> {
+
+    private static final Logger LOG = LogManager.getLogger(ProtobufRecordTranslator.class);
+
+    private static final int TABLE_TAG = (ProtoUtil.TABLE_FIELD_NUMBER << 3) | WireFormat.WIRETYPE_LENGTH_DELIMITED;
+
+    private final StructParser<Table> parser;
+
+    public ProtobufRecordTranslator(StructParser<Table> parser) {
+        if (parser == null) throw new NullPointerException("parser");
+        this.parser = parser;
+    }
+
+    @Override
+    public String[] translate(ByteBuf msg) {
+        if (msg.readableBytes() <= 0) {
+            return null;
+        }
+        CodedInputStream input = msg.hasArray()
+                ? CodedInputStream.newInstance(msg.array(), msg.arrayOffset() + msg.readerIndex(), msg.readableBytes())
+                : CodedInputStream.newInstance(msg.nioBuffer());
+        try {
+            if (input.readTag() != TABLE_TAG) {
+                LOG.error("The first field of protobuf message must be table name.");
+                return null;
+            }
+            String tableName = input.readString();
+            Table<?> table = parser.getTable(tableName);
+            if (table == null) {
+                LOG.error("Unknown table [ " + tableName + " ].");
+                return null;
+            }
+            Field[] fields = table.getFields();
+            //  字段的proto类型随表版本编译在binder中
+            RecordBinder binder = table.binder();
+            ObjectPool<String[]> slots = table.getSlots();
+            String[] params = slots != null ? slots.borrow() : new String[fields.length + 1];
+            params[0] = table.getName();
+            int tag;
+            while ((tag = input.readTag()) != 0) {
+                int index = WireFormat.getTagFieldNumber(tag) - ProtoUtil.TABLE_FIELD_NUMBER;
+                if (index < 1 || index > fields.length
+                        || (tag & 0x7) != ProtoUtil.wireType(binder.protoType(index - 1))) {
+                    input.skipField(tag);   //  unknown field
+                    continue;
+                }
+                params[index] = readValue(input, fields[index - 1], binder.protoType(index - 1));
+            }
+            return params;
+        } catch (IOException e) {
+            LOG.error("Invalid protobuf message.", e);
+            return null;
+        }
+    }
+
+    private static String readValue(CodedInputStream input, Field field, String type) throws IOException {
+        switch (type) {
+            case SINT32:
+                return String.valueOf(input.readSInt32());
+            case SINT64:
+                return String.valueOf(input.readSInt64());
+            case UINT32:
+                return String.valueOf(input.readUInt32() & 0xFFFFFFFFL);
+            case UINT64:
+                return Long.toUnsignedString(input.readUInt64());
+            case INT64: {
+                long epochSecond = input.readInt64();
+                return DATE.equalsIgnoreCase(field.getType()) ? TimeV8Util.date(epochSecond) : TimeV8Util.dateTime(epochSecond);
+            }
+            case FLOAT:
+                return String.valueOf(input.readFloat());
+            case DOUBLE:
+                return String.valueOf(input.readDouble());
+            default:    //  STRING|BYTES
+                return input.readString();
+        }
+    }
+}
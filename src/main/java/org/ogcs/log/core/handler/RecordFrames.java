@@ -0,0 +1,164 @@
+/*
+ *     Copyright 2016-2026 TinyZ
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ogcs.log.core.handler;
+
+import io.netty.buffer.ByteBuf;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.ogcs.log.core.MissionBoard;
+
+import java.util.zip.CRC32;
+
+/**
+ * Multi-record frame.
+ * <p>
+ * 一个数据帧携带多条日志, 减少每条日志的系统调用和pipeline开销. 日志内容格式由{@link Translator}决定(文本或protobuf).
+ * <pre>
+ * +---------+---------+---------+------------+--------------------------------------+
+ * |  magic  | version |  count  |  checksum  |  records                             |
+ * | 2 bytes | 1 byte  | 2 bytes |  4 bytes   |  (length(2 bytes) + record) * count  |
+ * +---------+---------+---------+------------+--------------------------------------+
+ * </pre>
+ * checksum : records部分的CRC32值. 所有整数均为大端序(Big-Endian).
+ *
+ * @author TinyZ
+ * @date 2016-10-19.
+ * @since 1.0
+ */
+public final class RecordFrames {
+
+    private static final Logger LOG = LogManager.getLogger(RecordFrames.class);
+
+    /**
+     * Frame magic number. "OL"
+     */
+    public static final int MAGIC = 0x4F4C;
+    public static final int VERSION = 1;
+    public static final int HEADER_LENGTH = 9;
+    /**
+     * The max record count(and single record length) of the frame.
+     */
+    public static final int MAX_RECORD = 0xFFFF;
+
+    private RecordFrames() {
+        //no-op
+    }
+
+    /**
+     * Verify the frame header and checksum.
+     *
+     * @param frame The frame.
+     * @return Return the record count if the frame is valid, -1 otherwise.
+     */
+    public static int verify(ByteBuf frame) {
+        int index = frame.readerIndex();
+        if (frame.readableBytes() < HEADER_LENGTH) {
+            LOG.info("The frame length less than header length.");
+            return -1;
+        }
+        if (frame.getUnsignedShort(index) != MAGIC || frame.getUnsignedByte(index + 2) != VERSION) {
+            LOG.info("Unknown frame magic or version.");
+            return -1;
+        }
+        int checksum = checksum(frame, index + HEADER_LENGTH, frame.readableBytes() - HEADER_LENGTH);
+        if (checksum != frame.getInt(index + 5)) {
+            LOG.info("The frame checksum is wrong.");
+            return -1;
+        }
+        return frame.getUnsignedShort(index + 3);
+    }
+
+    /**
+     * Translate the frame's records and add them to mission board.
+     *
+     * @param frame      The frame.
+     * @param translator The record translator.
+     * @param board      The mission board.
+     * @return Return the accepted record count, -1 if the frame is invalid.
+     */
+    public static int dispatch(ByteBuf frame, Translator<ByteBuf, String[]> translator, MissionBoard board) {
+        int count = verify(frame);
+        if (count < 0) {
+            return -1;
+        }
+        int accepted = 0;
+        int index = frame.readerIndex() + HEADER_LENGTH;
+        int end = frame.writerIndex();
+        for (int i = 0; i < count; i++) {
+            if (index + 2 > end) {
+                LOG.info("The frame is truncated. count : " + count + ", read : " + i);
+                break;
+            }
+            int length = frame.getUnsignedShort(index);
+            index += 2;
+            if (index + length > end) {
+                LOG.info("The frame is truncated. count : " + count + ", read : " + i);
+                break;
+            }
+            String[] params = translator.translate(frame.slice(index, length));
+            index += length;
+            if (params != null && board.add(params[0], params)) {
+                accepted++;
+            }
+        }
+        return accepted;
+    }
+
+    /**
+     * Write frame header. The records must be written at [index + {@link #HEADER_LENGTH}, writerIndex).
+     *
+     * @param frame The frame buffer.
+     * @param index The frame start index.
+     * @param count The record count.
+     */
+    public static void writeHeader(ByteBuf frame, int index, int count) {
+        if (count > MAX_RECORD) throw new IllegalArgumentException("count : " + count);
+        frame.setShort(index, MAGIC);
+        frame.setByte(index + 2, VERSION);
+        frame.setShort(index + 3, count);
+        frame.setInt(index + 5, checksum(frame, index + HEADER_LENGTH, frame.writerIndex() - index - HEADER_LENGTH));
+    }
+
+    /**
+     * Encode records to frame.
+     *
+     * @param out     The output buffer.
+     * @param records The records.
+     * @return Return the output buffer.
+     */
+    public static ByteBuf encode(ByteBuf out, byte[]... records) {
+        int index = out.writerIndex();
+        out.writeZero(HEADER_LENGTH);
+        for (byte[] record : records) {
+            if (record.length > MAX_RECORD) throw new IllegalArgumentException("record length : " + record.length);
+            out.writeShort(record.length);
+            out.writeBytes(record);
+        }
+        writeHeader(out, index, records.length);
+        return out;
+    }
+
+    private static int checksum(ByteBuf buf, int index, int length) {
+        CRC32 crc32 = new CRC32();
+        if (buf.hasArray()) {
+            crc32.update(buf.array(), buf.arrayOffset() + index, length);
+        } else {
+            crc32.update(buf.nioBuffer(index, length));
+        }
+        return (int) crc32.getValue();
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ *     Copyright 2016-2026 TinyZ
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ogcs.log.core.handler;
+
+import io.netty.channel.ChannelHandler.Sharable;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.net.InetSocketAddress;
+
+/**
+ * Filter connection by host(ip) with TCP protocol. The denied connection will be closed when it's active.
+ *
+ * @author TinyZ.
+ * @date 2016-10-20.
+ */
+@Sharable
+public final class TcpProtocolHandler extends ChannelInboundHandlerAdapter implements Filter<ChannelHandlerContext> {
+
+    private static final Logger LOG = LogManager.getLogger(TcpProtocolHandler.class);
+
+    private IpMatcher matcher;
+
+    public TcpProtocolHandler(IpMatcher matcher) {
+        this.matcher = matcher;
+    }
+
+    @Override
+    public void channelActive(ChannelHandlerContext ctx) throws Exception {
+        if (filter(ctx)) {
+            InetSocketAddress sender = (InetSocketAddress) ctx.channel().remoteAddress();
+            LOG.info("Access denied for host(IP) : [" + sender.getAddress().getHostAddress() + ":" + sender.getPort() + "].");
+            ctx.close();
+            return;
+        }
+        super.channelActive(ctx);
+    }
+
+    @Override
+    public boolean filter(ChannelHandlerContext ctx) {
+        InetSocketAddress address = (InetSocketAddress) ctx.channel().remoteAddress();
+        return matcher != null && !matcher.accept(address);
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ *     Copyright 2016-2026 TinyZ
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ogcs.log.core.handler;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandler.Sharable;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.SimpleChannelInboundHandler;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.ogcs.log.core.MissionBoard;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Record the multi-record frame received by TCP connection.
+ * <p>
+ * 当任务版的日志队列或者Disruptor的ringBuffer超过高水位线时, 关闭连接的自动读取(auto-read),
+ * 直到低于低水位线时重新开启. 数据保留在发送端和TCP缓冲区中, 由TCP流量控制反压发送端, 不丢失数据.
+ *
+ * @author TinyZ
+ * @date 2016-10-20.
+ */
+@Sharable
+public class TcpRecordHandler extends SimpleChannelInboundHandler<ByteBuf> {
+
+    private static final Logger LOG = LogManager.getLogger(TcpRecordHandler.class);
+    /**
+     * The interval to check the mission board's water mark after pause read.
+     */
+    private static final long RESUME_CHECK_INTERVAL = 10L;
+
+    private final MissionBoard missions;
+    private final Translator<ByteBuf, String[]> translator;
+
+    public TcpRecordHandler(MissionBoard missions, Translator<ByteBuf, String[]> translator) {
+        if (missions == null) throw new NullPointerException("missions");
+        if (translator == null) throw new NullPointerException("translator");
+        this.missions = missions;
+        this.translator = translator;
+    }
+
+    @Override
+    protected void channelRead0(ChannelHandlerContext ctx, ByteBuf msg) throws Exception {
+        if (RecordFrames.dispatch(msg, translator, missions) < 0) {
+            LOG.warn("Invalid frame, close connection : " + ctx.channel());
+            ctx.close();
+            return;
+        }
+        if (ctx.channel().config().isAutoRead() && missions.isOverloaded()) {
+            ctx.channel().config().setAutoRead(false);
+            if (LOG.isInfoEnabled())
+                LOG.info("Mission board is overloaded, pause read : " + ctx.channel());
+            scheduleResume(ctx);
+        }
+    }
+
+    private void scheduleResume(final ChannelHandlerContext ctx) {
+        ctx.executor().schedule(() -> {
+            if (!ctx.channel().isActive()) {
+                return;
+            }
+            if (missions.isUnderLowWaterMark()) {
+                ctx.channel().config().setAutoRead(true);
+                if (LOG.isInfoEnabled())
+                    LOG.info("Mission board is under low water mark, resume read : " + ctx.channel());
+            } else {
+                scheduleResume(ctx);
+            }
+        }, RESUME_CHECK_INTERVAL, TimeUnit.MILLISECONDS);
+    }
+}
@@ -0,0 +1,204 @@
+/*
+ *     Copyright 2016-2026 TinyZ
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ogcs.log.core.handler;
+
+import io.netty.buffer.ByteBuf;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.ogcs.log.core.builder.Table;
+import org.ogcs.log.core.parser.StructParser;
+import org.ogcs.log.util.ObjectPool;
+import org.ogcs.utilities.StringUtil;
+
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Translate UTF-8 text log message to log params.
+ * <p>
+ * Example : log_money|2016-06-24|openid|0|105|15|100|1000
+ * <p>
+ * 直接在{@link ByteBuf}上扫描分隔符, 不生成整条消息的字符串. 表名通过预先建立的字节查找表匹配(忽略大小写),
+ * 不需要对每条日志生成表名字符串并转换小写. 字段值直接从对应的字节区间解码.
+ * 分隔符不是ASCII字符时, 退化为先解码字符串再拆分. 日志参数数组从表的对象池借用.
+ *
+ * @author TinyZ
+ * @date 2016-10-19.
+ * @since 1.0
+ */
+public final class TextRecordTranslator implements Translator<ByteBuf, String[]> {
+
+    private static final Logger LOG = LogManager.getLogger(TextRecordTranslator.class);
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final StructParser<Table> parser;
+    private final char separator;
+    private volatile TableLookup lookup;
+
+    public TextRecordTranslator(StructParser<Table> parser, char separator) {
+        if (parser == null) throw new NullPointerException("parser");
+        this.parser = parser;
+        this.separator = separator;
+    }
+
+    @Override
+    public String[] translate(ByteBuf msg) {
+        if (msg.readableBytes() <= 0) {
+            return null;
+        }
+        if (separator > 0x7F) {
+            return translate(msg.toString(UTF_8));
+        }
+        final byte sep = (byte) separator;
+        final int start = msg.readerIndex();
+        final int end = msg.writerIndex();
+        int index = msg.indexOf(start, end, sep);
+        if (index < 0) {
+            index = end;
+        }
+        Table<?> table = lookup().get(msg, start, index);
+        if (table == null) {
+            LOG.error("Unknown table [ " + msg.toString(start, index - start, UTF_8) + " ], msg : " + msg.toString(UTF_8));
+            return null;
+        }
+        final int length = table.getFields().length + 1;
+        final ObjectPool<String[]> slots = table.getSlots();
+        String[] params = slots != null ? slots.borrow() : new String[length];
+        params[0] = table.getName();
+        int count = 1;
+        while (index < end) {   //  index is the separator's index
+            int from = index + 1;
+            if (from >= end) {  //  end with separator
+                break;
+            }
+            index = msg.indexOf(from, end, sep);
+            if (index < 0) {
+                index = end;
+            }
+            if (count >= length) {
+                count++;
+                break;
+            }
+            params[count++] = index == from ? "" : msg.toString(from, index - from, UTF_8);
+        }
+        if (count != length) {
+            LOG.error("[msg] log param element size(" + count + ") not equals Fields size(" + length + "), msg : " + msg.toString(UTF_8));
+            if (slots != null) {
+                Arrays.fill(params, null);
+                slots.release(params);
+            }
+            return null;
+        }
+        return params;
+    }
+
+    private String[] translate(String data) {
+        String[] split = StringUtil.split(data, separator);
+        Table table = parser.getTable(split[0]);
+        if (table == null) {
+            LOG.error("Unknown table [ " + split[0] + " ], msg : " + data);
+            return null;
+        }
+        if (table.getFields().length + 1 != split.length) {
+            LOG.error("[msg] log param element size(" + split.length + ") less than Fields size(" + (table.getFields().length + 1) + "), msg : " + data);
+            return null;
+        }
+        return split;
+    }
+
+    /**
+     * Get the table lookup. Rebuild it when the parser's tables is replaced.
+     */
+    private TableLookup lookup() {
+        Map<String, Table> tables = parser.getAll();
+        TableLookup tl = this.lookup;
+        if (tl == null || tl.tables != tables) {
+            tl = new TableLookup(tables);
+            this.lookup = tl;
+        }
+        return tl;
+    }
+
+    /**
+     * Open addressing hash table. Find table by the ASCII case insensitive name bytes without allocation.
+     */
+    private static final class TableLookup {
+
+        private final Map<String, Table> tables;
+        private final byte[][] names;
+        private final Table[] values;
+        private final int mask;
+
+        TableLookup(Map<String, Table> tables) {
+            this.tables = tables;
+            int capacity = Integer.highestOneBit(Math.max(tables.size(), 1) * 4 - 1) << 1;
+            this.names = new byte[capacity][];
+            this.values = new Table[capacity];
+            this.mask = capacity - 1;
+            for (Map.Entry<String, Table> entry : tables.entrySet()) {
+                byte[] name = entry.getKey().toLowerCase().getBytes(UTF_8);
+                int i = hash(name) & mask;
+                while (names[i] != null) {
+                    i = (i + 1) & mask;
+                }
+                names[i] = name;
+                values[i] = entry.getValue();
+            }
+        }
+
+        Table get(ByteBuf buf, int start, int end) {
+            int h = 0;
+            for (int i = start; i < end; i++) {
+                h = 31 * h + lower(buf.getByte(i));
+            }
+            int i = h & mask;
+            byte[] name;
+            while ((name = names[i]) != null) {
+                if (equals(name, buf, start, end)) {
+                    return values[i];
+                }
+                i = (i + 1) & mask;
+            }
+            return null;
+        }
+
+        private static boolean equals(byte[] name, ByteBuf buf, int start, int end) {
+            if (name.length != end - start) {
+                return false;
+            }
+            for (int i = 0; i < name.length; i++) {
+                if (name[i] != lower(buf.getByte(start + i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static int hash(byte[] name) {
+            int h = 0;
+            for (byte b : name) {
+                h = 31 * h + b;
+            }
+            return h;
+        }
+
+        private static byte lower(byte b) {
+            return (b >= 'A' && b <= 'Z') ? (byte) (b + 32) : b;
+        }
+    }
+}
@@ -44,16 +44,31 @@ public final class UdpProtocolHandler
     private static final Logger LOG = LogManager.getLogger(UdpProtocolHandler.class);
 
     private IpMatcher matcher;
+    /**
+     * Pass through the datagram content as binary message, not translate to string.
+     */
+    private boolean binary;
 
     public UdpProtocolHandler(IpMatcher matcher) {
+        this(matcher, false);
+    }
+
+    public UdpProtocolHandler(IpMatcher matcher, boolean binary) {
         this.matcher = matcher;
+        this.binary = binary;
     }
 
     @Override
     protected void decode(ChannelHandlerContext ctx, DatagramPacket msg, List<Object> out) throws Exception {
         if (filter(msg)) {
             InetSocketAddress sender = msg.sender();
-            LOG.info("Access denied for host(IP) : [" + sender.getHostName() + ":" + sender.getPort() + "].");
+            LOG.info("Access denied for host(IP) : [" + sender.getAddress().getHostAddress() + ":" + sender.getPort() + "].");
+            return;
+        }
+        if (binary) {
+            if (msg.content().isReadable()) {
+                out.add(msg.content().retain());
+            }
             return;
         }
         String data = translate(msg);
@@ -66,7 +81,7 @@ public final class UdpProtocolHandler
 
     @Override
     public boolean filter(DatagramPacket msg) {
-        return matcher != null && !matcher.accept(msg.sender().getHostName());
+        return matcher != null && !matcher.accept(msg.sender());
     }
 
     @Override
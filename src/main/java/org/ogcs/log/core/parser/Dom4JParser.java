@@ -175,6 +175,7 @@ public class Dom4JParser implements StructParser<Table> {
                 if (!arrayField.isEmpty()) {
                     final F[] fAry = (F[]) Array.newInstance(clzOfField, arrayField.size());
                     table.setFields(arrayField.toArray(fAry));
+                    table.compile();
                 }
                 tables.put(table.getName().toLowerCase(), table);
             }
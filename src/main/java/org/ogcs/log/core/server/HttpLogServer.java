@@ -25,11 +25,13 @@ import io.netty.handler.codec.http.HttpServerCodec;
 import org.ogcs.log.core.MissionBoard;
 import org.ogcs.log.core.handler.HttpProtocolHandler;
 import org.ogcs.log.core.handler.IpMatcher;
-import org.ogcs.log.core.handler.LogRecordHandler;
+import org.ogcs.log.core.handler.HttpRecordHandler;
 import org.ogcs.netty.impl.TcpProtocolServer;
 
 /**
  * HTTP protocol.
+ * <p>
+ * 支持GET单条上报和POST批量上报, 连接支持keep-alive. 详见{@link HttpRecordHandler}.
  *
  * @author TinyZ.
  * @since 1.0
@@ -51,14 +53,17 @@ public class HttpLogServer extends TcpProtocolServer {
 
     @Override
     protected ChannelHandler newChannelInitializer() {
+        final int maxContentLength = board.getConfig().getHttpMaxContentLength();
+        final ChannelHandler protocolHandler = new HttpProtocolHandler(ipMatcher);
+        final ChannelHandler recordHandler = new HttpRecordHandler(board);
         return new ChannelInitializer<SocketChannel>() {
             @Override
             protected void initChannel(SocketChannel ch) throws Exception {
                 ChannelPipeline cp = ch.pipeline();
                 cp.addLast("codec", new HttpServerCodec());
-                cp.addLast("aggregator", new HttpObjectAggregator(1048576));
-                cp.addLast("ipMatcher", new HttpProtocolHandler(ipMatcher));
-                cp.addLast("handler", new LogRecordHandler(board));
+                cp.addLast("aggregator", new HttpObjectAggregator(maxContentLength));
+                cp.addLast("ipMatcher", protocolHandler);
+                cp.addLast("handler", recordHandler);
             }
         };
     }
@@ -0,0 +1,74 @@
+/*
+ *     Copyright 2016-2026 TinyZ
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ogcs.log.core.server;
+
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.handler.codec.LengthFieldBasedFrameDecoder;
+import org.ogcs.log.core.MissionBoard;
+import org.ogcs.log.core.handler.IpMatcher;
+import org.ogcs.log.core.handler.TcpProtocolHandler;
+import org.ogcs.log.core.handler.TcpRecordHandler;
+import org.ogcs.netty.impl.TcpProtocolServer;
+
+/**
+ * Persistent TCP protocol.
+ * <p>
+ * The long-lived connection send length-prefixed frames. Each frame carry a batch of records.
+ * <pre>
+ * +----------------+-------------------------------------------+
+ * | length(4 bytes)| multi-record frame (see RecordFrames)      |
+ * +----------------+-------------------------------------------+
+ * </pre>
+ *
+ * @author TinyZ.
+ * @date 2016-10-20.
+ */
+public class TcpLogServer extends TcpProtocolServer {
+
+    private MissionBoard board;
+    private IpMatcher ipMatcher;
+
+    public TcpLogServer(int port, MissionBoard board) {
+        this(port, board, null);
+    }
+
+    public TcpLogServer(int port, MissionBoard board, IpMatcher filter) {
+        if (board == null) throw new NullPointerException("board");
+        setPort(port);
+        this.board = board;
+        this.ipMatcher = filter;
+    }
+
+    @Override
+    protected ChannelHandler newChannelInitializer() {
+        final ChannelHandler protocolHandler = new TcpProtocolHandler(ipMatcher);
+        final ChannelHandler recordHandler = new TcpRecordHandler(board, board.getTranslator());
+        final int maxFrameLength = board.getConfig().getTcpMaxFrameLength();
+        return new ChannelInitializer<SocketChannel>() {
+            @Override
+            protected void initChannel(SocketChannel ch) throws Exception {
+                ChannelPipeline cp = ch.pipeline();
+                cp.addLast("ipMatcher", protocolHandler);
+                cp.addLast("frameDecoder", new LengthFieldBasedFrameDecoder(maxFrameLength, 0, 4, 0, 4));
+                cp.addLast("handler", recordHandler);
+            }
+        };
+    }
+}
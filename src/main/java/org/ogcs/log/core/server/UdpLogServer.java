@@ -16,26 +16,54 @@
 
 package org.ogcs.log.core.server;
 
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.Channel;
 import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
 import io.netty.channel.ChannelPipeline;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.FixedRecvByteBufAllocator;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollChannelOption;
+import io.netty.channel.epoll.EpollDatagramChannel;
+import io.netty.channel.epoll.EpollEventLoopGroup;
 import io.netty.channel.socket.DatagramChannel;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 import org.ogcs.log.core.MissionBoard;
+import org.ogcs.log.core.handler.BinaryRecordHandler;
+import org.ogcs.log.core.handler.FramedRecordHandler;
 import org.ogcs.log.core.handler.IpMatcher;
 import org.ogcs.log.core.handler.UdpProtocolHandler;
 import org.ogcs.log.core.handler.LogRecordHandler;
 import org.ogcs.netty.impl.UdpProtocol;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * Okra-LOG server.
+ * <p>
+ * 开启epoll模式时(仅Linux), 使用Netty的native epoll transport, 以SO_REUSEPORT绑定多个socket到同一端口,
+ * 每个socket独占一个event loop线程, 由内核在多个socket之间负载均衡数据包.
  *
  * @author TinyZ.
  * @date 2016-07-05.
  */
 public class UdpLogServer extends UdpProtocol {
 
+    private static final Logger LOG = LogManager.getLogger(UdpLogServer.class);
+
     private MissionBoard board;
     private IpMatcher ipMatcher;
+    /**
+     * The epoll mode's event loop group and bootstrap.
+     */
+    private final boolean epoll;
+    private EventLoopGroup epollGroup;
+    private Bootstrap epollBootstrap;
+    private List<Channel> channels = new ArrayList<>();
 
     public UdpLogServer(int port, MissionBoard board) {
         this(port, board, null);
@@ -45,6 +73,88 @@ public class UdpLogServer extends UdpProtocol {
         super(port);
         this.board = board;
         this.ipMatcher = filter;
+        this.epoll = checkEpollMode();
+    }
+
+    @Override
+    public Bootstrap createBootstrap() {
+        Bootstrap bootstrap;
+        if (epoll) {
+            this.epollGroup = new EpollEventLoopGroup(udpSockets());
+            this.epollBootstrap = new Bootstrap();
+            epollBootstrap.channel(EpollDatagramChannel.class);
+            epollBootstrap.group(epollGroup);
+            epollBootstrap.handler(newChannelInitializer());
+            epollBootstrap.option(EpollChannelOption.SO_REUSEPORT, true);
+            bootstrap = epollBootstrap;
+        } else {
+            bootstrap = super.createBootstrap();
+        }
+        if (board != null) {
+            //  The datagram larger than receive buffer will be truncated.
+            bootstrap.option(ChannelOption.RCVBUF_ALLOCATOR, new FixedRecvByteBufAllocator(board.getConfig().getUdpMaxPacketSize()));
+            if (board.getConfig().getUdpRcvBuf() > 0) {
+                bootstrap.option(ChannelOption.SO_RCVBUF, board.getConfig().getUdpRcvBuf());
+            }
+        }
+        return bootstrap;
+    }
+
+    @Override
+    public Bootstrap bootstrap() {
+        return epollBootstrap != null ? epollBootstrap : super.bootstrap();
+    }
+
+    @Override
+    public void start() {
+        if (!epoll) {
+            super.start();
+            return;
+        }
+        Bootstrap bootstrap = bootstrap() == null ? createBootstrap() : bootstrap();
+        int sockets = udpSockets();
+        try {
+            //  each channel register to the next event loop of the group.
+            for (int i = 0; i < sockets; i++) {
+                channels.add(bootstrap.bind(port()).sync().channel());
+            }
+            LOG.info("UDP server bind " + sockets + " sockets with SO_REUSEPORT on port : " + port());
+        } catch (InterruptedException e) {
+            LOG.error("UDP server bind port failure.", e);
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(this::stop));
+    }
+
+    @Override
+    public void stop() {
+        channels.forEach(Channel::close);
+        channels.clear();
+        if (epollGroup != null) {
+            epollGroup.shutdownGracefully();
+            epollGroup = null;
+        }
+        super.stop();
+    }
+
+    @Override
+    public Channel udpChannel() {
+        return channels.isEmpty() ? super.udpChannel() : channels.get(0);
+    }
+
+    private boolean checkEpollMode() {
+        if (board == null || !board.getConfig().isUdpEpoll()) {
+            return false;
+        }
+        if (!Epoll.isAvailable()) {
+            LOG.warn("Native epoll transport is unavailable, fallback to NIO.", Epoll.unavailabilityCause());
+            return false;
+        }
+        return true;
+    }
+
+    private int udpSockets() {
+        int sockets = board.getConfig().getUdpSockets();
+        return sockets > 0 ? sockets : Runtime.getRuntime().availableProcessors();
     }
 
     @Override
@@ -53,8 +163,18 @@ public class UdpLogServer extends UdpProtocol {
             @Override
             protected void initChannel(DatagramChannel ch) throws Exception {
                 ChannelPipeline cp = ch.pipeline();
-                cp.addLast("ipMatcher", new UdpProtocolHandler(ipMatcher));
-                cp.addLast("handler", new LogRecordHandler(board));
+                if (board == null) {
+                    cp.addLast("ipMatcher", new UdpProtocolHandler(ipMatcher));
+                    cp.addLast("handler", new LogRecordHandler(null));
+                    return;
+                }
+                //  The datagram content is translated by the board's translator(text or protobuf) directly.
+                cp.addLast("ipMatcher", new UdpProtocolHandler(ipMatcher, true));
+                if (board.getConfig().isUdpFramed()) {
+                    cp.addLast("handler", new FramedRecordHandler(board, board.getTranslator()));
+                } else {
+                    cp.addLast("handler", new BinaryRecordHandler(board, board.getTranslator()));
+                }
             }
         };
     }
@@ -0,0 +1,287 @@
+/*
+ *     Copyright 2016-2026 TinyZ
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ogcs.log.core.store;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.ogcs.log.core.MissionBoard;
+import org.ogcs.log.core.builder.Table;
+import org.ogcs.utilities.StringUtil;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Dead-letter file store.
+ * <p>
+ * 超过最大重试次数的批次按表写入死信文件 : {directory}/{table}-yyyy-MM-dd.log, 文本协议每行一条, 字段转义保证重新导入的是原始日志
+ * (NULL为\N, 参考{@link RecordFileStore#split(String, char)}).
+ * 被隔离的错误行同时在{directory}/{table}-yyyy-MM-dd.err中记录MySQL错误 : [errorCode|SQLState] message|log.
+ * 死信文件可以通过管理接口查看, 并按限定的速率重新导入任务版. 重新导入前先关闭写入流并将文件重命名为.redrive,
+ * 之后的死信写入新文件. 任务版拒绝(溢出策略丢弃或转存)的日志退避后重试, 仍被拒绝的日志写回死信文件.
+ * 所有日志都被任务版接受后才重命名为.redriven, 否则保留.redrive文件.
+ *
+ * @author TinyZ
+ * @date 2016-10-30.
+ */
+public class DeadLetterStore {
+
+    private static final Logger LOG = LogManager.getLogger(DeadLetterStore.class);
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final String SUFFIX = ".log";
+    private static final String ERROR = ".err";
+    private static final String REDRIVE = ".redrive";
+    private static final String REDRIVEN = ".redriven";
+    /**
+     * 被拒绝的日志的最大重试次数. 退避时间从10ms开始翻倍, 最大1秒
+     */
+    private static final int REDRIVE_MAX_ATTEMPTS = 10;
+    private static final long REDRIVE_MAX_BACKOFF = TimeUnit.SECONDS.toNanos(1L);
+
+    private final File directory;
+    private final char separator;
+    private final int rate;
+    private final ConcurrentMap<String, RecordFileStore> stores = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, RecordFileStore> errors = new ConcurrentHashMap<>();
+    private final ExecutorService redriver = Executors.newSingleThreadExecutor((r) -> new Thread(r, "okra-log-redrive"));
+
+    /**
+     * @param directory The dead-letter directory.
+     * @param separator The log separator.
+     * @param rate      The redrive rate. logs per second.
+     */
+    public DeadLetterStore(String directory, char separator, int rate) {
+        this.directory = new File(directory);
+        this.separator = separator;
+        this.rate = Math.max(rate, 1);
+    }
+
+    /**
+     * Append the log to the table's dead-letter file.
+     *
+     * @param params The log params. params[0] is the table name.
+     * @return Return true if success.
+     */
+    public boolean append(String[] params) {
+        RecordFileStore store = stores.get(params[0]);
+        if (store == null) {
+            store = stores.computeIfAbsent(params[0], (name) -> new RecordFileStore(directory.getPath(), name, separator, SUFFIX, true));
+        }
+        return store.append(params);
+    }
+
+    /**
+     * Append the log to the table's dead-letter file, and record the error reason.
+     *
+     * @param params The log params. params[0] is the table name.
+     * @param reason The error reason. example : [1292|22007] Incorrect datetime value
+     * @return Return true if success.
+     */
+    public boolean append(String[] params, String reason) {
+        if (!append(params)) {
+            return false;
+        }
+        RecordFileStore store = errors.get(params[0]);
+        if (store == null) {
+            store = errors.computeIfAbsent(params[0], (name) -> new RecordFileStore(directory.getPath(), name, separator, ERROR, true));
+        }
+        String[] line = new String[params.length + 1];
+        line[0] = reason;
+        System.arraycopy(params, 0, line, 1, params.length);
+        store.append(line);
+        return true;
+    }
+
+    public void flush() {
+        stores.values().forEach(RecordFileStore::flush);
+        errors.values().forEach(RecordFileStore::flush);
+    }
+
+    public void close() {
+        stores.values().forEach(RecordFileStore::close);
+        errors.values().forEach(RecordFileStore::close);
+        redriver.shutdown();
+    }
+
+    /**
+     * List the dead-letter files. The redriving file's suffix is .redrive, the error reason file's suffix is .err.
+     *
+     * @return Return the files. name, size, lastModified.
+     */
+    public List<Map<String, Object>> list() {
+        flush();
+        List<Map<String, Object>> list = new ArrayList<>();
+        File[] files = directory.listFiles((dir, name) -> name.endsWith(SUFFIX) || name.endsWith(REDRIVE) || name.endsWith(ERROR));
+        if (files == null) {
+            return list;
+        }
+        for (File file : files) {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("name", file.getName());
+            map.put("size", file.length());
+            map.put("lastModified", file.lastModified());
+            list.add(map);
+        }
+        return list;
+    }
+
+    /**
+     * Redrive the dead-letter file to the mission board asynchronously. Rate limited.
+     *
+     * @param name  The file name. example : log_money-2016-10-30.log
+     * @param board The mission board.
+     * @return Return false if the file is not exist or invalid.
+     */
+    public boolean redrive(String name, MissionBoard board) {
+        if (StringUtil.isEmpty(name) || !name.endsWith(SUFFIX) || name.indexOf('/') >= 0 || name.indexOf('\\') >= 0) {
+            return false;
+        }
+        File file = new File(directory, name);
+        File taken = new File(directory, name + REDRIVE);
+        if (!file.exists() || !take(name, file, taken)) {
+            return false;
+        }
+        try {
+            redriver.execute(() -> redrive(taken, board));
+            return true;
+        } catch (RejectedExecutionException e) {
+            taken.renameTo(file);
+            return false;
+        }
+    }
+
+    /**
+     * Close the table's writer and rename the file. The appends are blocked while renaming.
+     */
+    private boolean take(String name, File file, File taken) {
+        //  {table}-yyyy-MM-dd.log
+        int dateLength = "-yyyy-MM-dd".length() + SUFFIX.length();
+        RecordFileStore store = name.length() > dateLength ? stores.get(name.substring(0, name.length() - dateLength)) : null;
+        if (store == null) {
+            return file.renameTo(taken);
+        }
+        synchronized (store) {
+            store.close();
+            return file.renameTo(taken);
+        }
+    }
+
+    private void redrive(File file, MissionBoard board) {
+        final long interval = TimeUnit.SECONDS.toNanos(1L) / rate;
+        long next = System.nanoTime();
+        int count = 0;
+        int rejected = 0;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] params = parse(line, board);
+                if (params == null) {
+                    continue;
+                }
+                long now = System.nanoTime();
+                if (now < next) {
+                    LockSupport.parkNanos(next - now);
+                }
+                next = Math.max(next, now) + interval;
+                if (add(board, line, params)) {
+                    count++;
+                } else {
+                    rejected++;
+                }
+            }
+        } catch (IOException e) {
+            LOG.error("Redrive dead-letter file failure : " + file.getAbsolutePath(), e);
+            return;
+        }
+        String path = file.getPath();
+        if (rejected > 0) {
+            LOG.warn("Redrive " + count + " logs from dead-letter file : " + path + ", " + rejected + " rejected logs are written back to the dead-letter file.");
+            return;
+        }
+        if (!file.renameTo(new File(path.substring(0, path.length() - REDRIVE.length()) + REDRIVEN))) {
+            LOG.warn("Rename redriven dead-letter file failure : " + path);
+        }
+        LOG.info("Redrive " + count + " logs from dead-letter file : " + path);
+    }
+
+    /**
+     * Add the log to the mission board. Back off and retry if the log is rejected by the overflow policy.
+     *
+     * @return Return true if the log is accepted, false if it is written back to the dead-letter file.
+     */
+    private boolean add(MissionBoard board, String line, String[] params) {
+        long backoff = TimeUnit.MILLISECONDS.toNanos(10L);
+        for (int attempt = 1; ; attempt++) {
+            if (board.add(params[0], params)) {
+                return true;
+            }
+            if (attempt >= REDRIVE_MAX_ATTEMPTS) {
+                break;
+            }
+            LockSupport.parkNanos(backoff);
+            backoff = Math.min(backoff << 1, REDRIVE_MAX_BACKOFF);
+            //  被拒绝的参数数组可能已归还对象池, 重新解析
+            params = parse(line, board);
+        }
+        append(parse(line, board));
+        return false;
+    }
+
+    /**
+     * Parse the escaped text protocol line. The missing trailing fields are padded with null.
+     */
+    private String[] parse(String line, MissionBoard board) {
+        if (line.isEmpty()) {
+            return null;
+        }
+        String[] split = RecordFileStore.split(line, separator);
+        Table table = split[0] == null ? null : board.getParser().getTable(split[0]);
+        if (table == null) {
+            LOG.warn("Unknown table dead-letter log : " + line);
+            return null;
+        }
+        int length = table.getFields().length + 1;
+        if (split.length == length) {
+            return split;
+        }
+        if (split.length > length) {
+            LOG.warn("Invalid dead-letter log : " + line);
+            return null;
+        }
+        String[] params = new String[length];
+        System.arraycopy(split, 0, params, 0, split.length);
+        return params;
+    }
+
+    public File getDirectory() {
+        return directory;
+    }
+}
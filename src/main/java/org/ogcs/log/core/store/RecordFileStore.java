@@ -0,0 +1,248 @@
+/*
+ *     Copyright 2016-2026 TinyZ
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ogcs.log.core.store;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.ogcs.log.util.TimeV8Util;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Append-only log record file store.
+ * <p>
+ * 以文本协议格式追加写入日志, 每行一条 : log_money|2016-06-24|openid|0|105|15|100|1000.
+ * 默认字段中的换行符替换为空格, 文件可以直接通过HTTP POST批量接口重新导入.
+ * 转义模式按照{@link org.ogcs.log.core.builder.TsvInputStream}的规则转义 : NULL为\N, 反斜杠、制表符、换行符、回车符、NUL字符和分隔符
+ * 以反斜杠转义, 通过{@link #split(String, char)}还原原始的日志参数.
+ * 文件按天滚动 : {directory}/{name}-yyyy-MM-dd.log, 后缀可以指定.
+ *
+ * @author TinyZ
+ * @date 2016-10-26.
+ */
+public class RecordFileStore {
+
+    private static final Logger LOG = LogManager.getLogger(RecordFileStore.class);
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final File directory;
+    private final String name;
+    private final char separator;
+    private final String suffix;
+    private final boolean escape;
+    private Writer writer;
+    private String date;
+
+    public RecordFileStore(String directory, String name, char separator) {
+        this(directory, name, separator, ".log");
+    }
+
+    public RecordFileStore(String directory, String name, char separator, String suffix) {
+        this(directory, name, separator, suffix, false);
+    }
+
+    /**
+     * @param escape Is escape the fields, or replace the newline with space.
+     */
+    public RecordFileStore(String directory, String name, char separator, String suffix, boolean escape) {
+        this.directory = new File(directory);
+        this.name = name;
+        this.separator = separator;
+        this.suffix = suffix;
+        this.escape = escape;
+    }
+
+    /**
+     * Append the log to file.
+     *
+     * @param params The log params. params[0] is the table name.
+     * @return Return true if success.
+     */
+    public synchronized boolean append(String[] params) {
+        try {
+            Writer w = writer();
+            for (int i = 0; i < params.length; i++) {
+                if (i > 0) {
+                    w.write(separator);
+                }
+                String value = params[i];
+                if (escape) {
+                    escape(w, value);
+                    continue;
+                }
+                if (value == null) {
+                    continue;
+                }
+                if (value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0) {
+                    value = value.replace('\n', ' ').replace('\r', ' ');
+                }
+                w.write(value);
+            }
+            w.write('\n');
+            return true;
+        } catch (IOException e) {
+            LOG.error("Append log to file store [" + name + "] failure.", e);
+            return false;
+        }
+    }
+
+    private void escape(Writer w, String value) throws IOException {
+        if (value == null) {
+            w.write("\\N");
+            return;
+        }
+        for (int k = 0; k < value.length(); k++) {
+            char c = value.charAt(k);
+            switch (c) {
+                case '\\':
+                    w.write("\\\\");
+                    break;
+                case '\t':
+                    w.write("\\t");
+                    break;
+                case '\n':
+                    w.write("\\n");
+                    break;
+                case '\r':
+                    w.write("\\r");
+                    break;
+                case '\0':
+                    w.write("\\0");
+                    break;
+                default:
+                    if (c == separator) {
+                        w.write('\\');
+                    }
+                    w.write(c);
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Split the escaped line to the log params. The field \N is null.
+     *
+     * @param line      The escaped line.
+     * @param separator The log separator.
+     * @return Return the log params.
+     */
+    public static String[] split(String line, char separator) {
+        List<String> list = new ArrayList<>();
+        StringBuilder sb = new StringBuilder();
+        boolean nullField = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == separator) {
+                list.add(nullField ? null : sb.toString());
+                sb.setLength(0);
+                nullField = false;
+            } else {
+                if (nullField) {    //  \N后还有字符, 不是NULL
+                    sb.append('N');
+                    nullField = false;
+                }
+                if (c != '\\' || i + 1 >= line.length()) {
+                    sb.append(c);
+                    continue;
+                }
+                char next = line.charAt(++i);
+                switch (next) {
+                    case 'N':
+                        if (sb.length() == 0) {
+                            nullField = true;
+                        } else {
+                            sb.append(next);
+                        }
+                        break;
+                    case 't':
+                        sb.append('\t');
+                        break;
+                    case 'n':
+                        sb.append('\n');
+                        break;
+                    case 'r':
+                        sb.append('\r');
+                        break;
+                    case '0':
+                        sb.append('\0');
+                        break;
+                    default:
+                        sb.append(next);
+                        break;
+                }
+            }
+        }
+        list.add(nullField ? null : sb.toString());
+        return list.toArray(new String[list.size()]);
+    }
+
+    /**
+     * Flush the buffered logs to file.
+     */
+    public synchronized void flush() {
+        if (writer == null) {
+            return;
+        }
+        try {
+            writer.flush();
+        } catch (IOException e) {
+            LOG.error("Flush file store [" + name + "] failure.", e);
+        }
+    }
+
+    public synchronized void close() {
+        if (writer == null) {
+            return;
+        }
+        try {
+            writer.close();
+        } catch (IOException e) {
+            LOG.error("Close file store [" + name + "] failure.", e);
+        }
+        writer = null;
+    }
+
+    /**
+     * Get the current day's file writer.
+     */
+    private Writer writer() throws IOException {
+        String today = TimeV8Util.date();
+        if (writer != null && today.equals(date)) {
+            return writer;
+        }
+        close();
+        if (!directory.exists() && !directory.mkdirs()) {
+            throw new IOException("Create directory failure : " + directory.getAbsolutePath());
+        }
+        File file = new File(directory, name + "-" + today + suffix);
+        writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file, true), UTF_8));
+        date = today;
+        return writer;
+    }
+
+    public File getDirectory() {
+        return directory;
+    }
+}
@@ -0,0 +1,448 @@
+/*
+ *     Copyright 2016-2026 TinyZ
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ogcs.log.core.store;
+
+import io.netty.util.internal.PlatformDependent;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Segmented memory-mapped write-ahead log.
+ * <p>
+ * 日志入队前先追加到内存映射的段文件中, 每条日志分配一个连续递增的序号(seq). 写入内存映射即进入操作系统页缓存,
+ * 进程崩溃不会丢失; 组提交线程定时调用{@link #sync()}将脏段force()到磁盘, 同一间隔内追加的日志共用一次force().
+ * <p>
+ * 记录格式 : [int length][int crc32][short count]([int len][utf-8 bytes])*count, len为-1表示null. length为0表示段结束.
+ * 段文件名 : {directory}/{id}.wal
+ * <p>
+ * 批次写入数据库后通过{@link #commit(long, int)}提交对应的序号区间. 段写满后封存, 封存段的日志全部提交后由组提交线程
+ * 解除映射并删除(截断). 启动时未删除的段通过{@link #recover()}读出回放, 回放的日志重新追加到新段后再删除旧段.
+ * 崩溃时可能重复写入已提交但未截断的日志(at-least-once).
+ * <p>
+ * 调用者需要保证追加顺序与出队顺序一致 : {@link #append(String[])}和{@link #claim(int)}都应在本对象的锁内和队列操作一起执行.
+ *
+ * @author TinyZ
+ * @date 2016-10-27.
+ */
+public class WriteAheadLog {
+
+    private static final Logger LOG = LogManager.getLogger(WriteAheadLog.class);
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final String SUFFIX = ".wal";
+    private static final int HEADER = 8;
+
+    private final File directory;
+    private final int segmentSize;
+    private final CRC32 crc = new CRC32();
+    private final Object syncLock = new Object();
+    /**
+     * 活动段和未全部提交的封存段, 按seq顺序排列.
+     */
+    private final List<Segment> segments = new ArrayList<>();
+    /**
+     * 已全部提交等待删除的段. 只在组提交线程中解除映射, 避免force()访问已解除映射的内存.
+     */
+    private final List<Segment> retired = new ArrayList<>();
+    /**
+     * 启动时读出的旧段文件.
+     */
+    private final List<File> recovered = new ArrayList<>();
+    private Segment current;
+    private long nextId;
+    /**
+     * 下一条追加日志的序号
+     */
+    private long appendSeq;
+    /**
+     * 下一条出队日志的序号
+     */
+    private long claimSeq;
+    private boolean closed;
+
+    public WriteAheadLog(String directory, int segmentSize) {
+        this.directory = new File(directory);
+        this.segmentSize = segmentSize;
+    }
+
+    /**
+     * Read the logs in the segments which left by the last process. The segments will be deleted by {@link #deleteRecovered()}.
+     *
+     * @return Return the unrecorded logs.
+     */
+    public synchronized List<String[]> recover() {
+        List<String[]> list = new ArrayList<>();
+        File[] files = directory.listFiles((dir, name) -> name.endsWith(SUFFIX));
+        if (files == null || files.length == 0) {
+            return list;
+        }
+        Arrays.sort(files, (a, b) -> Long.compare(idOf(a), idOf(b)));
+        for (File file : files) {
+            long id = idOf(file);
+            if (id < 0) {
+                continue;
+            }
+            nextId = Math.max(nextId, id + 1);
+            try (RandomAccessFile raf = new RandomAccessFile(file, "r"); FileChannel channel = raf.getChannel()) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                try {
+                    read(buffer, list, file);
+                } finally {
+                    PlatformDependent.freeDirectBuffer(buffer);
+                }
+            } catch (IOException e) {
+                LOG.error("Read write-ahead log segment failure : " + file.getAbsolutePath(), e);
+            }
+            recovered.add(file);
+        }
+        return list;
+    }
+
+    private void read(ByteBuffer buffer, List<String[]> list, File file) {
+        CRC32 checksum = new CRC32();
+        while (buffer.remaining() >= HEADER) {
+            int length = buffer.getInt();
+            int expected = buffer.getInt();
+            if (length <= 0) {
+                return;
+            }
+            if (length > buffer.remaining()) {
+                LOG.warn("Truncated write-ahead log record in " + file.getAbsolutePath());
+                return;
+            }
+            ByteBuffer record = buffer.slice();
+            record.limit(length);
+            checksum.reset();
+            checksum.update(record.duplicate());
+            if ((int) checksum.getValue() != expected) {
+                LOG.warn("Broken write-ahead log record in " + file.getAbsolutePath());
+                return;
+            }
+            String[] params = new String[record.getShort() & 0xFFFF];
+            for (int i = 0; i < params.length; i++) {
+                int len = record.getInt();
+                if (len >= 0) {
+                    byte[] bytes = new byte[len];
+                    record.get(bytes);
+                    params[i] = new String(bytes, UTF_8);
+                }
+            }
+            list.add(params);
+            buffer.position(buffer.position() + length);
+        }
+    }
+
+    /**
+     * Delete the segments which left by the last process. Call it after the recovered logs is append to the new segments and synced.
+     */
+    public synchronized void deleteRecovered() {
+        for (File file : recovered) {
+            if (!file.delete()) {
+                LOG.warn("Delete write-ahead log segment failure : " + file.getAbsolutePath());
+            }
+        }
+        recovered.clear();
+    }
+
+    /**
+     * Append the log to the write-ahead log.
+     *
+     * 追加失败时日志不持久化, 但仍然占用序号, 保证序号和出队顺序一致.
+     *
+     * @param params The log params.
+     * @return Return the log's sequence number.
+     */
+    public synchronized long append(String[] params) {
+        if (closed || params.length > 0xFFFF) {
+            return skip();
+        }
+        //  utf-8 最多3字节一个char (代理对4字节两个char)
+        long worst = 2L;
+        for (String param : params) {
+            worst += 4L + (param == null ? 0 : 3L * param.length());
+        }
+        if (worst + HEADER + HEADER >= Integer.MAX_VALUE) {
+            LOG.warn("The log is too large to append to write-ahead log.");
+            return skip();
+        }
+        try {
+            if (current == null || current.buffer.remaining() < worst + HEADER + HEADER) {
+                roll((int) worst + HEADER + HEADER);
+            }
+        } catch (IOException e) {
+            LOG.error("Create write-ahead log segment failure : " + directory.getAbsolutePath(), e);
+            return skip();
+        }
+        MappedByteBuffer buffer = current.buffer;
+        int start = buffer.position();
+        buffer.position(start + HEADER);
+        buffer.putShort((short) params.length);
+        for (String param : params) {
+            if (param == null) {
+                buffer.putInt(-1);
+                continue;
+            }
+            int lenAt = buffer.position();
+            buffer.position(lenAt + 4);
+            encode(param, buffer);
+            buffer.putInt(lenAt, buffer.position() - lenAt - 4);
+        }
+        int end = buffer.position();
+        ByteBuffer record = buffer.duplicate();
+        record.position(start + HEADER);
+        record.limit(end);
+        crc.reset();
+        crc.update(record);
+        buffer.putInt(start + 4, (int) crc.getValue());
+        //  length最后写入, 读取时length为0视为段结束
+        buffer.putInt(start, end - start - HEADER);
+        current.count++;
+        current.dirty = true;
+        return appendSeq++;
+    }
+
+    /**
+     * Skip the log, count it as an empty record of the current segment.
+     */
+    private long skip() {
+        if (current != null) {
+            current.count++;
+        }
+        return appendSeq++;
+    }
+
+    private static void encode(String str, ByteBuffer buffer) {
+        final int length = str.length();
+        for (int i = 0; i < length; i++) {
+            char c = str.charAt(i);
+            if (c < 0x80) {
+                buffer.put((byte) c);
+            } else if (c < 0x800) {
+                buffer.put((byte) (0xC0 | (c >> 6)));
+                buffer.put((byte) (0x80 | (c & 0x3F)));
+            } else if (Character.isSurrogate(c)) {
+                if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(str.charAt(i + 1))) {
+                    int cp = Character.toCodePoint(c, str.charAt(++i));
+                    buffer.put((byte) (0xF0 | (cp >> 18)));
+                    buffer.put((byte) (0x80 | ((cp >> 12) & 0x3F)));
+                    buffer.put((byte) (0x80 | ((cp >> 6) & 0x3F)));
+                    buffer.put((byte) (0x80 | (cp & 0x3F)));
+                } else {
+                    buffer.put((byte) '?');
+                }
+            } else {
+                buffer.put((byte) (0xE0 | (c >> 12)));
+                buffer.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+                buffer.put((byte) (0x80 | (c & 0x3F)));
+            }
+        }
+    }
+
+    private void roll(int minSize) throws IOException {
+        if (!directory.exists() && !directory.mkdirs()) {
+            throw new IOException("Create directory failure : " + directory.getAbsolutePath());
+        }
+        File file = new File(directory, nextId + SUFFIX);
+        int size = Math.max(segmentSize, minSize);
+        MappedByteBuffer buffer;
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw"); FileChannel channel = raf.getChannel()) {
+            raf.setLength(size);
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+        Segment segment = new Segment(nextId++, file, buffer, appendSeq);
+        if (current != null) {
+            current.sealed = true;
+            if (current.isCommitted()) {
+                retire(current);
+            }
+        }
+        segments.add(segment);
+        current = segment;
+    }
+
+    /**
+     * Claim the sequence number of the logs which is polled from queue.
+     *
+     * @param count The polled log count.
+     * @return Return the first log's sequence number.
+     */
+    public synchronized long claim(int count) {
+        long seq = claimSeq;
+        claimSeq += count;
+        return seq;
+    }
+
+    /**
+     * Commit the logs, the segment will be truncated when all logs in it is committed.
+     *
+     * @param seq   The first log's sequence number.
+     * @param count The log count.
+     */
+    public synchronized void commit(long seq, int count) {
+        if (seq < 0 || count <= 0) {
+            return;
+        }
+        final long end = seq + count;
+        Iterator<Segment> iterator = segments.iterator();
+        while (iterator.hasNext()) {
+            Segment segment = iterator.next();
+            long from = Math.max(seq, segment.firstSeq);
+            long to = Math.min(end, segment.firstSeq + segment.count);
+            if (from < to) {
+                segment.committed += to - from;
+                if (segment.sealed && segment.isCommitted()) {
+                    iterator.remove();
+                    retired.add(segment);
+                }
+            }
+            if (segment.firstSeq >= end) {
+                break;
+            }
+        }
+    }
+
+    private void retire(Segment segment) {
+        segments.remove(segment);
+        retired.add(segment);
+    }
+
+    /**
+     * Group commit. Force the dirty segments to disk and delete the committed segments.
+     */
+    public void sync() {
+        synchronized (syncLock) {
+            sync0();
+        }
+    }
+
+    private void sync0() {
+        List<Segment> dirty = new ArrayList<>();
+        List<Segment> deletes;
+        synchronized (this) {
+            for (Segment segment : segments) {
+                if (segment.dirty) {
+                    segment.dirty = false;
+                    dirty.add(segment);
+                }
+            }
+            deletes = new ArrayList<>(retired);
+            retired.clear();
+        }
+        //  force()不持有本对象的锁, 不阻塞追加. 解除映射只在syncLock内执行
+        for (Segment segment : dirty) {
+            segment.buffer.force();
+        }
+        for (Segment segment : deletes) {
+            segment.delete();
+        }
+    }
+
+    /**
+     * Sync and close the write-ahead log. The uncommitted segments are kept for recovery.
+     */
+    public void close() {
+        synchronized (syncLock) {
+            synchronized (this) {
+                closed = true;
+            }
+            sync0();
+            synchronized (this) {
+                for (Segment segment : segments) {
+                    if (segment.isCommitted()) {
+                        segment.delete();
+                    } else {
+                        PlatformDependent.freeDirectBuffer(segment.buffer);
+                    }
+                }
+                segments.clear();
+                current = null;
+            }
+        }
+    }
+
+    /**
+     * @return Return the log count which is appended but not committed.
+     */
+    public synchronized long uncommitted() {
+        long count = 0L;
+        for (Segment segment : segments) {
+            count += segment.count - segment.committed;
+        }
+        return count;
+    }
+
+    /**
+     * @return Return the segment count in use, include the retired segments which wait for delete.
+     */
+    public synchronized int segments() {
+        return segments.size() + retired.size();
+    }
+
+    public File getDirectory() {
+        return directory;
+    }
+
+    private static long idOf(File file) {
+        String name = file.getName();
+        try {
+            return Long.parseLong(name.substring(0, name.length() - SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return -1L;
+        }
+    }
+
+    private static final class Segment {
+
+        final long id;
+        final File file;
+        final MappedByteBuffer buffer;
+        final long firstSeq;
+        long count;
+        long committed;
+        boolean sealed;
+        volatile boolean dirty;
+
+        Segment(long id, File file, MappedByteBuffer buffer, long firstSeq) {
+            this.id = id;
+            this.file = file;
+            this.buffer = buffer;
+            this.firstSeq = firstSeq;
+        }
+
+        boolean isCommitted() {
+            return committed >= count;
+        }
+
+        void delete() {
+            PlatformDependent.freeDirectBuffer(buffer);
+            if (!file.delete()) {
+                LOG.warn("Delete write-ahead log segment failure : " + file.getAbsolutePath() + ", id : " + id);
+            }
+        }
+    }
+}
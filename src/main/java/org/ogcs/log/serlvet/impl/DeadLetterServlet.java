@@ -0,0 +1,83 @@
+/*
+ *     Copyright 2016-2026 TinyZ
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ogcs.log.serlvet.impl;
+
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpVersion;
+import org.ogcs.log.core.MissionBoard;
+import org.ogcs.log.core.store.DeadLetterStore;
+import org.ogcs.log.serlvet.AbstractApiServlet;
+
+import java.nio.charset.Charset;
+
+/**
+ * 死信文件管理接口
+ * <p>
+ * GET /deadletter : 查看死信文件列表.
+ * POST /deadletter/redrive : 请求体为死信文件名, 按限定速率重新导入任务版. 返回state 0 : 开始导入, 1 : 文件不存在或无效.
+ * 重新导入只接受POST请求, {@link org.ogcs.log.serlvet.ApiHandler}把GET请求也交给doPost, 需要检查请求方法.
+ *
+ * @author TinyZ
+ * @date 2016-10-30.
+ */
+public class DeadLetterServlet extends AbstractApiServlet {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final MissionBoard missions;
+    private final boolean redrive;
+
+    /**
+     * @param missions The mission board.
+     * @param redrive  Is the redrive endpoint, or the list endpoint.
+     */
+    public DeadLetterServlet(MissionBoard missions, boolean redrive) {
+        this.missions = missions;
+        this.redrive = redrive;
+    }
+
+    @Override
+    public HttpResponse doGet(HttpRequest request) {
+        if (redrive) {
+            return response(HttpVersion.HTTP_1_1, HttpResponseStatus.METHOD_NOT_ALLOWED);
+        }
+        DeadLetterStore store = missions.getDeadLetters();
+        if (store == null) {
+            return response(1);
+        }
+        return response(0, store.list());
+    }
+
+    @Override
+    public HttpResponse doPost(HttpRequest request) {
+        if (!redrive || request.method() != HttpMethod.POST) {
+            return doGet(request);
+        }
+        DeadLetterStore store = missions.getDeadLetters();
+        if (store == null) {
+            return response(1);
+        }
+        if (!(request instanceof FullHttpRequest)) {
+            return null;
+        }
+        String name = ((FullHttpRequest) request).content().toString(UTF_8).trim();
+        return response(store.redrive(name, missions) ? 0 : 1);
+    }
+}
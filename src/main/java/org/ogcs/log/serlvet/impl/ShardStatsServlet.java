@@ -0,0 +1,48 @@
+/*
+ *     Copyright 2016-2026 TinyZ
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ogcs.log.serlvet.impl;
+
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpResponse;
+import org.ogcs.log.core.MissionBoard;
+import org.ogcs.log.serlvet.AbstractApiServlet;
+
+/**
+ * 分片统计接口
+ * <p>
+ * 返回每个Disruptor分片的队列深度、写库延迟以及分片内各个表的队列长度, 用于调整热点表的分片.
+ *
+ * @author TinyZ
+ * @date 2016-10-28.
+ */
+public class ShardStatsServlet extends AbstractApiServlet {
+
+    private final MissionBoard missions;
+
+    public ShardStatsServlet(MissionBoard missions) {
+        this.missions = missions;
+    }
+
+    @Override
+    public HttpResponse doGet(HttpRequest request) {
+        return response(0, missions.getShardStats());
+    }
+
+    @Override
+    public HttpResponse doPost(HttpRequest request) {
+        return doGet(request);
+    }
+}
@@ -25,6 +25,10 @@ import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -196,33 +200,145 @@ public final class MySQL {
      * @return return prepare query sql.
      */
     public static String prepareQuery(Table table) {
+        return prepareQuery(table, 1);
+    }
+
+    /**
+     * Create a multi-row prepare query sql. example : INSERT INTO `t` (`a`,`b`) VALUES (?,?),(?,?);
+     * The auto increment fields are skipped.
+     *
+     * @param table The database table bean.
+     * @param rows  The row count.
+     * @return return prepare query sql.
+     */
+    public static String prepareQuery(Table table, int rows) {
+        return prepareQuery(table, table.name(), rows);
+    }
+
+    /**
+     * Create a multi-row prepare query sql of the special table name.
+     *
+     * @param table The database table bean.
+     * @param name  The database table name. example : `database`.`prefix_table_suffix`
+     * @param rows  The row count.
+     * @return return prepare query sql.
+     */
+    public static String prepareQuery(Table table, String name, int rows) {
+        String head = insertHead(table, name);
+        String values = insertValues(table);
+        StringBuilder sb = new StringBuilder(head.length() + (values.length() + 1) * rows + 1);
+        sb.append(head);
+        for (int i = 0; i < rows; i++) {
+            if (i > 0) {
+                sb.append(",");
+            }
+            sb.append(values);
+        }
+        return sb.append(";").toString();
+    }
+
+    /**
+     * Create the insert sql's head. example : INSERT INTO `t` (`a`,`b`) VALUES
+     *
+     * @param table The database table bean.
+     * @return return the insert sql's head.
+     */
+    public static String insertHead(Table table) {
+        return insertHead(table, table.name());
+    }
+
+    public static String insertHead(Table table, String name) {
         Field[] fields = table.getFields();
-        StringBuilder sbValues = new StringBuilder();
         StringBuilder sbColumn = new StringBuilder();
-        for (int i = 0; i < fields.length; i++) {
-            Field field = fields[i];
+        for (Field field : fields) {
             if (field.isAutoIncrement()) {
                 continue;
             }
-            sbColumn.append("`").append(field.getName()).append("`");
-            sbValues.append("?");
-            if (i != fields.length - 1) {
-                sbColumn.append(",");
-                sbValues.append(",");
-            }
+            sbColumn.append(sbColumn.length() > 0 ? ",`" : "(`").append(field.getName()).append("`");
         }
         if (sbColumn.length() > 0) {
-            sbColumn.insert(0, "(").append(")");
-        }
-        if (sbValues.length() > 0) {
-            sbValues.insert(0, " (").append(")");
+            sbColumn.append(")");
         }
         return new StringBuilder("INSERT INTO ")
-                .append(table.name())
+                .append(name)
                 .append(sbColumn)
                 .append(" VALUES ")
-                .append(sbValues)
-                .append(";")
+                .toString();
+    }
+
+    /**
+     * Create the insert sql's row placeholders. example : (?,?)
+     *
+     * @param table The database table bean.
+     * @return return the row placeholders.
+     */
+    public static String insertValues(Table table) {
+        Field[] fields = table.getFields();
+        StringBuilder sbValues = new StringBuilder("(");
+        for (Field field : fields) {
+            if (field.isAutoIncrement()) {
+                continue;
+            }
+            sbValues.append(sbValues.length() > 1 ? ",?" : "?");
+        }
+        return sbValues.append(")").toString();
+    }
+
+    /**
+     * Compute how many rows fit in one multi-row insert statement.
+     * <p>
+     * 每行大小按最长一行估算 : 字符数 * 3 + 每个值的引号和逗号. UTF-8中每个char最多3字节(中日韩文字3字节, 代理对2个char共4字节),
+     * 需要转义的字符都是ASCII, 转义后2字节, 所以3字节/字符是上界. 行数向下取2的幂, 减少缓存的语句数量,
+     * 且不超过PreparedStatement的占位符上限(65535).
+     *
+     * @param maxPacket   The packet budget(bytes). less than or equal to 0 means single row.
+     * @param headLength  The insert sql's head length.
+     * @param columns     The bound column count.
+     * @param maxRowChars The longest row's character count.
+     * @return Return the row count per statement. at least 1.
+     */
+    public static int rowsPerStatement(int maxPacket, int headLength, int columns, int maxRowChars) {
+        if (maxPacket <= 0 || columns <= 0) {
+            return 1;
+        }
+        long rowBytes = (long) maxRowChars * 3 + columns * 3L + 3;
+        long rows = Math.min((maxPacket - headLength) / rowBytes, 65535 / columns);
+        return rows <= 1 ? 1 : Integer.highestOneBit((int) rows);
+    }
+
+    /**
+     * Create the LOAD DATA LOCAL INFILE sql. The data is tab separated, the NULL value is \N,
+     * the backslash, tab, newline, carriage return and NUL characters are escaped by backslash.
+     * <p>
+     * LOCAL模式下重复键、数据转换错误作为警告处理(等同IGNORE), 不会使整个批次失败.
+     *
+     * @param table The database table bean.
+     * @return return LOAD DATA sql.
+     * @see org.ogcs.log.core.builder.TsvInputStream
+     */
+    public static String loadDataSQL(Table table) {
+        return loadDataSQL(table, table.name());
+    }
+
+    public static String loadDataSQL(Table table, String name) {
+        Field[] fields = table.getFields();
+        StringBuilder sbColumn = new StringBuilder();
+        for (Field field : fields) {
+            if (field.isAutoIncrement()) {
+                continue;
+            }
+            if (sbColumn.length() > 0) {
+                sbColumn.append(",");
+            }
+            sbColumn.append("`").append(field.getName()).append("`");
+        }
+        String charset = table.getCharset();
+        return new StringBuilder("LOAD DATA LOCAL INFILE 'okra-log.tsv' INTO TABLE ")
+                .append(name)
+                .append("CHARACTER SET ").append(charset != null && charset.toLowerCase().startsWith("utf8mb4") ? "utf8mb4" : "utf8")
+                .append(" FIELDS TERMINATED BY '\\t' ESCAPED BY '\\\\' LINES TERMINATED BY '\\n' (")
+                .append(sbColumn)
+                .append(");")
                 .toString();
     }
 
@@ -362,11 +478,22 @@ public final class MySQL {
      * @return 返回创建数据库表的SQL
      */
     public static String createTableSQL(Table table) {
+        return createTableSQL(table, table.name());
+    }
+
+    /**
+     * 获取创建指定名称的数据库表的SQL
+     *
+     * @param table 表结构
+     * @param name  数据库表名称. example : `database`.`prefix_table_suffix`
+     * @return 返回创建数据库表的SQL
+     */
+    public static String createTableSQL(Table table, String name) {
         if (!verifyTableValid(table)) {
             return null;
         }
         StringBuilder builder = new StringBuilder();
-        builder.append("CREATE TABLE IF NOT EXISTS ").append(table.name()).append(" (\n");
+        builder.append("CREATE TABLE IF NOT EXISTS ").append(name).append(" (\n");
         Field[] fields = table.getFields();
         StringBuilder priBuilder = null;
         for (int i = 0; i < fields.length; i++) {
@@ -385,12 +512,191 @@ public final class MySQL {
 //            priBuilder.delete(priBuilder.length() - 1, priBuilder.length()).insert(0, ", \n PRIMARY KEY (").append(")");
 //            builder.append(priBuilder);
 //        }
-        builder.append(indexesSQL(table.getIndexes()));
+        builder.append(indexesSQL(table.getIndexes(), table.isPartitioned() ? table.getPartitionField() : null));
 
-        StringBuilder append = builder.append("\n)").append(tableAttributeSQL(table)).append(";");
-        return String.valueOf(append);
+        builder.append("\n)").append(tableAttributeSQL(table));
+        if (table.isPartitioned()) {
+            //  当前和下一个分区, 之后的分区由PartitionManager维护
+            builder.append(partitionSQL(table, partitionStart(table.getPartition(), LocalDate.now()), 2));
+        }
+        return String.valueOf(builder.append(";"));
     }
 
+    /**
+     * 分区的上限值为MAXVALUE的分区名称. 写入超出已创建分区的日志
+     */
+    public static final String PARTITION_MAX = "pmax";
+    private static final DateTimeFormatter PARTITION_DAY_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd");
+    private static final DateTimeFormatter PARTITION_MONTH_FORMAT = DateTimeFormatter.ofPattern("yyyyMM");
+
+    /**
+     * Get the start date of the partition which contains the date.
+     *
+     * @param unit The partition unit. DAY or MONTH.
+     * @param date The date.
+     * @return Return the partition's start date.
+     */
+    public static LocalDate partitionStart(String unit, LocalDate date) {
+        return Table.PARTITION_MONTH.equalsIgnoreCase(unit) ? date.withDayOfMonth(1) : date;
+    }
+
+    /**
+     * @param unit  The partition unit. DAY or MONTH.
+     * @param start The partition's start date.
+     * @return Return the next partition's start date. the partition's upper bound(exclusive).
+     */
+    public static LocalDate partitionNext(String unit, LocalDate start) {
+        return Table.PARTITION_MONTH.equalsIgnoreCase(unit) ? start.plusMonths(1) : start.plusDays(1);
+    }
+
+    /**
+     * Get the partition name.  example : p20161101(DAY), p201611(MONTH)
+     *
+     * @param unit  The partition unit. DAY or MONTH.
+     * @param start The partition's start date.
+     * @return Return the partition name.
+     */
+    public static String partitionName(String unit, LocalDate start) {
+        return "p" + (Table.PARTITION_MONTH.equalsIgnoreCase(unit) ? PARTITION_MONTH_FORMAT : PARTITION_DAY_FORMAT).format(start);
+    }
+
+    /**
+     * Parse the partition's start date from the partition name.
+     *
+     * @param unit The partition unit. DAY or MONTH.
+     * @param name The partition name.
+     * @return Return the partition's start date, or null if the partition is not created by {@link #partitionName(String, LocalDate)}.
+     */
+    public static LocalDate partitionOf(String unit, String name) {
+        if (name == null || name.length() < 2 || name.charAt(0) != 'p') {
+            return null;
+        }
+        try {
+            if (Table.PARTITION_MONTH.equalsIgnoreCase(unit)) {
+                return YearMonth.parse(name.substring(1), PARTITION_MONTH_FORMAT).atDay(1);
+            }
+            return LocalDate.parse(name.substring(1), PARTITION_DAY_FORMAT);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    /**
+     * TIMESTAMP字段的分区表达式使用UNIX_TIMESTAMP(), DATE/DATETIME字段使用TO_DAYS()
+     */
+    private static boolean isTimestampPartition(Table table) {
+        Field field = fieldOf(table, table.getPartitionField());
+        return field != null && TIMESTAMP.equalsIgnoreCase(field.getType());
+    }
+
+    private static Field fieldOf(Table table, String name) {
+        Field[] fields = table.getFields();
+        if (fields == null || name == null) {
+            return null;
+        }
+        for (Field field : fields) {
+            if (name.equalsIgnoreCase(field.getName())) {
+                return field;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 获取分区定义的SQL.  example : PARTITION p20161101 VALUES LESS THAN (TO_DAYS('2016-11-02'))
+     *
+     * @param table 表结构
+     * @param start 分区的开始日期
+     * @return 返回分区定义的SQL
+     */
+    public static String partitionDefinitionSQL(Table table, LocalDate start) {
+        String unit = table.getPartition();
+        LocalDate bound = partitionNext(unit, start);
+        StringBuilder sb = new StringBuilder();
+        sb.append("PARTITION ").append(partitionName(unit, start)).append(" VALUES LESS THAN (");
+        if (isTimestampPartition(table)) {
+            sb.append("UNIX_TIMESTAMP('").append(bound).append(" 00:00:00')");
+        } else {
+            sb.append("TO_DAYS('").append(bound).append("')");
+        }
+        return sb.append(")").toString();
+    }
+
+    /**
+     * 获取建表时的分区SQL. 包含count个分区和一个MAXVALUE分区
+     *
+     * @param table 表结构
+     * @param from  第一个分区的开始日期. 第一个分区同时包含更早的数据
+     * @param count 分区数量
+     * @return 返回PARTITION BY RANGE子句
+     */
+    public static String partitionSQL(Table table, LocalDate from, int count) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("\nPARTITION BY RANGE (");
+        if (isTimestampPartition(table)) {
+            sb.append("UNIX_TIMESTAMP(`").append(table.getPartitionField()).append("`)");
+        } else {
+            sb.append("TO_DAYS(`").append(table.getPartitionField()).append("`)");
+        }
+        sb.append(") (\n");
+        LocalDate start = partitionStart(table.getPartition(), from);
+        for (int i = 0; i < count; i++) {
+            sb.append(partitionDefinitionSQL(table, start)).append(",\n");
+            start = partitionNext(table.getPartition(), start);
+        }
+        return sb.append("PARTITION ").append(PARTITION_MAX).append(" VALUES LESS THAN MAXVALUE)").toString();
+    }
+
+    /**
+     * 获取增加分区的SQL. 有MAXVALUE分区时拆分MAXVALUE分区, 否则追加分区
+     *
+     * @param table  表结构
+     * @param starts 新分区的开始日期, 升序且晚于已存在的分区
+     * @param hasMax 是否存在MAXVALUE分区
+     * @return 返回增加分区的SQL
+     */
+    public static String addPartitionSQL(Table table, List<LocalDate> starts, boolean hasMax) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("ALTER TABLE ").append(table.name());
+        sb.append(hasMax ? "REORGANIZE PARTITION " + PARTITION_MAX + " INTO (" : "ADD PARTITION (");
+        for (int i = 0; i < starts.size(); i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(partitionDefinitionSQL(table, starts.get(i)));
+        }
+        if (hasMax) {
+            sb.append(", PARTITION ").append(PARTITION_MAX).append(" VALUES LESS THAN MAXVALUE");
+        }
+        return sb.append(");").toString();
+    }
+
+    /**
+     * 获取删除分区的SQL
+     *
+     * @param table      表结构
+     * @param partitions 删除的分区名称
+     * @return 返回删除分区的SQL
+     */
+    public static String dropPartitionSQL(Table table, List<String> partitions) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("ALTER TABLE ").append(table.name()).append("DROP PARTITION ");
+        for (int i = 0; i < partitions.size(); i++) {
+            if (i > 0) {
+                sb.append(",");
+            }
+            sb.append(partitions.get(i));
+        }
+        return sb.append(";").toString();
+    }
+
+    /**
+     * 查询表的分区名称的SQL, 按分区顺序. 参数 : 数据库名称(为null时使用当前数据库), 表名称
+     */
+    public static final String PARTITIONS_QUERY = "SELECT PARTITION_NAME FROM information_schema.PARTITIONS"
+            + " WHERE TABLE_SCHEMA = IFNULL(?, DATABASE()) AND TABLE_NAME = ? AND PARTITION_NAME IS NOT NULL"
+            + " ORDER BY PARTITION_ORDINAL_POSITION";
+
 //    PRIMARY KEY (`teamId`),
 //    UNIQUE KEY `name` (`name`),
 //    FULLTEXT KEY `name` (`name`),
@@ -398,6 +704,17 @@ public final class MySQL {
 //    KEY `name_2` (`name`,`createCharId`)
 
     public static StringBuilder indexesSQL(KeyIndex[] keyIndexes) {
+        return indexesSQL(keyIndexes, null);
+    }
+
+    /**
+     * 获取索引的SQL. 分区表的PRIMARY/UNIQUE索引必须包含分区字段, 缺少时追加到索引的最后一列
+     *
+     * @param keyIndexes     索引
+     * @param partitionField 分区字段, 不分区时为null
+     * @return 返回索引的SQL
+     */
+    public static StringBuilder indexesSQL(KeyIndex[] keyIndexes, String partitionField) {
         StringBuilder sb = new StringBuilder();
         if (keyIndexes == null)
             return sb;
@@ -420,6 +737,10 @@ public final class MySQL {
                 }
                 sb.append("`").append(columns[i]).append("`");
             }
+            if (partitionField != null && ("PRIMARY".equals(keyIndex.getIndexType()) || "UNIQUE".equals(keyIndex.getIndexType()))
+                    && !containsIgnoreCase(columns, partitionField)) {
+                sb.append(",`").append(partitionField).append("`");
+            }
             sb.append(")");
         }
         if (sb.length() > 0) {
@@ -513,6 +834,15 @@ public final class MySQL {
      * @param table {@link Table}
      * @return return sql string
      */
+    private static boolean containsIgnoreCase(String[] columns, String column) {
+        for (String c : columns) {
+            if (column.equalsIgnoreCase(c)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     public static String tableAttributeSQL(Table table) {
         StringBuilder builder = new StringBuilder();
         if (!StringUtil.isEmpty(table.getDbEngine())) {
@@ -558,7 +888,16 @@ public final class MySQL {
                 autoIncrementCount++;
             }
         }
-        return autoIncrementCount <= 1;
+        if (autoIncrementCount > 1) {
+            return false;
+        }
+        if (table.isPartitioned()) {
+            //  分区字段必须是日期类型
+            Field field = fieldOf(table, table.getPartitionField());
+            return field != null && (DATE.equalsIgnoreCase(field.getType()) || DATETIME.equalsIgnoreCase(field.getType())
+                    || TIMESTAMP.equalsIgnoreCase(field.getType()));
+        }
+        return true;
     }
 
     public static boolean isAutoIncrement(String type) {
@@ -611,6 +950,49 @@ public final class MySQL {
                 TINYBLOB.equals(type);
     }
 
+    /**
+     * Check the error is caused by the row's data. example : incorrect datetime value, data too long, duplicate entry.
+     * <p>
+     * 数据错误只与具体的行有关, 重试无法成功. 连接断开、锁等待超时、死锁等错误返回false.
+     *
+     * @param e The SQL exception.
+     * @return Return true if the error is data exception(SQLState 22xxx) or integrity constraint violation(SQLState 23xxx).
+     */
+    public static boolean isDataError(SQLException e) {
+        for (SQLException cur = e; cur != null; cur = cur.getNextException()) {
+            String state = cur.getSQLState();
+            if (state != null && (state.startsWith("22") || state.startsWith("23"))) {
+                return true;
+            }
+            switch (cur.getErrorCode()) {
+                case 1048:  // Column cannot be null
+                case 1062:  // Duplicate entry
+                case 1264:  // Out of range value
+                case 1265:  // Data truncated
+                case 1292:  // Incorrect datetime value
+                case 1366:  // Incorrect string value
+                case 1406:  // Data too long
+                    return true;
+                default:
+                    break;
+            }
+            if (cur.getCause() instanceof SQLException && cur.getNextException() == null) {
+                return isDataError((SQLException) cur.getCause());
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Format the SQL exception. example : [1292|22007] Incorrect datetime value: 'xx' for column 'logDate' at row 1
+     *
+     * @param e The SQL exception.
+     * @return Return the error message with error code and SQLState.
+     */
+    public static String errorMessage(SQLException e) {
+        return "[" + e.getErrorCode() + "|" + e.getSQLState() + "] " + e.getMessage();
+    }
+
     /**
      * MySQL Data Type
      *
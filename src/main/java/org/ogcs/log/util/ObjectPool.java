@@ -0,0 +1,116 @@
+/*
+ *     Copyright 2016-2026 TinyZ
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ogcs.log.util;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Bounded object pool.
+ * <p>
+ * 基于数组的有界队列, 借出和归还都不分配内存. 池为空时创建新对象(未命中), 池满时丢弃归还的对象.
+ * 命中/未命中/丢弃计数使用{@link LongAdder}, 不在热点路径上争用同一个计数器.
+ *
+ * @author TinyZ
+ * @date 2016-10-30.
+ */
+public final class ObjectPool<T> {
+
+    private final ArrayBlockingQueue<T> pool;
+    private final Supplier<T> factory;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder discards = new LongAdder();
+
+    /**
+     * @param capacity The max pooled object count.
+     * @param factory  The object factory.
+     */
+    public ObjectPool(int capacity, Supplier<T> factory) {
+        if (factory == null) throw new NullPointerException("factory");
+        this.pool = new ArrayBlockingQueue<>(Math.max(capacity, 1));
+        this.factory = factory;
+    }
+
+    /**
+     * Borrow an object from the pool, or create new one if the pool is empty.
+     *
+     * @return Return the object.
+     */
+    public T borrow() {
+        T obj = pool.poll();
+        if (obj != null) {
+            hits.increment();
+            return obj;
+        }
+        misses.increment();
+        return factory.get();
+    }
+
+    /**
+     * Poll a pooled object without creating. Not counted.
+     *
+     * @return Return the pooled object, or null if the pool is empty.
+     */
+    public T poll() {
+        return pool.poll();
+    }
+
+    /**
+     * Return the object to the pool. The caller must not use it anymore.
+     *
+     * @param obj The object.
+     */
+    public void release(T obj) {
+        if (obj != null && !pool.offer(obj)) {
+            discards.increment();
+        }
+    }
+
+    /**
+     * Count the borrow which is served by the pooled object. Used with {@link #poll()}.
+     */
+    public void hit() {
+        hits.increment();
+    }
+
+    /**
+     * Count the borrow which create new object. Used with {@link #poll()}.
+     */
+    public void miss() {
+        misses.increment();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getDiscards() {
+        return discards.sum();
+    }
+
+    /**
+     * @return Return the pooled object count.
+     */
+    public int size() {
+        return pool.size();
+    }
+}
@@ -0,0 +1,206 @@
+/*
+ *     Copyright 2016-2026 TinyZ
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ogcs.log.util;
+
+import com.google.protobuf.WireFormat;
+import org.ogcs.log.core.builder.Field;
+import org.ogcs.log.core.builder.Table;
+import org.ogcs.log.core.parser.Dom4JParser;
+import org.ogcs.utilities.StringUtil;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.Collection;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.ogcs.log.util.MySQL.DataType.*;
+
+/**
+ * Protocol Buffers utility.
+ * <p>
+ * 二进制日志协议. 每一个日志表对应一个protobuf message :
+ * <pre>
+ *     field 1       : 表名(string), 必须位于消息的第一个字段
+ *     field (i + 2) : 表的第i个字段, 与文本协议 split[i + 1] 对应
+ * </pre>
+ * 数值类型使用varint传输, 日期时间类型(DATE|DATETIME|TIMESTAMP)使用epoch秒传输.
+ *
+ * @author TinyZ
+ * @date 2016-10-18.
+ */
+public final class ProtoUtil {
+
+    /**
+     * The field number of the table name. table's field start at {@link #TABLE_FIELD_NUMBER} + 1.
+     */
+    public static final int TABLE_FIELD_NUMBER = 1;
+
+    private ProtoUtil() {
+        //no-op
+    }
+
+    /**
+     * Get protobuf scalar value type of the table's field.
+     *
+     * @param field The table's field.
+     * @return Return the proto type. see {@link ProtoType}
+     */
+    public static String protoType(Field field) {
+        String type = field.getType().toUpperCase();
+        switch (type) {
+            case TINYINT:
+            case SMALLINT:
+            case MEDIUMINT:
+            case INT:
+            case INTEGER:
+                return field.isUnsigned() ? ProtoType.UINT32 : ProtoType.SINT32;
+            case BIGINT:
+                return field.isUnsigned() ? ProtoType.UINT64 : ProtoType.SINT64;
+            case BIT:
+                return ProtoType.UINT64;
+            case YEAR:
+                return ProtoType.UINT32;
+            case FLOAT:
+                return ProtoType.FLOAT;
+            case DOUBLE:
+                return ProtoType.DOUBLE;
+            case DATE:
+            case DATETIME:
+            case TIMESTAMP:
+                return ProtoType.INT64;
+            case TINYBLOB:
+            case BLOB:
+            case MEDIUMBLOB:
+            case LONGBLOB:
+                return ProtoType.BYTES;
+            default:    //  DECIMAL|TIME|CHAR|VARCHAR|TEXT...
+                return ProtoType.STRING;
+        }
+    }
+
+    /**
+     * Get protobuf wire type of the proto type.
+     *
+     * @param protoType The proto type. see {@link ProtoType}
+     * @return Return the wire type. see {@link WireFormat}
+     */
+    public static int wireType(String protoType) {
+        switch (protoType) {
+            case ProtoType.FLOAT:
+                return WireFormat.WIRETYPE_FIXED32;
+            case ProtoType.DOUBLE:
+                return WireFormat.WIRETYPE_FIXED64;
+            case ProtoType.STRING:
+            case ProtoType.BYTES:
+                return WireFormat.WIRETYPE_LENGTH_DELIMITED;
+            default:
+                return WireFormat.WIRETYPE_VARINT;
+        }
+    }
+
+    /**
+     * Create the proto (proto2) file content of the tables.
+     * <p>
+     * The client use the generated file to generate the message code by protoc.
+     *
+     * @param tables   The tables.
+     * @param pkg      The proto package name.
+     * @param javaPkg  The java package name, nullable.
+     * @return Return proto file content.
+     */
+    public static String protoFile(Collection<Table> tables, String pkg, String javaPkg) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("// Generated by Okra-LOG. DO NOT EDIT!\n");
+        sb.append("syntax = \"proto2\";\n\n");
+        if (!StringUtil.isEmpty(pkg)) {
+            sb.append("package ").append(pkg).append(";\n\n");
+        }
+        if (!StringUtil.isEmpty(javaPkg)) {
+            sb.append("option java_package = \"").append(javaPkg).append("\";\n\n");
+        }
+        for (Table table : tables) {
+            message(sb, table);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * <pre>
+     *     Example :
+     *     message log_money {
+     *         required string table = 1;
+     *         optional int64 logDate = 2;
+     *     }
+     * </pre>
+     */
+    private static StringBuilder message(StringBuilder sb, Table table) {
+        if (!StringUtil.isEmpty(table.getDesc())) {
+            sb.append("// ").append(table.getDesc()).append("\n");
+        }
+        String name = table.getName().toLowerCase();
+        sb.append("message ").append(name).append(" {\n");
+        sb.append("    required string table = ").append(TABLE_FIELD_NUMBER).append(" [default = \"").append(name).append("\"];\n");
+        Field[] fields = table.getFields();
+        for (int i = 0; i < fields.length; i++) {
+            Field field = fields[i];
+            sb.append("    optional ").append(protoType(field)).append(" ").append(field.getName())
+                    .append(" = ").append(i + TABLE_FIELD_NUMBER + 1).append(";");
+            if (!StringUtil.isEmpty(field.getDesc())) {
+                sb.append(" // ").append(field.getDesc());
+            }
+            sb.append("\n");
+        }
+        sb.append("}\n\n");
+        return sb;
+    }
+
+    /**
+     * Generate proto file by the log struct file.
+     * <pre>
+     *     args[0] : The log struct file path. default : ./config/aolog.xml
+     *     args[1] : The output proto file path. default : ./config/okra_log.proto
+     * </pre>
+     */
+    public static void main(String[] args) throws IOException {
+        String xmlPath = args.length > 0 ? args[0] : "./config/aolog.xml";
+        String outPath = args.length > 1 ? args[1] : "./config/okra_log.proto";
+        Map<String, Table> tables = new TreeMap<>(new Dom4JParser(xmlPath).getAll());
+        try (OutputStream os = new FileOutputStream(outPath)) {
+            os.write(protoFile(tables.values(), "okra.log", "org.ogcs.log.proto").getBytes(Charset.forName("UTF-8")));
+        }
+    }
+
+    /**
+     * Protocol buffers scalar value types.
+     *
+     * @since 1.0
+     */
+    public interface ProtoType {
+        String SINT32 = "sint32";
+        String SINT64 = "sint64";
+        String UINT32 = "uint32";
+        String UINT64 = "uint64";
+        String INT64 = "int64";
+        String FLOAT = "float";
+        String DOUBLE = "double";
+        String STRING = "string";
+        String BYTES = "bytes";
+    }
+}
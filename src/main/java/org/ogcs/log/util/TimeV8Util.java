@@ -16,8 +16,10 @@
 
 package org.ogcs.log.util;
 
+import java.time.Instant;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 
 /**
@@ -61,4 +63,111 @@ public class TimeV8Util {
     public static String dateTime(LocalDateTime dateTime, String pattern) {
         return dateTime.format(DateTimeFormatter.ofPattern(pattern));
     }
+
+    /**
+     * Format epoch second as local date time string. example : 2016-06-24 12:00:00
+     *
+     * @param epochSecond The seconds from the epoch of 1970-01-01T00:00:00Z
+     * @return Return the date time string in system default time zone.
+     */
+    public static String dateTime(long epochSecond) {
+        return dateTime(LocalDateTime.ofInstant(Instant.ofEpochSecond(epochSecond), ZoneId.systemDefault()));
+    }
+
+    /**
+     * Format epoch second as local date string. example : 2016-06-24
+     *
+     * @param epochSecond The seconds from the epoch of 1970-01-01T00:00:00Z
+     * @return Return the date string in system default time zone.
+     */
+    public static String date(long epochSecond) {
+        return date(LocalDateTime.ofInstant(Instant.ofEpochSecond(epochSecond), ZoneId.systemDefault()).toLocalDate());
+    }
+
+    /**
+     * Parse the local date time string to local epoch second without allocation.
+     * <p>
+     * Local epoch second : the wall clock seconds from 1970-01-01 00:00:00, without time zone.
+     * Support format : "yyyy-MM-dd", "yyyy-MM-dd HH:mm:ss" and "yyyy-MM-dd HH:mm:ss.SSS"(the fraction is ignored).
+     *
+     * @param text The date time string.
+     * @return Return the local epoch second, {@link Long#MIN_VALUE} if the text is invalid.
+     */
+    public static long parseLocalEpochSecond(String text) {
+        int length = text.length();
+        if (length != 10 && (length < 19 || (length > 19 && text.charAt(19) != '.'))) {
+            return Long.MIN_VALUE;
+        }
+        if (text.charAt(4) != '-' || text.charAt(7) != '-') {
+            return Long.MIN_VALUE;
+        }
+        int year = digits(text, 0, 4);
+        int month = digits(text, 5, 2);
+        int day = digits(text, 8, 2);
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > lengthOfMonth(year, month)) {
+            return Long.MIN_VALUE;
+        }
+        int seconds = 0;
+        if (length > 10) {
+            char c = text.charAt(10);
+            if ((c != ' ' && c != 'T') || text.charAt(13) != ':' || text.charAt(16) != ':') {
+                return Long.MIN_VALUE;
+            }
+            int hour = digits(text, 11, 2);
+            int minute = digits(text, 14, 2);
+            int second = digits(text, 17, 2);
+            if (hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 59) {
+                return Long.MIN_VALUE;
+            }
+            seconds = hour * 3600 + minute * 60 + second;
+        }
+        return epochDay(year, month, day) * 86400L + seconds;
+    }
+
+    /**
+     * The same as {@link LocalDate#toEpochDay()}. year must be positive.
+     */
+    private static long epochDay(int year, int month, int day) {
+        long y = year;
+        long total = 365 * y + (y + 3) / 4 - (y + 99) / 100 + (y + 399) / 400;
+        total += (367 * month - 362) / 12;
+        total += day - 1;
+        if (month > 2) {
+            total--;
+            if (!isLeapYear(year)) {
+                total--;
+            }
+        }
+        return total - 719528L;  //  days from 0000-01-01 to 1970-01-01
+    }
+
+    private static boolean isLeapYear(int year) {
+        return (year & 3) == 0 && (year % 100 != 0 || year % 400 == 0);
+    }
+
+    private static int lengthOfMonth(int year, int month) {
+        switch (month) {
+            case 2:
+                return isLeapYear(year) ? 29 : 28;
+            case 4:
+            case 6:
+            case 9:
+            case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+
+    private static int digits(String text, int from, int count) {
+        int value = 0;
+        for (int i = from; i < from + count; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
 }
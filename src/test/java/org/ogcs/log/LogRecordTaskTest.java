@@ -7,14 +7,12 @@ import org.ogcs.log.config.OkraConfig;
 import org.ogcs.log.config.OkraProperties;
 import org.ogcs.log.core.MissionBoard;
 import org.ogcs.log.core.Struct;
+import org.ogcs.log.core.builder.RecordBatch;
 import org.ogcs.log.core.builder.Table;
 import org.ogcs.log.core.handler.LogRecordTask;
 import org.ogcs.log.core.parser.W3cDomParser;
 import org.ogcs.utilities.StringUtil;
 
-import java.util.ArrayList;
-import java.util.List;
-
 /**
  * @author TinyZ
  * @date 2016/6/26.
@@ -38,15 +36,14 @@ public class LogRecordTaskTest {
         Table logMoney = parser.getTable("log_money");
         //  log data
         String str = "log_money|2016-06-24|openid|0|105|15|100|1000";
-        List<String[]> list = new ArrayList<>();
-        for (int i = 0; i < 10; i++) {
-            list.add(StringUtil.split(str, '|'));
-        }
-
         MissionBoard board = new MissionBoard(config);
         Struct struct = new Struct(logMoney, board);
+        RecordBatch batch = struct.newBatch();
+        for (int i = 0; i < 10; i++) {
+            batch.add(StringUtil.split(str, '|'));
+        }
         task = new LogRecordTask();
-        task.setValues(struct, list);
+        task.setValues(struct, batch);
     }
 
 //    @Test
@@ -0,0 +1,63 @@
+/*
+ *     Copyright 2016-2026 TinyZ
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ogcs.log.test;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.ogcs.log.config.OkraConfig;
+import org.ogcs.log.core.BatchController;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author TinyZ
+ * @date 2016-10-29.
+ */
+public class BatchControllerTest {
+
+    private static final long MS = TimeUnit.MILLISECONDS.toNanos(1L);
+
+    @Test
+    public void testAimd() {
+        OkraConfig config = new OkraConfig(9005, null, null, null, null, 16, null, "./config/aolog.xml", '|', 5000L, 50);
+        config.setAdaptiveMinBatchSize(10);
+        config.setAdaptiveMaxBatchSize(70);
+        config.setAdaptiveStep(10);
+        config.setAdaptiveTargetLatency(100L);
+        config.setAdaptiveMinInterval(20L);
+        config.setAdaptiveMaxInterval(1000L);
+        BatchController controller = new BatchController(config);
+        Assert.assertEquals(50, controller.getBatchSize());
+        Assert.assertEquals(1000L, controller.getInterval());
+        //  延迟低于目标, 队列积压 : 加性增加
+        controller.onRecorded(10 * MS, 1000);
+        Assert.assertEquals(60, controller.getBatchSize());
+        Assert.assertEquals(90L, controller.getInterval());
+        controller.onRecorded(10 * MS, 1000);
+        controller.onRecorded(10 * MS, 1000);
+        Assert.assertEquals(70, controller.getBatchSize());
+        //  队列无积压 : 不变
+        controller.onRecorded(10 * MS, 5);
+        Assert.assertEquals(70, controller.getBatchSize());
+        //  延迟超过目标 : 减半
+        controller.onRecorded(500 * MS, 1000);
+        Assert.assertEquals(35, controller.getBatchSize());
+        Assert.assertEquals(20L, controller.getInterval());
+        controller.onFailure();
+        controller.onFailure();
+        Assert.assertEquals(10, controller.getBatchSize());
+    }
+}
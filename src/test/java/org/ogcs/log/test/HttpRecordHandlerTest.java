@@ -0,0 +1,177 @@
+/*
+ *     Copyright 2016-2026 TinyZ
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ogcs.log.test;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONObject;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaderValues;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpVersion;
+import org.junit.Assert;
+import org.junit.Test;
+import org.ogcs.log.core.MissionBoard;
+import org.ogcs.log.core.builder.Table;
+import org.ogcs.log.core.handler.HttpRecordHandler;
+import org.ogcs.log.core.handler.RecordFrames;
+import org.ogcs.log.core.handler.TextRecordTranslator;
+import org.ogcs.log.core.handler.Translator;
+import org.ogcs.log.core.parser.Dom4JParser;
+import org.ogcs.log.core.parser.StructParser;
+
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @author TinyZ
+ * @date 2016-11-04.
+ */
+public class HttpRecordHandlerTest {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final String LOG = "log_money|2016-06-24|openid|0|105|15|100|1000";
+
+    private final List<String[]> added = new ArrayList<>();
+    private final Dom4JParser parser = new Dom4JParser(TestBoards.XML);
+    private boolean overloaded;
+    /**
+     * 模拟溢出策略(dropNewest/divert) : 只接受前N条日志
+     */
+    private int capacity = Integer.MAX_VALUE;
+
+    private EmbeddedChannel channel() {
+        MissionBoard board = new MissionBoard(TestBoards.config(10)) {
+            final Translator<ByteBuf, String[]> translator = new TextRecordTranslator(parser, '|');
+
+            @Override
+            public boolean add(String tableName, String[] params) {
+                if (added.size() >= capacity) {
+                    return false;
+                }
+                added.add(params);
+                return true;
+            }
+
+            @Override
+            public boolean isOverloaded() {
+                return overloaded;
+            }
+
+            @Override
+            public StructParser<Table> getParser() {
+                return parser;
+            }
+
+            @Override
+            public Translator<ByteBuf, String[]> getTranslator() {
+                return translator;
+            }
+        };
+        return new EmbeddedChannel(new HttpRecordHandler(board));
+    }
+
+    private static FullHttpRequest post(String body) {
+        return new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.POST, "/", Unpooled.copiedBuffer(body, UTF_8));
+    }
+
+    private static JSONObject read(EmbeddedChannel channel, HttpResponseStatus status) {
+        FullHttpResponse response = channel.readOutbound();
+        Assert.assertNotNull(response);
+        try {
+            Assert.assertEquals(status, response.status());
+            return JSON.parseObject(response.content().toString(UTF_8));
+        } finally {
+            response.release();
+        }
+    }
+
+    @Test
+    public void testGetKeepAlive() {
+        EmbeddedChannel channel = channel();
+        for (int i = 0; i < 2; i++) {
+            channel.writeInbound(new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/?" + LOG));
+            JSONObject json = read(channel, HttpResponseStatus.OK);
+            Assert.assertEquals(1, json.getIntValue("accepted"));
+            Assert.assertEquals(0, json.getIntValue("rejected"));
+            //  HTTP/1.1默认保持连接
+            Assert.assertTrue(channel.isOpen());
+        }
+        Assert.assertEquals(2, added.size());
+        FullHttpRequest close = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/?" + LOG);
+        close.headers().set(HttpHeaderNames.CONNECTION, HttpHeaderValues.CLOSE);
+        channel.writeInbound(close);
+        read(channel, HttpResponseStatus.OK);
+        Assert.assertFalse(channel.isOpen());
+    }
+
+    @Test
+    public void testPostLines() {
+        EmbeddedChannel channel = channel();
+        channel.writeInbound(post(LOG + "\r\n\nlog_money|2016-06-24|openid\n" + LOG));
+        JSONObject json = read(channel, HttpResponseStatus.OK);
+        Assert.assertEquals(2, json.getIntValue("accepted"));
+        Assert.assertEquals(1, json.getIntValue("rejected"));
+        Assert.assertEquals("openid", added.get(1)[2]);
+        Assert.assertTrue(channel.isOpen());
+    }
+
+    @Test
+    public void testPostFrame() {
+        EmbeddedChannel channel = channel();
+        FullHttpRequest request = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.POST, "/",
+                RecordFrames.encode(Unpooled.buffer(), LOG.getBytes(UTF_8), "log_money|bad".getBytes(UTF_8), LOG.getBytes(UTF_8)));
+        request.headers().set(HttpHeaderNames.CONTENT_TYPE, HttpHeaderValues.APPLICATION_OCTET_STREAM);
+        channel.writeInbound(request);
+        JSONObject json = read(channel, HttpResponseStatus.OK);
+        Assert.assertEquals(2, json.getIntValue("accepted"));
+        Assert.assertEquals(1, json.getIntValue("rejected"));
+    }
+
+    @Test
+    public void testDropped() {
+        capacity = 1;
+        EmbeddedChannel channel = channel();
+        channel.writeInbound(post(LOG + "\n" + LOG + "\n" + LOG));
+        JSONObject json = read(channel, HttpResponseStatus.OK);
+        //  被溢出策略丢弃的日志不计为accepted
+        Assert.assertEquals(1, json.getIntValue("accepted"));
+        Assert.assertEquals(2, json.getIntValue("rejected"));
+        channel.writeInbound(new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/?" + LOG));
+        json = read(channel, HttpResponseStatus.OK);
+        Assert.assertEquals(0, json.getIntValue("accepted"));
+        Assert.assertEquals(1, json.getIntValue("rejected"));
+    }
+
+    @Test
+    public void testOverloaded() {
+        overloaded = true;
+        EmbeddedChannel channel = channel();
+        channel.writeInbound(post(LOG + "\r\n" + LOG + "\n\n" + LOG + "\n"));
+        JSONObject json = read(channel, HttpResponseStatus.SERVICE_UNAVAILABLE);
+        Assert.assertEquals(0, json.getIntValue("accepted"));
+        Assert.assertEquals(3, json.getIntValue("rejected"));
+        Assert.assertTrue(added.isEmpty());
+        Assert.assertTrue(channel.isOpen());
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ *     Copyright 2016-2026 TinyZ
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ogcs.log.test;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.ogcs.log.core.handler.IpMatcher;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.HashMap;
+
+/**
+ * @author TinyZ
+ * @date 2016-10-22.
+ */
+public class IpMatcherTest {
+
+    @Test
+    public void testLongestPrefixMatch() throws UnknownHostException {
+        IpMatcher matcher = new IpMatcher(new HashMap<>(), false);
+        matcher.add("10.0.0.0/8", true);
+        matcher.add("10.1.0.0/16", false);
+        matcher.add("10.1.2.3", true);
+        matcher.add("fe80::/10", true);
+
+        Assert.assertTrue(matcher.accept("10.2.3.4"));
+        Assert.assertFalse(matcher.accept("10.1.3.4"));
+        Assert.assertTrue(matcher.accept("10.1.2.3"));
+        Assert.assertTrue(matcher.accept(InetAddress.getByName("10.1.2.3")));
+        Assert.assertFalse(matcher.accept(InetAddress.getByName("10.1.2.4")));
+        Assert.assertFalse(matcher.accept("192.168.1.1"));
+        Assert.assertTrue(matcher.accept("fe80::1"));
+        Assert.assertFalse(matcher.accept("::1"));
+        Assert.assertFalse(matcher.accept("localhost"));   // host name is not support
+
+        matcher.remove("10.1.0.0/16");
+        Assert.assertTrue(matcher.accept("10.1.3.4"));
+    }
+
+    @Test
+    public void testInetAddress() throws UnknownHostException {
+        IpMatcher matcher = new IpMatcher(new HashMap<>(), false);
+        matcher.add("192.168.0.0/16", true);
+        matcher.add("255.255.255.255", true);
+        matcher.add("fe80::/10", true);
+        //  IPv4的匹配使用Inet4Address.hashCode(), 必须是big-endian的地址
+        Assert.assertEquals(0xC0A801C8, InetAddress.getByAddress(new byte[]{(byte) 192, (byte) 168, 1, (byte) 200}).hashCode());
+        //  高位字节 >= 128 的IPv4地址
+        Assert.assertTrue(matcher.accept(InetAddress.getByAddress(new byte[]{(byte) 192, (byte) 168, 1, (byte) 200})));
+        Assert.assertFalse(matcher.accept(InetAddress.getByAddress(new byte[]{(byte) 192, (byte) 169, 1, 1})));
+        Assert.assertTrue(matcher.accept(InetAddress.getByAddress(new byte[]{-1, -1, -1, -1})));
+        Assert.assertFalse(matcher.accept(InetAddress.getByAddress(new byte[]{-1, -1, -1, -2})));
+        Assert.assertTrue(matcher.accept(InetAddress.getByName("fe80::1")));
+        Assert.assertFalse(matcher.accept(InetAddress.getByName("::2")));
+    }
+
+    @Test
+    public void testReload() {
+        IpMatcher matcher = new IpMatcher();
+        Assert.assertTrue(matcher.accept("192.168.1.1"));
+        matcher.reload(new HashMap<String, Boolean>() {{
+            put("0.0.0.0/0", false);
+            put("192.168.0.0/16", true);
+        }});
+        Assert.assertTrue(matcher.accept("192.168.1.1"));
+        Assert.assertFalse(matcher.accept("172.16.1.1"));
+        try {
+            matcher.reload(new HashMap<String, Boolean>() {{
+                put("192.168.0.0/33", true);
+            }});
+            Assert.fail();
+        } catch (IllegalArgumentException e) {
+            // the old rules will be keep
+            Assert.assertFalse(matcher.accept("172.16.1.1"));
+        }
+    }
+}
@@ -0,0 +1,275 @@
+/*
+ *     Copyright 2016-2026 TinyZ
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ogcs.log.test;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.ogcs.log.config.OkraConfig;
+import org.ogcs.log.core.MissionBoard;
+import org.ogcs.log.core.Struct;
+import org.ogcs.log.core.builder.RecordBatch;
+import org.ogcs.log.core.builder.Table;
+import org.ogcs.log.core.handler.LogRecordTask;
+import org.ogcs.utilities.StringUtil;
+
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLWarning;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 模拟MySQL驱动, 包含"bad"字段值的行写入失败(SQLState 22007).
+ *
+ * @author TinyZ
+ * @date 2016-10-31.
+ */
+public class IsolateTest {
+
+    private final List<String> committed = new ArrayList<>();
+    private final List<String> pending = new ArrayList<>();
+    private final List<String> batch = new ArrayList<>();
+    private final List<String> shapes = new ArrayList<>();
+    private String row = "";
+    private int executes;
+    private String writer = Table.WRITER_INSERT;
+    private InputStream infile;
+
+    /**
+     * LOAD DATA LOCAL INFILE : 错误的值转换后写入并产生警告.
+     */
+    private Statement loadStatement() {
+        final int[] warnings = new int[1];
+        return TestBoards.proxy(com.mysql.jdbc.Statement.class, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "unwrap":
+                    return proxy;
+                case "setLocalInfileInputStream":
+                    infile = (InputStream) args[0];
+                    return null;
+                case "executeUpdate":
+                    executes++;
+                    BufferedReader reader = new BufferedReader(new InputStreamReader(infile, StandardCharsets.UTF_8));
+                    int count = 0;
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        if (line.contains("\tbad\t")) {
+                            warnings[0]++;
+                        }
+                        pending.add(line);
+                        count++;
+                    }
+                    return count;
+                case "getWarnings":
+                    return warnings[0] > 0 ? new SQLWarning("Incorrect datetime value: 'bad'", "22007", 1292) : null;
+                case "execute":
+                    return true;
+                default:
+                    return null;
+            }
+        });
+    }
+
+    private Connection connection(boolean continueBatchOnError) {
+        PreparedStatement stat = TestBoards.proxy(PreparedStatement.class, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "setString":
+                    row += args[1] + ",";
+                    return null;
+                case "addBatch":
+                    batch.add(row);
+                    row = "";
+                    return null;
+                case "clearBatch":
+                    batch.clear();
+                    return null;
+                case "executeUpdate":
+                    executes++;
+                    String[] values = row.split(",");
+                    row = "";
+                    for (String value : values) {
+                        if (value.equals("bad")) {
+                            throw new SQLException("Incorrect datetime value", "22007", 1292);
+                        }
+                    }
+                    for (String value : values) {
+                        pending.add(value + ",");
+                    }
+                    return values.length;
+                case "executeBatch":
+                    executes++;
+                    List<Integer> counts = new ArrayList<>();
+                    for (String r : batch) {
+                        if (r.contains("bad,")) {
+                            if (!continueBatchOnError) {
+                                throw new BatchUpdateException("Incorrect datetime value", "22007", 1292, new int[0]);
+                            }
+                            counts.add(Statement.EXECUTE_FAILED);
+                        } else {
+                            pending.add(r);
+                            counts.add(1);
+                        }
+                    }
+                    int[] ary = counts.stream().mapToInt(Integer::intValue).toArray();
+                    if (counts.contains(Statement.EXECUTE_FAILED)) {
+                        throw new BatchUpdateException("Incorrect datetime value", "22007", 1292, ary);
+                    }
+                    return ary;
+                default:
+                    return null;
+            }
+        });
+        return TestBoards.proxy(Connection.class, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "prepareStatement":
+                    shapes.add((String) args[0]);
+                    return stat;
+                case "createStatement":
+                    return writer.equals(Table.WRITER_LOAD) ? loadStatement() : TestBoards.statement(new ArrayList<>());
+                case "setSavepoint":
+                    final int mark = pending.size();
+                    return TestBoards.proxy(Savepoint.class, (p, m, a) -> mark);
+                case "rollback":
+                    int mark0 = args == null ? 0 : ((Savepoint) args[0]).getSavepointId();
+                    pending.subList(mark0, pending.size()).clear();
+                    return null;
+                case "commit":
+                    committed.addAll(pending);
+                    pending.clear();
+                    return null;
+                default:
+                    return null;
+            }
+        });
+    }
+
+    private List<String[]> record(boolean continueBatchOnError, boolean isolate, int maxPacket, String... openIds) {
+        final List<String[]> quarantined = new ArrayList<>();
+        final List<RecordBatch> retried = new ArrayList<>();
+        OkraConfig config = TestBoards.config(100);
+        config.setRetryIsolate(isolate);
+        config.setInsertMaxPacket(maxPacket);
+        MissionBoard board = new TestBoards.Board(config, connection(continueBatchOnError)) {
+            @Override
+            public boolean quarantine(String[] params, String reason) {
+                Assert.assertTrue(reason.startsWith("[1292|22007]"));
+                quarantined.add(params);
+                return true;
+            }
+
+            @Override
+            public void retry(Struct struct, RecordBatch batch, long delay) {
+                retried.add(batch);
+            }
+        };
+        Table table = TestBoards.table();
+        table.setWriter(writer);
+        Struct struct = new Struct(table, board);
+        RecordBatch batch = struct.newBatch();
+        for (String openId : openIds) {
+            Assert.assertNull(batch.add(StringUtil.split("log_money|2016-06-24 00:00:00|" + openId + "|0|105|15|100|1000", '|')));
+        }
+        LogRecordTask task = new LogRecordTask();
+        task.setValues(struct, batch);
+        task.record();
+        Assert.assertEquals(isolate ? 0 : 1, retried.size());
+        Assert.assertEquals(quarantined.size(), struct.getQuarantined());
+        return quarantined;
+    }
+
+    private String[] openIds(int size, int... bad) {
+        String[] ary = new String[size];
+        for (int i = 0; i < size; i++) {
+            ary[i] = "u" + i;
+        }
+        for (int i : bad) {
+            ary[i] = "bad";
+        }
+        return ary;
+    }
+
+    @Test
+    public void testBisect() {
+        List<String[]> quarantined = record(false, true, 0, openIds(100, 3, 77));
+        Assert.assertEquals(2, quarantined.size());
+        Assert.assertEquals("bad", quarantined.get(0)[2]);
+        Assert.assertEquals(98, committed.size());
+        Assert.assertTrue(pending.isEmpty());
+        //  1次整批 + 二分 : 远少于逐行执行
+        Assert.assertTrue(executes < 40);
+    }
+
+    @Test
+    public void testUpdateCounts() {
+        List<String[]> quarantined = record(true, true, 0, openIds(100, 50));
+        Assert.assertEquals(1, quarantined.size());
+        Assert.assertEquals(99, committed.size());
+        Assert.assertEquals(2, executes);
+    }
+
+    @Test
+    public void testDisabled() {
+        Assert.assertTrue(record(false, false, 0, openIds(10, 1)).isEmpty());
+        Assert.assertTrue(committed.isEmpty());
+    }
+
+    @Test
+    public void testMultiRow() {
+        //  (5500 - head) / (35 * 3 + 7 * 3 + 3) = 41 => 32 rows per statement, 3 * 32 + 4
+        Assert.assertTrue(record(false, true, 5500, openIds(100)).isEmpty());
+        Assert.assertEquals(100, committed.size());
+        Assert.assertEquals(4, executes);
+        Assert.assertEquals(2, shapes.size());
+        Assert.assertTrue(shapes.get(0).endsWith("(?,?,?,?,?,?,?),(?,?,?,?,?,?,?);"));
+        Assert.assertEquals(32, shapes.get(0).split("\\),\\(").length);
+        Assert.assertEquals(4, shapes.get(1).split("\\),\\(").length);
+    }
+
+    @Test
+    public void testMultiRowIsolate() {
+        List<String[]> quarantined = record(false, true, 1 << 20, openIds(100, 42));
+        Assert.assertEquals(1, quarantined.size());
+        Assert.assertEquals(99, committed.size());
+    }
+
+    @Test
+    public void testLoad() {
+        writer = Table.WRITER_LOAD;
+        Assert.assertTrue(record(false, true, 0, openIds(100)).isEmpty());
+        Assert.assertEquals(100, committed.size());
+        Assert.assertEquals(1, executes);
+        Assert.assertTrue(shapes.isEmpty());
+    }
+
+    @Test
+    public void testLoadIsolate() {
+        writer = Table.WRITER_LOAD;
+        //  LOAD产生警告 : 回滚后按INSERT方式写入并隔离错误行
+        List<String[]> quarantined = record(false, true, 0, openIds(100, 7));
+        Assert.assertEquals(1, quarantined.size());
+        Assert.assertEquals("bad", quarantined.get(0)[2]);
+        Assert.assertEquals(99, committed.size());
+        Assert.assertFalse(shapes.isEmpty());
+    }
+}
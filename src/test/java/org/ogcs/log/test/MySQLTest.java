@@ -8,10 +8,12 @@ import org.ogcs.log.core.builder.Table;
 import org.ogcs.log.core.parser.Dom4JParser;
 import org.ogcs.log.util.MySQL;
 
+import java.nio.charset.StandardCharsets;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.Arrays;
 
 /**
  * @author TinyZ
@@ -67,6 +69,43 @@ public class MySQLTest {
         }
     }
 
+    /**
+     * 测试多行语句不超过数据包预算 : 中日韩文字UTF-8编码为3字节
+     */
+    @Test
+    public void testRowsPerStatement() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            sb.append('中');
+        }
+        String value = sb.toString();
+        final int maxPacket = 64 * 1024;
+        final int columns = 4;
+        final String head = "INSERT INTO `t` (`a`,`b`,`c`,`d`) VALUES ";
+        int rows = MySQL.rowsPerStatement(maxPacket, head.length(), columns, value.length() * columns);
+        Assert.assertTrue(rows > 1);
+        String row = "('" + value + "','" + value + "','" + value + "','" + value + "')";
+        long bytes = head.length() + (long) rows * (row.getBytes(StandardCharsets.UTF_8).length + 1);
+        Assert.assertTrue(bytes <= maxPacket);
+    }
+
+    /**
+     * 测试最后一个字段为自增字段时生成的多行插入语句
+     */
+    @Test
+    public void testPrepareQueryAutoIncrement() {
+        Table table = new Dom4JParser(this.xmlFilePath).getTable(testTableName);
+        Field[] fields = table.getFields();
+        Field[] withId = Arrays.copyOf(fields, fields.length + 1);
+        withId[fields.length] = new Field("id", "INT", "11", null, true, true, true, true, null, null, null);
+        table.setFields(withId);
+        String query = MySQL.prepareQuery(table, " `t` ", 2);
+        Assert.assertTrue(query.startsWith("INSERT INTO  `t` (`logDate`,"));
+        Assert.assertFalse(query.contains("`id`"));
+        Assert.assertFalse(query.contains(",)"));
+        Assert.assertTrue(query.endsWith("`) VALUES (?,?,?,?,?,?,?),(?,?,?,?,?,?,?);"));
+    }
+
     public void dropTable(String tableName) {
         exec("DROP TABLE " + tableName);
     }
@@ -0,0 +1,139 @@
+/*
+ *     Copyright 2016-2026 TinyZ
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ogcs.log.test;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.ogcs.log.core.PartitionManager;
+import org.ogcs.log.core.builder.KeyIndex;
+import org.ogcs.log.core.builder.Table;
+import org.ogcs.log.util.MySQL;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * @author TinyZ
+ * @date 2016-11-03.
+ */
+public class PartitionTest {
+
+    private static Table partitioned(String unit) {
+        Table table = TestBoards.table();
+        table.setPartition(unit);
+        return table;
+    }
+
+    @Test
+    public void testCreateSQL() {
+        Table table = partitioned(Table.PARTITION_DAY);
+        //  分区的表使用固定的表名, 忽略日期后缀
+        Assert.assertEquals(" `log_money` ", table.name());
+        Assert.assertFalse(table.period().isBounded());
+        LocalDate today = LocalDate.now();
+        String sql = MySQL.createTableSQL(table);
+        Assert.assertTrue(sql.startsWith("CREATE TABLE IF NOT EXISTS  `log_money` "));
+        Assert.assertTrue(sql.contains("PARTITION BY RANGE (TO_DAYS(`logDate`)) (\n"
+                + "PARTITION " + MySQL.partitionName(Table.PARTITION_DAY, today) + " VALUES LESS THAN (TO_DAYS('" + today.plusDays(1) + "')),\n"
+                + "PARTITION " + MySQL.partitionName(Table.PARTITION_DAY, today.plusDays(1)) + " VALUES LESS THAN (TO_DAYS('" + today.plusDays(2) + "')),\n"
+                + "PARTITION pmax VALUES LESS THAN MAXVALUE);"));
+        //  UNIQUE索引必须包含分区字段
+        table.setIndexes(new KeyIndex[]{new KeyIndex("openId", "UNIQUE", new String[]{"openId"})});
+        Assert.assertTrue(MySQL.createTableSQL(table).contains("UNIQUE KEY `openId` (`openId`,`logDate`)"));
+        //  分区字段必须是日期类型
+        table.setPartitionField("openId");
+        Assert.assertNull(MySQL.createTableSQL(table));
+    }
+
+    @Test
+    public void testPartitionName() {
+        LocalDate date = LocalDate.of(2016, 11, 3);
+        Assert.assertEquals("p20161103", MySQL.partitionName(Table.PARTITION_DAY, date));
+        Assert.assertEquals("p201611", MySQL.partitionName(Table.PARTITION_MONTH, MySQL.partitionStart(Table.PARTITION_MONTH, date)));
+        Assert.assertEquals(date, MySQL.partitionOf(Table.PARTITION_DAY, "p20161103"));
+        Assert.assertEquals(LocalDate.of(2016, 11, 1), MySQL.partitionOf(Table.PARTITION_MONTH, "p201611"));
+        Assert.assertEquals(LocalDate.of(2016, 12, 1), MySQL.partitionNext(Table.PARTITION_MONTH, LocalDate.of(2016, 11, 1)));
+        Assert.assertNull(MySQL.partitionOf(Table.PARTITION_DAY, MySQL.PARTITION_MAX));
+    }
+
+    @Test
+    public void testMaintain() {
+        final Table table = partitioned(Table.PARTITION_DAY);
+        table.setPartitionKeep(3);
+        final List<String> partitions = new ArrayList<>(Arrays.asList("p20161030", "p20161031", "p20161101", "p20161102", "pmax"));
+        final List<String> sqls = new ArrayList<>();
+        TestBoards.Board board = TestBoards.board(TestBoards.config(10), TestBoards.proxy(Connection.class, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "prepareStatement":
+                    Assert.assertEquals(MySQL.PARTITIONS_QUERY, args[0]);
+                    return TestBoards.proxy(PreparedStatement.class, (p, m, a) -> {
+                        if (m.getName().equals("setString")) {
+                            Assert.assertEquals("log_money", a[1]);
+                        } else if (m.getName().equals("executeQuery")) {
+                            return resultSet(partitions);
+                        }
+                        return null;
+                    });
+                case "createStatement":
+                    return TestBoards.statement(sqls);
+                default:
+                    return null;
+            }
+        }));
+        board.struct(table);
+        new PartitionManager(board, 2).maintain(LocalDate.of(2016, 11, 2));
+        Assert.assertEquals(2, sqls.size());
+        //  拆分MAXVALUE分区创建未来2天的分区
+        Assert.assertEquals("ALTER TABLE  `log_money` REORGANIZE PARTITION pmax INTO ("
+                + "PARTITION p20161103 VALUES LESS THAN (TO_DAYS('2016-11-04')), "
+                + "PARTITION p20161104 VALUES LESS THAN (TO_DAYS('2016-11-05')), "
+                + "PARTITION pmax VALUES LESS THAN MAXVALUE);", sqls.get(0));
+        //  保留包含当前分区的3个分区
+        Assert.assertEquals("ALTER TABLE  `log_money` DROP PARTITION p20161030;", sqls.get(1));
+        //  分区已是最新时不修改表
+        sqls.clear();
+        partitions.clear();
+        partitions.addAll(Arrays.asList("p20161031", "p20161101", "p20161102", "p20161103", "p20161104", "pmax"));
+        new PartitionManager(board, 2).maintain(LocalDate.of(2016, 11, 2));
+        Assert.assertTrue(sqls.isEmpty());
+    }
+
+    private static ResultSet resultSet(List<String> names) {
+        final Iterator<String> iterator = new ArrayList<>(names).iterator();
+        final String[] current = new String[1];
+        return TestBoards.proxy(ResultSet.class, (p, m, a) -> {
+            switch (m.getName()) {
+                case "next":
+                    if (!iterator.hasNext()) {
+                        return false;
+                    }
+                    current[0] = iterator.next();
+                    return true;
+                case "getString":
+                    return current[0];
+                default:
+                    return null;
+            }
+        });
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ *     Copyright 2016-2026 TinyZ
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ogcs.log.test;
+
+import com.google.protobuf.CodedOutputStream;
+import io.netty.buffer.Unpooled;
+import org.junit.Assert;
+import org.junit.Test;
+import org.ogcs.log.core.builder.Field;
+import org.ogcs.log.core.builder.Table;
+import org.ogcs.log.core.handler.ProtobufRecordTranslator;
+import org.ogcs.log.core.parser.Dom4JParser;
+import org.ogcs.log.util.TimeV8Util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * @author TinyZ
+ * @date 2016-10-18.
+ */
+public class ProtobufRecordTest {
+
+    private ProtobufRecordTranslator translator = new ProtobufRecordTranslator(new Dom4JParser("./config/aolog.xml"));
+
+    @Test
+    public void testTranslate() throws IOException {
+        long now = System.currentTimeMillis() / 1000L;
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        CodedOutputStream output = CodedOutputStream.newInstance(bos);
+        output.writeString(1, "log_money");
+        output.writeInt64(2, now);
+        output.writeString(3, "openid");
+        output.writeSInt32(4, 0);
+        output.writeSInt32(5, 105);
+        output.writeSInt32(7, -100);
+        output.writeString(99, "unknown field");
+        output.flush();
+
+        String[] params = translator.translate(Unpooled.wrappedBuffer(bos.toByteArray()));
+        Assert.assertNotNull(params);
+        Assert.assertArrayEquals(new String[]{"log_money", TimeV8Util.dateTime(now), "openid", "0", "105", null, "-100", null}, params);
+    }
+
+    @Test
+    public void testSchemaChanged() throws IOException {
+        Dom4JParser parser = new Dom4JParser("./config/aolog.xml");
+        ProtobufRecordTranslator translator = new ProtobufRecordTranslator(parser);
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        CodedOutputStream output = CodedOutputStream.newInstance(bos);
+        output.writeString(1, "log_money");
+        output.writeSInt32(3, 7);
+        output.flush();
+        byte[] msg = bos.toByteArray();
+        //  openId为VARCHAR, 类型不匹配的字段被忽略
+        Assert.assertNull(translator.translate(Unpooled.wrappedBuffer(msg))[2]);
+        //  修改字段后使用新的proto类型
+        Table<Field> table = parser.getTable("log_money");
+        Field[] fields = Arrays.copyOf(table.getFields(), table.getFields().length);
+        fields[1] = new Field(fields[1].getName(), "INT", null, null, false, false, false, false, null, null, null);
+        table.setFields(fields);
+        Assert.assertEquals("7", translator.translate(Unpooled.wrappedBuffer(msg))[2]);
+    }
+
+    @Test
+    public void testUnknownTable() throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        CodedOutputStream output = CodedOutputStream.newInstance(bos);
+        output.writeString(1, "log_unknown");
+        output.flush();
+        Assert.assertNull(translator.translate(Unpooled.wrappedBuffer(bos.toByteArray())));
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ *     Copyright 2016-2026 TinyZ
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ogcs.log.test;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.ogcs.log.core.builder.Field;
+import org.ogcs.log.core.builder.RecordBatch;
+import org.ogcs.log.core.builder.RecordBinder;
+import org.ogcs.log.core.builder.Table;
+import org.ogcs.log.core.parser.Dom4JParser;
+import org.ogcs.log.util.TimeV8Util;
+
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * @author TinyZ
+ * @date 2016-10-24.
+ */
+public class RecordBinderTest {
+
+    /**
+     * The bound values. parameter index => method name : value
+     */
+    private final Map<Integer, String> bound = new HashMap<>();
+
+    private PreparedStatement statement() {
+        return (PreparedStatement) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{PreparedStatement.class}, (proxy, method, args) -> {
+            if (method.getName().startsWith("set")) {
+                bound.put((Integer) args[0], method.getName() + ":" + args[1]);
+            }
+            return null;
+        });
+    }
+
+    @Test
+    public void testBind() throws SQLException {
+        Table table = new Dom4JParser("./config/aolog.xml").getTable("log_money");
+        RecordBatch batch = table.binder().newBatch(table.getName(), 1);
+        Assert.assertNull(batch.add(new String[]{"log_money", "2016-06-24 12:30:00", "openid", "0", "105", "15", "100", "1000"}));
+        Assert.assertNull(batch.add(new String[]{"log_money", "2016-06-24", "openid", "1", "105", "15", "100", "1000"}));
+        Assert.assertEquals(2, batch.size());
+        batch.bind(statement(), 0);
+        Assert.assertEquals("setTimestamp:" + Timestamp.valueOf("2016-06-24 12:30:00"), bound.get(1));
+        Assert.assertEquals("setString:openid", bound.get(2));
+        Assert.assertEquals("setInt:0", bound.get(3));
+        Assert.assertEquals("setInt:1000", bound.get(7));
+        // date only
+        batch.bind(statement(), 1);
+        Assert.assertEquals("setTimestamp:" + Timestamp.valueOf("2016-06-24 00:00:00"), bound.get(1));
+        Assert.assertEquals("setString:openid", bound.get(2));
+        Assert.assertEquals("setInt:1", bound.get(3));
+        Assert.assertArrayEquals(new String[]{"log_money", "2016-06-24 00:00:00", "openid", "1", "105", "15", "100", "1000"}, batch.row(1));
+        batch.clear();
+        Assert.assertTrue(batch.isEmpty());
+    }
+
+    @Test
+    public void testDictionaryReuse() throws SQLException {
+        Table table = new Dom4JParser("./config/aolog.xml").getTable("log_money");
+        RecordBatch batch = table.binder().newBatch(table.getName(), 4);
+        for (int round = 0; round < 3; round++) {
+            //  超过初始容量, 包含哈希冲突的字符串("Aa"和"BB")
+            for (int i = 0; i < 100; i++) {
+                String openId = i % 2 == 0 ? "open" + (i % 40) + "Aa" : "open" + (i % 40) + "BB";
+                Assert.assertNull(batch.add(new String[]{"log_money", "2016-06-24", openId, "0", "105", "15", "100", "1000"}));
+            }
+            for (int i = 0; i < 100; i++) {
+                batch.bind(statement(), i);
+                Assert.assertEquals("setString:open" + (i % 40) + (i % 2 == 0 ? "Aa" : "BB"), bound.get(2));
+            }
+            //  回收后字典清空, 下一批次复用
+            batch.clear();
+            Assert.assertNull(batch.add(new String[]{"log_money", "2016-06-24", "round" + round, "0", "105", "15", "100", "1000"}));
+            Assert.assertEquals("round" + round, batch.row(0)[2]);
+            batch.clear();
+        }
+    }
+
+    @Test
+    public void testReject() {
+        Table table = new Dom4JParser("./config/aolog.xml").getTable("log_money");
+        RecordBatch batch = table.binder().newBatch(table.getName(), 4);
+        Assert.assertEquals("value(INT)", batch.add(new String[]{"log_money", "2016-06-24", "openid", "0", "105", "15", "abc", "1000"}));
+        Assert.assertEquals("io(TINYINT)", batch.add(new String[]{"log_money", "2016-06-24", "openid", "128", "105", "15", "100", "1000"}));
+        Assert.assertEquals("logDate(DATETIME)", batch.add(new String[]{"log_money", "2016/06/24", "openid", "0", "105", "15", "100", "1000"}));
+        Assert.assertEquals("logDate(DATETIME)", batch.add(new String[]{"log_money", "2016-02-30", "openid", "0", "105", "15", "100", "1000"}));
+        Assert.assertEquals("openId(VARCHAR)", batch.add(new String[]{"log_money", "2016-06-24", new String(new char[51]).replace('\0', 'x'), "0", "105", "15", "100", "1000"}));
+        Assert.assertTrue(batch.isEmpty());
+    }
+
+    @Test
+    public void testAutoIncrementAndNull() throws SQLException {
+        Field id = new Field("id", "BIGINT", null, null, true, true, true, true, null, null, null);
+        Field money = new Field("money", "BIGINT", null, null, false, false, true, false, null, null, null);
+        Field level = new Field("level", "INT", null, "1", false, true, false, false, null, null, null);
+        Field name = new Field("name", "VARCHAR", "10", null, false, true, false, false, null, null, null);
+        RecordBinder binder = RecordBinder.compile(new Table<>("log_test", new Field[]{id, money, level, name}, null));
+        Assert.assertEquals(3, binder.size());
+        RecordBatch batch = binder.newBatch("log_test", 1);
+        Assert.assertNull(batch.add(new String[]{"log_test", "", "18446744073709551615", "", null}));
+        Assert.assertNull(batch.add(new String[]{"log_test", "", "", "2", "tom"}));
+        //  字符串类型的"NULL"是有效值
+        Assert.assertNull(batch.add(new String[]{"log_test", "", "NULL", "NULL", "NULL"}));
+        batch.bind(statement(), 0);
+        Assert.assertEquals("setBigDecimal:" + new BigDecimal("18446744073709551615"), bound.get(1));
+        Assert.assertEquals("setInt:1", bound.get(2));
+        Assert.assertEquals("setString:", bound.get(3));
+        batch.bind(statement(), 1);
+        Assert.assertEquals("setNull:" + java.sql.Types.DECIMAL, bound.get(1));
+        Assert.assertEquals("setString:tom", bound.get(3));
+        Assert.assertArrayEquals(new String[]{"log_test", "", null, "2", "tom"}, batch.row(1));
+        batch.bind(statement(), 2);
+        Assert.assertEquals("setNull:" + java.sql.Types.DECIMAL, bound.get(1));
+        Assert.assertEquals("setInt:1", bound.get(2));
+        Assert.assertEquals("setString:NULL", bound.get(3));
+        Assert.assertArrayEquals(new String[]{"log_test", "", null, "1", "NULL"}, batch.row(2));
+    }
+
+    @Test
+    public void testParseLocalEpochSecond() {
+        Assert.assertEquals(LocalDateTime.of(2016, 6, 24, 12, 30, 5).toEpochSecond(ZoneOffset.UTC), TimeV8Util.parseLocalEpochSecond("2016-06-24 12:30:05"));
+        Assert.assertEquals(LocalDate.of(2016, 2, 29).toEpochDay() * 86400L, TimeV8Util.parseLocalEpochSecond("2016-02-29"));
+        Assert.assertEquals(Long.MIN_VALUE, TimeV8Util.parseLocalEpochSecond("2015-02-29"));
+        Assert.assertEquals(Long.MIN_VALUE, TimeV8Util.parseLocalEpochSecond("2016-06-24 24:00:00"));
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ *     Copyright 2016-2026 TinyZ
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ogcs.log.test;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.junit.Assert;
+import org.junit.Test;
+import org.ogcs.log.core.handler.RecordFrames;
+import org.ogcs.log.core.handler.TextRecordTranslator;
+import org.ogcs.log.core.parser.Dom4JParser;
+
+import java.nio.charset.Charset;
+
+/**
+ * @author TinyZ
+ * @date 2016-10-19.
+ */
+public class RecordFramesTest {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    @Test
+    public void testVerify() {
+        ByteBuf frame = RecordFrames.encode(Unpooled.buffer(),
+                "log_money|2016-06-24|openid|0|105|15|100|1000".getBytes(UTF_8),
+                "log_level|2016-06-24|openid|1|105|15|1|20|300".getBytes(UTF_8));
+        Assert.assertEquals(2, RecordFrames.verify(frame));
+        // broken record data
+        frame.setByte(frame.writerIndex() - 1, '9');
+        Assert.assertEquals(-1, RecordFrames.verify(frame));
+        // unknown magic
+        Assert.assertEquals(-1, RecordFrames.verify(Unpooled.wrappedBuffer(new byte[RecordFrames.HEADER_LENGTH])));
+    }
+
+    @Test
+    public void testTextRecord() {
+        TextRecordTranslator translator = new TextRecordTranslator(new Dom4JParser("./config/aolog.xml"), '|');
+        ByteBuf frame = RecordFrames.encode(Unpooled.buffer(), "log_money|2016-06-24|openid|0|105|15|100|1000".getBytes(UTF_8));
+        String[] params = translator.translate(frame.slice(RecordFrames.HEADER_LENGTH + 2, frame.readableBytes() - RecordFrames.HEADER_LENGTH - 2));
+        Assert.assertArrayEquals(new String[]{"log_money", "2016-06-24", "openid", "0", "105", "15", "100", "1000"}, params);
+        Assert.assertNull(translator.translate(Unpooled.copiedBuffer("log_money|2016-06-24|openid", UTF_8)));
+    }
+}
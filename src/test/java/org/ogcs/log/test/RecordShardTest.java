@@ -0,0 +1,64 @@
+/*
+ *     Copyright 2016-2026 TinyZ
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ogcs.log.test;
+
+import com.lmax.disruptor.BlockingWaitStrategy;
+import org.junit.Assert;
+import org.junit.Test;
+import org.ogcs.log.config.OkraConfig;
+import org.ogcs.log.core.MissionBoard;
+import org.ogcs.log.core.RecordShard;
+import org.ogcs.log.core.builder.Table;
+
+import java.util.Map;
+import java.util.concurrent.Executors;
+
+/**
+ * @author TinyZ
+ * @date 2016-10-28.
+ */
+public class RecordShardTest {
+
+    @Test
+    public void testShardOf() {
+        OkraConfig config = TestBoards.config(100);
+        config.setShards(4);
+        MissionBoard board = new MissionBoard(config);
+        Table table = TestBoards.table();
+        int hash = board.shardOf(table);
+        Assert.assertTrue(hash >= 0 && hash < 4);
+        Assert.assertEquals(hash, board.shardOf(table));
+        table.setShard(2);
+        Assert.assertEquals(2, board.shardOf(table));
+        table.setShard(6);
+        Assert.assertEquals(2, board.shardOf(table));
+    }
+
+    @Test
+    public void testStats() {
+        RecordShard shard = new RecordShard(1, 16, 1, new BlockingWaitStrategy(), Executors.newCachedThreadPool());
+        shard.recorded(10, 2000000L);
+        shard.recorded(20, 4000000L);
+        Map<String, Object> stats = shard.stats();
+        Assert.assertEquals(1, stats.get("shard"));
+        Assert.assertEquals(0L, stats.get("depth"));
+        Assert.assertEquals(2L, stats.get("batches"));
+        Assert.assertEquals(30L, stats.get("records"));
+        Assert.assertEquals(3.0D, (Double) stats.get("avgLatencyMs"), 0.0001D);
+        Assert.assertEquals(4.0D, (Double) stats.get("maxLatencyMs"), 0.0001D);
+        Assert.assertEquals(0.0D, (Double) shard.stats().get("maxLatencyMs"), 0.0001D);
+    }
+}
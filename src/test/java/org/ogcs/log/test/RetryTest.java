@@ -0,0 +1,233 @@
+/*
+ *     Copyright 2016-2026 TinyZ
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ogcs.log.test;
+
+import io.netty.buffer.Unpooled;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpVersion;
+import org.junit.Assert;
+import org.junit.Test;
+import org.ogcs.log.config.OkraConfig;
+import org.ogcs.log.core.MissionBoard;
+import org.ogcs.log.core.Struct;
+import org.ogcs.log.core.builder.RecordBatch;
+import org.ogcs.log.core.builder.Table;
+import org.ogcs.log.core.parser.Dom4JParser;
+import org.ogcs.log.core.parser.StructParser;
+import org.ogcs.log.core.store.DeadLetterStore;
+import org.ogcs.log.core.store.RecordFileStore;
+import org.ogcs.log.serlvet.impl.DeadLetterServlet;
+import org.ogcs.utilities.StringUtil;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author TinyZ
+ * @date 2016-10-30.
+ */
+public class RetryTest {
+
+    private static final String LOG = "log_money|2016-06-24|openid|0|105|15|100|1000";
+
+    @Test
+    public void testBackoffAndDeadLetter() {
+        final List<Long> delays = new ArrayList<>();
+        final List<String[]> deadLetters = new ArrayList<>();
+        OkraConfig config = TestBoards.config(10);
+        config.setRetryMaxAttempts(3);
+        config.setRetryBaseDelay(100L);
+        config.setRetryMaxDelay(150L);
+        MissionBoard board = new MissionBoard(config) {
+            @Override
+            public void retry(Struct struct, RecordBatch batch, long delay) {
+                delays.add(delay);
+            }
+
+            @Override
+            public boolean deadLetter(String[] params) {
+                deadLetters.add(params);
+                return true;
+            }
+        };
+        Struct struct = new Struct(TestBoards.table(), board);
+        RecordBatch batch = struct.newBatch();
+        batch.add(StringUtil.split(LOG, '|'));
+        for (int i = 0; i < 3; i++) {
+            struct.failed();
+            Assert.assertTrue(struct.isBackingOff());
+            struct.retry(batch);
+        }
+        Assert.assertEquals(2, delays.size());
+        Assert.assertTrue(delays.get(0) <= 100L);
+        Assert.assertTrue(delays.get(1) <= 150L);
+        Assert.assertEquals(1, deadLetters.size());
+        Assert.assertEquals("openid", deadLetters.get(0)[2]);
+        Assert.assertEquals(2, struct.getRetried());
+        Assert.assertEquals(1, struct.getDeadLettered());
+        //  写入成功后结束退避
+        struct.recorded(1000L);
+        Assert.assertFalse(struct.isBackingOff());
+    }
+
+    @Test
+    public void testConcurrentFailures() throws InterruptedException {
+        final Struct struct = new Struct(TestBoards.table(), new MissionBoard(TestBoards.config(10)));
+        //  WorkerPool模式 : 多个消费者同时失败
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            Thread thread = new Thread(() -> {
+                for (int j = 0; j < 10000; j++) {
+                    struct.failed();
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        Assert.assertEquals(40000, struct.getFailures());
+        struct.recorded(1000L);
+        Assert.assertEquals(0, struct.getFailures());
+    }
+
+    @Test
+    public void testRedrive() throws Exception {
+        File dir = Files.createTempDirectory("okra-deadletter").toFile();
+        dir.deleteOnExit();
+        final List<String[]> logs = new ArrayList<>();
+        final Dom4JParser parser = new Dom4JParser(TestBoards.XML);
+        MissionBoard board = new MissionBoard(TestBoards.config(10)) {
+            @Override
+            public boolean add(String tableName, String[] params) {
+                synchronized (logs) {
+                    logs.add(params);
+                    logs.notifyAll();
+                }
+                return true;
+            }
+
+            @Override
+            public StructParser<Table> getParser() {
+                return parser;
+            }
+        };
+        DeadLetterStore store = new DeadLetterStore(dir.getPath(), '|', 1000);
+        store.append(StringUtil.split(LOG, '|'));
+        store.append(new String[]{"log_money", "2016-06-24", "open|id\n\\N", null, "105", "15", "100", ""});
+        List<Map<String, Object>> files = store.list();
+        Assert.assertEquals(1, files.size());
+        String name = (String) files.get(0).get("name");
+        Assert.assertFalse(store.redrive("../" + name, board));
+        Assert.assertTrue(store.redrive(name, board));
+        synchronized (logs) {
+            long deadline = System.currentTimeMillis() + 5000L;
+            while (logs.size() < 2 && System.currentTimeMillis() < deadline) {
+                logs.wait(100L);
+            }
+        }
+        Assert.assertEquals(2, logs.size());
+        //  转义的分隔符、换行符、反斜杠和NULL还原为原始日志
+        Assert.assertArrayEquals(new String[]{"log_money", "2016-06-24", "open|id\n\\N", null, "105", "15", "100", ""}, logs.get(1));
+        store.close();
+    }
+
+    @Test
+    public void testRedriveRejected() throws Exception {
+        File dir = Files.createTempDirectory("okra-deadletter").toFile();
+        dir.deleteOnExit();
+        final List<String[]> logs = new ArrayList<>();
+        final AtomicInteger attempts = new AtomicInteger();
+        final Dom4JParser parser = new Dom4JParser(TestBoards.XML);
+        MissionBoard board = new MissionBoard(TestBoards.config(10)) {
+            @Override
+            public boolean add(String tableName, String[] params) {
+                //  模拟溢出策略 : 前两次拒绝, openid为"dropped"的日志始终拒绝
+                if (attempts.incrementAndGet() <= 2 || "dropped".equals(params[2])) {
+                    Arrays.fill(params, null);  //  被拒绝的数组归还对象池
+                    return false;
+                }
+                synchronized (logs) {
+                    logs.add(params);
+                }
+                return true;
+            }
+
+            @Override
+            public StructParser<Table> getParser() {
+                return parser;
+            }
+        };
+        DeadLetterStore store = new DeadLetterStore(dir.getPath(), '|', 1000);
+        store.append(StringUtil.split(LOG, '|'));
+        store.append(StringUtil.split("log_money|2016-06-24|dropped|0|105|15|100|1000", '|'));
+        String name = (String) store.list().get(0).get("name");
+        Assert.assertTrue(store.redrive(name, board));
+        File taken = new File(dir, name + ".redrive");
+        File written = new File(dir, name);
+        long deadline = System.currentTimeMillis() + 10000L;
+        while (!written.exists() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50L);
+        }
+        Thread.sleep(100L);
+        store.close();
+        synchronized (logs) {
+            Assert.assertEquals(1, logs.size());
+            Assert.assertEquals("openid", logs.get(0)[2]);
+        }
+        //  始终被拒绝的日志写回死信文件, 未全部接受的文件不标记为.redriven
+        Assert.assertEquals("log_money|2016-06-24|dropped|0|105|15|100|1000", new String(Files.readAllBytes(written.toPath()), StandardCharsets.UTF_8).trim());
+        Assert.assertTrue(taken.exists());
+        Assert.assertFalse(new File(dir, name + ".redriven").exists());
+    }
+
+    @Test
+    public void testSplit() {
+        Assert.assertArrayEquals(new String[]{"a", null, "", "\\N", "N", "x|y\ty"}, RecordFileStore.split("a|\\N||\\\\N|N|x\\|y\\ty", '|'));
+        Assert.assertArrayEquals(new String[]{""}, RecordFileStore.split("", '|'));
+    }
+
+    @Test
+    public void testRedriveOnlyPost() throws Exception {
+        File dir = Files.createTempDirectory("okra-deadletter").toFile();
+        dir.deleteOnExit();
+        final DeadLetterStore store = new DeadLetterStore(dir.getPath(), '|', 1000);
+        MissionBoard board = new MissionBoard(TestBoards.config(10)) {
+            @Override
+            public DeadLetterStore getDeadLetters() {
+                return store;
+            }
+        };
+        store.append(StringUtil.split(LOG, '|'));
+        String name = (String) store.list().get(0).get("name");
+        DeadLetterServlet servlet = new DeadLetterServlet(board, true);
+        FullHttpResponse response = (FullHttpResponse) servlet.doPost(new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/deadletter/redrive",
+                Unpooled.copiedBuffer(name, StandardCharsets.UTF_8)));
+        Assert.assertEquals(HttpResponseStatus.METHOD_NOT_ALLOWED, response.status());
+        Assert.assertTrue(new File(dir, name).exists());
+        store.close();
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ *     Copyright 2016-2026 TinyZ
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ogcs.log.test;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.ogcs.log.config.OkraConfig;
+import org.ogcs.log.core.MissionBoard;
+import org.ogcs.log.core.RecordRouter;
+import org.ogcs.log.core.Struct;
+import org.ogcs.log.core.builder.RecordBatch;
+import org.ogcs.log.core.builder.Table;
+import org.ogcs.log.core.builder.TablePeriod;
+import org.ogcs.utilities.StringUtil;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @author TinyZ
+ * @date 2016-11-02.
+ */
+public class RouteTest {
+
+    private static String[] log(LocalDate date) {
+        return StringUtil.split("log_money|" + date + " 12:00:00|openid|0|105|15|100|1000", '|');
+    }
+
+    private static OkraConfig config() {
+        OkraConfig config = TestBoards.config(100);
+        config.setRouteEnable(true);
+        return config;
+    }
+
+    @Test
+    public void testRoute() {
+        final List<RecordBatch> published = new ArrayList<>();
+        MissionBoard board = new MissionBoard(config()) {
+            @Override
+            public void publish(Struct struct, RecordBatch batch) {
+                published.add(batch);
+            }
+
+            @Override
+            public void flush(Struct struct) {
+                // no-op
+            }
+        };
+        Table table = TestBoards.table();
+        Struct struct = new Struct(table, board);
+        LocalDate today = LocalDate.now();
+        struct.add(log(today));
+        struct.add(log(today.minusDays(1)));
+        struct.add(log(today.minusDays(10)));   //  超出迟到窗口, 写入当前周期
+        struct.add(StringUtil.split("log_money|bad-date|openid|0|105|15|100|1000", '|'));
+        struct.add(log(today.minusDays(1)));
+        struct.record(100);
+
+        //  无法解析的时间使用写入时的当前周期, 并由类型校验拒绝, 空批次不发布
+        Assert.assertEquals(2, published.size());
+        Assert.assertSame(table.period(), published.get(0).getPeriod());
+        Assert.assertEquals(2, published.get(0).size());
+        TablePeriod yesterday = published.get(1).getPeriod();
+        Assert.assertEquals(" `log_money_" + today.minusDays(1) + "` ", yesterday.getName());
+        Assert.assertEquals(2, published.get(1).size());
+        Assert.assertEquals(1, table.getPartitionCount());
+        Assert.assertSame(yesterday, table.periodOf(yesterday.getLocalStart() + 1, 86400L * 2));
+    }
+
+    @Test
+    public void testRouter() {
+        Table table = TestBoards.table();
+        //  未开启路由
+        Assert.assertNull(RecordRouter.newRouter(new Struct(table, new MissionBoard(TestBoards.config(100))), table));
+        RecordRouter router = RecordRouter.newRouter(new Struct(table, new MissionBoard(config())), table);
+        Assert.assertNotNull(router);
+        LocalDate today = LocalDate.now();
+        Assert.assertSame(table.period(), router.partitionOf(log(today)));
+        Assert.assertEquals(" `log_money_" + today.minusDays(1) + "` ", router.partitionOf(log(today.minusDays(1))).getName());
+        Assert.assertNull(router.partitionOf(StringUtil.split("log_money|bad-date|openid", '|')));
+        Assert.assertNull(router.partitionOf(new String[]{"log_money"}));
+    }
+
+    @Test
+    public void testWalGroupCommit() throws Exception {
+        File dir = Files.createTempDirectory("okra-route").toFile();
+        dir.deleteOnExit();
+        OkraConfig config = config();
+        config.setWalEnable(true);
+        config.setWalPath(dir.getPath());
+        config.setWalSegmentSize(1024);
+        final List<RecordBatch> published = new ArrayList<>();
+        MissionBoard board = new MissionBoard(config) {
+            @Override
+            public void publish(Struct struct, RecordBatch batch) {
+                published.add(batch);
+            }
+
+            @Override
+            public void flush(Struct struct) {
+                // no-op
+            }
+        };
+        Struct struct = new Struct(TestBoards.table(), board);
+        LocalDate today = LocalDate.now();
+        struct.add(log(today));
+        struct.add(log(today.minusDays(1)));
+        struct.add(log(today));
+        struct.record(100);
+        Assert.assertEquals(2, published.size());
+        struct.commit(published.get(0));
+        Assert.assertEquals(3, struct.getWal().uncommitted());
+        struct.commit(published.get(1));
+        Assert.assertEquals(0, struct.getWal().uncommitted());
+        struct.getWal().close();
+    }
+}
@@ -0,0 +1,209 @@
+/*
+ *     Copyright 2016-2026 TinyZ
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ogcs.log.test;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.util.concurrent.FastThreadLocalThread;
+import org.junit.Assert;
+import org.junit.Test;
+import org.ogcs.log.config.OkraConfig;
+import org.ogcs.log.core.MissionBoard;
+import org.ogcs.log.core.Struct;
+import org.ogcs.log.core.builder.RecordBatch;
+import org.ogcs.log.core.builder.Table;
+import org.ogcs.log.core.handler.TextRecordTranslator;
+import org.ogcs.log.core.parser.Dom4JParser;
+import org.ogcs.utilities.StringUtil;
+
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author TinyZ
+ * @date 2016-10-27.
+ */
+public class StructClaimTest {
+
+    @Test
+    public void testParallelClaim() throws InterruptedException {
+        final AtomicInteger records = new AtomicInteger();
+        final AtomicInteger batches = new AtomicInteger();
+        final AtomicInteger flushes = new AtomicInteger();
+        OkraConfig config = TestBoards.config(10);
+        MissionBoard board = new MissionBoard(config) {
+            @Override
+            public void publish(Struct struct, RecordBatch batch) {
+                Assert.assertTrue(batch.size() <= 10);
+                records.addAndGet(batch.size());
+                batches.incrementAndGet();
+                struct.recycle(batch);
+            }
+
+            @Override
+            public void flush(Struct struct) {
+                flushes.incrementAndGet();
+            }
+        };
+        final Struct struct = new Struct(TestBoards.table(), board);
+        for (int i = 0; i < 1000; i++) {
+            struct.add(StringUtil.split("log_money|2016-06-24|openid|0|105|15|100|" + i, '|'));
+        }
+        Assert.assertEquals(100, flushes.get());   //  the I/O thread only notify the flusher
+        Assert.assertEquals(1000, struct.size());
+
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            Thread thread = new Thread(() -> {
+                while (struct.size() > 0) {
+                    struct.record(10);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        Assert.assertEquals(1000, records.get());
+        Assert.assertEquals(100, batches.get());
+        Assert.assertEquals(0, struct.size());
+        Assert.assertEquals(0, board.getMemory());
+    }
+
+    @Test
+    public void testLocalLanes() throws InterruptedException {
+        final AtomicInteger records = new AtomicInteger();
+        OkraConfig config = TestBoards.config(10);
+        config.setStructLocalLanes(true);
+        config.setStructLaneCapacity(64);
+        MissionBoard board = new MissionBoard(config) {
+            @Override
+            public void publish(Struct struct, RecordBatch batch) {
+                Assert.assertTrue(batch.size() <= 10);
+                records.addAndGet(batch.size());
+                struct.recycle(batch);
+            }
+
+            @Override
+            public void flush(Struct struct) {
+                // no-op
+            }
+        };
+        final Struct struct = new Struct(TestBoards.table(), board);
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            //  Netty事件循环线程
+            Thread thread = new FastThreadLocalThread(() -> {
+                for (int j = 0; j < 1000; j++) {
+                    struct.add(StringUtil.split("log_money|2016-06-24|openid|0|105|15|100|" + j, '|'));
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        Thread flusher = new Thread(() -> {
+            while (records.get() < 4000) {
+                struct.recordAll();
+            }
+        });
+        flusher.start();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        flusher.join(10000L);
+        Assert.assertEquals(4000, records.get());
+        Assert.assertEquals(0, struct.size());
+        Assert.assertEquals(0, board.getMemory());
+    }
+
+    @Test
+    public void testFlushDeadline() {
+        final AtomicInteger records = new AtomicInteger();
+        final List<Long> deadlines = new ArrayList<>();
+        OkraConfig config = TestBoards.config(10);
+        MissionBoard board = new MissionBoard(config) {
+            @Override
+            public void publish(Struct struct, RecordBatch batch) {
+                records.addAndGet(batch.size());
+                struct.recycle(batch);
+            }
+
+            @Override
+            public void flush(Struct struct) {
+                // no-op
+            }
+
+            @Override
+            public boolean schedule(Struct struct, long delay) {
+                deadlines.add(delay);
+                return true;
+            }
+        };
+        Table table = TestBoards.table();
+        final Struct struct = new Struct(table, board);
+        for (int i = 0; i < 5; i++) {
+            struct.add(StringUtil.split("log_money|2016-06-24|openid|0|105|15|100|" + i, '|'));
+        }
+        //  只有队列为空后的第一条日志登记截止时间
+        Assert.assertEquals(1, deadlines.size());
+        Assert.assertEquals(5000L, (long) deadlines.get(0));
+        struct.expire();
+        Assert.assertEquals(5, records.get());
+
+        table.setMaxLatency(200);
+        struct.add(StringUtil.split("log_money|2016-06-24|openid|0|105|15|100|5", '|'));
+        struct.add(StringUtil.split("log_money|2016-06-24|openid|0|105|15|100|6", '|'));
+        Assert.assertEquals(2, deadlines.size());
+        Assert.assertEquals(200L, (long) deadlines.get(1));
+        table.setMaxLatency(0);
+    }
+
+    @Test
+    public void testPooling() {
+        OkraConfig config = TestBoards.config(10);
+        MissionBoard board = new MissionBoard(config) {
+            @Override
+            public void publish(Struct struct, RecordBatch batch) {
+                struct.recycle(batch);
+            }
+
+            @Override
+            public void flush(Struct struct) {
+                // no-op
+            }
+        };
+        Dom4JParser parser = new Dom4JParser(TestBoards.XML);
+        Table table = parser.getTable("log_money");
+        Struct struct = new Struct(table, board);
+        TextRecordTranslator translator = new TextRecordTranslator(parser, '|');
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < 10; i++) {
+                ByteBuf buf = Unpooled.copiedBuffer("log_money|2016-06-24|openid|0|105|15|100|" + i, Charset.forName("UTF-8"));
+                struct.add(translator.translate(buf));
+            }
+            struct.recordAll();
+        }
+        //  第一轮创建, 之后复用
+        Assert.assertEquals(10, table.getSlots().getMisses());
+        Assert.assertEquals(20, table.getSlots().getHits());
+        Assert.assertEquals(1, struct.getBatches().getMisses());
+        Assert.assertEquals(2, struct.getBatches().getHits());
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ *     Copyright 2016-2026 TinyZ
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ogcs.log.test;
+
+import io.netty.util.concurrent.FastThreadLocalThread;
+import org.junit.Assert;
+import org.junit.Test;
+import org.ogcs.log.config.OkraConfig;
+import org.ogcs.log.core.MissionBoard;
+import org.ogcs.log.core.Struct;
+import org.ogcs.utilities.StringUtil;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author TinyZ
+ * @date 2016-10-26.
+ */
+public class StructOverflowTest {
+
+    private static final String LOG = "log_money|2016-06-24|openid|0|105|15|100|1000";
+
+    private static OkraConfig config(String policy) {
+        OkraConfig config = TestBoards.config(100);
+        config.setStructMaxRecords(3);
+        config.setOverflowPolicy(policy);
+        config.setOverflowBlockTimeout(10L);
+        return config;
+    }
+
+    @Test
+    public void testDropNewest() {
+        MissionBoard board = new MissionBoard(config(OkraConfig.OVERFLOW_DROP_NEWEST));
+        Struct struct = new Struct(TestBoards.table(), board);
+        for (int i = 0; i < 5; i++) {
+            Assert.assertEquals(i < 3, struct.add(StringUtil.split(LOG, '|')));
+        }
+        Assert.assertEquals(3, struct.size());
+        Assert.assertEquals(2, struct.getDropped());
+        Assert.assertEquals(3 * Struct.sizeOf(StringUtil.split(LOG, '|')), struct.bytes());
+        Assert.assertEquals(struct.bytes(), board.getMemory());
+    }
+
+    @Test
+    public void testDropOldestAndBlock() {
+        MissionBoard board = new MissionBoard(config(OkraConfig.OVERFLOW_DROP_OLDEST));
+        Struct struct = new Struct(TestBoards.table(), board);
+        for (int i = 0; i < 5; i++) {
+            struct.add(StringUtil.split(LOG, '|'));
+        }
+        Assert.assertEquals(3, struct.size());
+        Assert.assertEquals(2, struct.getDropped());
+        Assert.assertEquals(struct.bytes(), board.getMemory());
+
+        board = new MissionBoard(config(OkraConfig.OVERFLOW_BLOCK));
+        struct = new Struct(TestBoards.table(), board);
+        for (int i = 0; i < 4; i++) {
+            struct.add(StringUtil.split(LOG, '|'));
+        }
+        Assert.assertEquals(3, struct.size());
+        Assert.assertEquals(1, struct.getDropped());
+    }
+
+    @Test
+    public void testBlockNotEventLoop() throws InterruptedException {
+        OkraConfig config = config(OkraConfig.OVERFLOW_BLOCK);
+        config.setOverflowBlockTimeout(10000L);
+        final Struct struct = new Struct(TestBoards.table(), new MissionBoard(config));
+        final long[] elapsed = new long[1];
+        //  Netty事件循环线程
+        Thread thread = new FastThreadLocalThread(() -> {
+            long start = System.nanoTime();
+            for (int i = 0; i < 4; i++) {
+                struct.add(StringUtil.split(LOG, '|'));
+            }
+            elapsed[0] = System.nanoTime() - start;
+        });
+        thread.start();
+        thread.join();
+        Assert.assertEquals(3, struct.size());
+        Assert.assertEquals(1, struct.getDropped());
+        Assert.assertTrue(elapsed[0] < TimeUnit.SECONDS.toNanos(1L));
+    }
+
+    @Test
+    public void testMemoryBudget() {
+        OkraConfig config = config(OkraConfig.OVERFLOW_DROP_NEWEST);
+        long bytes = Struct.sizeOf(StringUtil.split(LOG, '|'));
+        config.setMemoryBudget(bytes * 4);
+        MissionBoard board = new MissionBoard(config);
+        Struct struct1 = new Struct(TestBoards.table(), board);
+        Struct struct2 = new Struct(TestBoards.table(), board);
+        for (int i = 0; i < 3; i++) {
+            struct1.add(StringUtil.split(LOG, '|'));
+            struct2.add(StringUtil.split(LOG, '|'));
+        }
+        Assert.assertEquals(4, struct1.size() + struct2.size());
+        Assert.assertEquals(2, struct1.getDropped() + struct2.getDropped());
+        Assert.assertEquals(bytes * 4, board.getMemory());
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ *     Copyright 2016-2026 TinyZ
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ogcs.log.test;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.ogcs.log.core.Struct;
+import org.ogcs.log.core.TableRotator;
+import org.ogcs.log.core.builder.RecordBatch;
+import org.ogcs.log.core.builder.Table;
+import org.ogcs.log.core.builder.TablePeriod;
+import org.ogcs.log.core.handler.LogRecordTask;
+import org.ogcs.utilities.StringUtil;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @author TinyZ
+ * @date 2016-11-01.
+ */
+public class TableRotationTest {
+
+    @Test
+    public void testPeriod() {
+        Table table = TestBoards.table();
+        Assert.assertEquals(Table.ADORN_DATE, table.getAdorn());
+        TablePeriod period = table.period();
+        Assert.assertSame(period, table.period());
+        Assert.assertEquals(" `log_money_" + LocalDate.now() + "` ", table.name());
+        Assert.assertTrue(period.getEnd() - period.getStart() >= 23 * 3600 * 1000L);
+        Assert.assertNull(table.nextPeriod(System.currentTimeMillis()));
+        TablePeriod next = table.nextPeriod(period.getEnd());
+        Assert.assertEquals(" `log_money_" + LocalDate.now().plusDays(1) + "` ", next.getName());
+        Assert.assertSame(next, table.nextPeriod(period.getEnd() + 1000L));
+        //  固定后缀只有一个周期
+        table.setAdorn("STRING");
+        table.setSuffix("s1");
+        Assert.assertEquals(" `log_money_s1` ", table.name());
+        Assert.assertNull(table.nextPeriod(Long.MAX_VALUE - 1));
+        Assert.assertFalse(table.tableExist());
+        table.afterTableExist();
+        Assert.assertTrue(table.prepareQuery().startsWith("INSERT INTO  `log_money_s1` (`logDate`,"));
+        Assert.assertTrue(table.prepareQuery(2).endsWith("VALUES (?,?,?,?,?,?,?),(?,?,?,?,?,?,?);"));
+    }
+
+    @Test
+    public void testPreCreate() throws InterruptedException {
+        final List<String> sqls = new ArrayList<>();
+        final Table table = TestBoards.table();
+        table.setSuffix("yyyyMMddHHmmss");
+        TestBoards.Board board = TestBoards.board(TestBoards.config(10), TestBoards.proxy(Connection.class, (proxy, method, args) ->
+                method.getName().equals("createStatement") ? TestBoards.statement(sqls) : null));
+        board.struct(table);
+        TablePeriod current = table.period();
+        TableRotator rotator = new TableRotator(board, 1500L);
+        long time = System.currentTimeMillis() + 1500L;
+        rotator.rotate(time);
+        TablePeriod next = table.nextPeriod(time);
+        Assert.assertNotNull(next);
+        Assert.assertTrue(next.isExist());
+        Assert.assertFalse(current.isExist());
+        Assert.assertEquals(1, sqls.size());
+        Assert.assertTrue(sqls.get(0).startsWith("CREATE TABLE IF NOT EXISTS " + next.getName()));
+        Assert.assertTrue(next.prepareQuery().startsWith("INSERT INTO " + next.getName()));
+        //  已创建的周期不重复创建
+        rotator.rotate(time);
+        Assert.assertEquals(1, sqls.size());
+        while (System.currentTimeMillis() < next.getStart()) {
+            Thread.sleep(50L);
+        }
+        //  到达周期边界时切换到预先创建的周期
+        Assert.assertSame(next, table.period());
+        Assert.assertTrue(table.tableExist());
+    }
+
+    @Test
+    public void testCreateFailed() {
+        final List<RecordBatch> retried = new ArrayList<>();
+        final Table table = TestBoards.table();
+        table.setSuffix("yyyyMMddHHmmss");
+        //  MySQL不可用 : 创建表失败
+        Connection connection = TestBoards.proxy(Connection.class, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "createStatement":
+                    return TestBoards.proxy(Statement.class, (p, m, a) -> {
+                        if (m.getName().equals("execute")) {
+                            throw new SQLException("Communications link failure", "08S01");
+                        }
+                        return null;
+                    });
+                case "prepareStatement":
+                    Assert.fail("The batch must not be inserted.");
+                default:
+                    return null;
+            }
+        });
+        TestBoards.Board board = new TestBoards.Board(TestBoards.config(10), connection) {
+            @Override
+            public void retry(Struct struct, RecordBatch batch, long delay) {
+                retried.add(batch);
+            }
+        };
+        Struct struct = board.struct(table);
+        RecordBatch batch = struct.newBatch();
+        Assert.assertNull(batch.add(StringUtil.split("log_money|2016-06-24|openid|0|105|15|100|1000", '|')));
+        LogRecordTask task = new LogRecordTask();
+        task.setValues(struct, batch);
+        task.record();
+        Assert.assertFalse(table.period().isExist());
+        //  批次交给重试调度, 不被回收
+        Assert.assertEquals(1, retried.size());
+        Assert.assertSame(batch, retried.get(0));
+        Assert.assertEquals(1, batch.size());
+        Assert.assertTrue(struct.isBackingOff());
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ *     Copyright 2016-2026 TinyZ
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ogcs.log.test;
+
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.Assert;
+import org.junit.Test;
+import org.ogcs.log.core.MissionBoard;
+import org.ogcs.log.core.handler.RecordFrames;
+import org.ogcs.log.core.handler.TcpRecordHandler;
+import org.ogcs.log.core.handler.TextRecordTranslator;
+import org.ogcs.log.core.parser.Dom4JParser;
+
+import java.nio.charset.Charset;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author TinyZ
+ * @date 2016-11-04.
+ */
+public class TcpRecordHandlerTest {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final byte[] LOG = "log_money|2016-06-24|openid|0|105|15|100|1000".getBytes(UTF_8);
+
+    private volatile boolean overloaded;
+    private volatile boolean underLowWaterMark;
+
+    @Test
+    public void testPauseAndResume() throws InterruptedException {
+        final AtomicInteger added = new AtomicInteger();
+        MissionBoard board = new MissionBoard(TestBoards.config(10)) {
+            @Override
+            public boolean add(String tableName, String[] params) {
+                added.incrementAndGet();
+                return true;
+            }
+
+            @Override
+            public boolean isOverloaded() {
+                return overloaded;
+            }
+
+            @Override
+            public boolean isUnderLowWaterMark() {
+                return underLowWaterMark;
+            }
+        };
+        EmbeddedChannel channel = new EmbeddedChannel(new TcpRecordHandler(board, new TextRecordTranslator(new Dom4JParser(TestBoards.XML), '|')));
+        channel.writeInbound(RecordFrames.encode(Unpooled.buffer(), LOG, LOG));
+        Assert.assertEquals(2, added.get());
+        Assert.assertTrue(channel.config().isAutoRead());
+        //  超过高水位线 : 暂停读取
+        overloaded = true;
+        channel.writeInbound(RecordFrames.encode(Unpooled.buffer(), LOG));
+        Assert.assertEquals(3, added.get());
+        Assert.assertFalse(channel.config().isAutoRead());
+        //  仍高于低水位线 : 保持暂停
+        overloaded = false;
+        Thread.sleep(20L);
+        channel.runScheduledPendingTasks();
+        Assert.assertFalse(channel.config().isAutoRead());
+        //  低于低水位线 : 恢复读取
+        underLowWaterMark = true;
+        Thread.sleep(20L);
+        channel.runScheduledPendingTasks();
+        Assert.assertTrue(channel.config().isAutoRead());
+        Assert.assertTrue(channel.isOpen());
+        channel.finish();
+    }
+
+    @Test
+    public void testInvalidFrame() {
+        MissionBoard board = new MissionBoard(TestBoards.config(10));
+        EmbeddedChannel channel = new EmbeddedChannel(new TcpRecordHandler(board, new TextRecordTranslator(new Dom4JParser(TestBoards.XML), '|')));
+        channel.writeInbound(Unpooled.wrappedBuffer(new byte[RecordFrames.HEADER_LENGTH]));
+        Assert.assertFalse(channel.isOpen());
+    }
+}
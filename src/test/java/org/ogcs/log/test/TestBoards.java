@@ -0,0 +1,122 @@
+/*
+ *     Copyright 2016-2026 TinyZ
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ogcs.log.test;
+
+import org.ogcs.log.config.OkraConfig;
+import org.ogcs.log.core.MissionBoard;
+import org.ogcs.log.core.Struct;
+import org.ogcs.log.core.builder.Table;
+import org.ogcs.log.core.parser.Dom4JParser;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 测试使用的任务版和模拟的MySQL驱动对象.
+ *
+ * @author TinyZ
+ * @date 2016-11-04.
+ */
+public final class TestBoards {
+
+    public static final String XML = "./config/aolog.xml";
+
+    private TestBoards() {
+        // no-op
+    }
+
+    /**
+     * @param batch The max batch size.
+     * @return Return the config of the test log xml.
+     */
+    public static OkraConfig config(int batch) {
+        return new OkraConfig(9005, null, null, null, null, 16, null, XML, '|', 5000L, batch);
+    }
+
+    /**
+     * @return Return a new parsed log_money table.
+     */
+    public static Table table() {
+        return new Dom4JParser(XML).getTable("log_money");
+    }
+
+    /**
+     * @return Return a board which use the connection.
+     */
+    public static Board board(OkraConfig config, Connection connection) {
+        return new Board(config, connection);
+    }
+
+    /**
+     * Create the JDBC interface by dynamic proxy. The unhandled methods return null.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(TestBoards.class.getClassLoader(), new Class[]{type}, handler);
+    }
+
+    /**
+     * @param sqls The executed SQL.
+     * @return Return a statement which record the executed SQL.
+     */
+    public static Statement statement(List<String> sqls) {
+        return proxy(Statement.class, (p, m, a) -> {
+            if (m.getName().equals("execute")) {
+                sqls.add((String) a[0]);
+                return true;
+            }
+            return null;
+        });
+    }
+
+    /**
+     * The mission board with a mock connection and the registered structs.
+     */
+    public static class Board extends MissionBoard {
+
+        private final Connection connection;
+        private final List<Struct> structs = new ArrayList<>();
+
+        public Board(OkraConfig config, Connection connection) {
+            super(config);
+            this.connection = connection;
+        }
+
+        /**
+         * Create and register the table's struct.
+         */
+        public Struct struct(Table table) {
+            Struct struct = new Struct(table, this);
+            structs.add(struct);
+            return struct;
+        }
+
+        @Override
+        public Connection getConnection() {
+            return connection;
+        }
+
+        @Override
+        public Collection<Struct> getStructs() {
+            return structs;
+        }
+    }
+}
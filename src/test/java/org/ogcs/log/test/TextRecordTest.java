@@ -0,0 +1,65 @@
+/*
+ *     Copyright 2016-2026 TinyZ
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ogcs.log.test;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.junit.Assert;
+import org.junit.Test;
+import org.ogcs.log.core.handler.TextRecordTranslator;
+import org.ogcs.log.core.parser.Dom4JParser;
+
+import java.nio.charset.Charset;
+
+/**
+ * @author TinyZ
+ * @date 2016-10-21.
+ */
+public class TextRecordTest {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private TextRecordTranslator translator = new TextRecordTranslator(new Dom4JParser("./config/aolog.xml"), '|');
+
+    @Test
+    public void testTranslate() {
+        Assert.assertArrayEquals(new String[]{"log_money", "2016-06-24", "玩家", "0", "", "15", "100", "1000"},
+                translate("LOG_Money|2016-06-24|玩家|0||15|100|1000"));
+        // the trailing separator is ignored.
+        Assert.assertArrayEquals(new String[]{"log_money", "2016-06-24", "openid", "0", "105", "15", "100", "1000"},
+                translate("log_money|2016-06-24|openid|0|105|15|100|1000|"));
+    }
+
+    @Test
+    public void testInvalid() {
+        Assert.assertNull(translate("log_unknown|2016-06-24|openid"));
+        Assert.assertNull(translate("log_money|2016-06-24|openid|0|105|15|100"));
+        Assert.assertNull(translate("log_money|2016-06-24|openid|0|105|15|100|1000|1"));
+        Assert.assertNull(translate("log_money"));
+    }
+
+    @Test
+    public void testSlice() {
+        ByteBuf buf = Unpooled.copiedBuffer("##log_level|2016-06-24|openid|1|105|15|1|20|300##", UTF_8);
+        Assert.assertArrayEquals(new String[]{"log_level", "2016-06-24", "openid", "1", "105", "15", "1", "20", "300"},
+                translator.translate(buf.slice(2, buf.readableBytes() - 4)));
+    }
+
+    private String[] translate(String msg) {
+        return translator.translate(Unpooled.copiedBuffer(msg, UTF_8));
+    }
+}
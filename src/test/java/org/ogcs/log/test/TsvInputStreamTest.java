@@ -0,0 +1,70 @@
+/*
+ *     Copyright 2016-2026 TinyZ
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ogcs.log.test;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.ogcs.log.core.builder.RecordBatch;
+import org.ogcs.log.core.builder.Table;
+import org.ogcs.log.core.builder.TsvInputStream;
+import org.ogcs.log.core.parser.Dom4JParser;
+import org.ogcs.log.util.MySQL;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * @author TinyZ
+ * @date 2016-10-31.
+ */
+public class TsvInputStreamTest {
+
+    private static String readAll(InputStream in, int chunk) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] bytes = new byte[chunk];
+        int n;
+        while ((n = in.read(bytes, 0, bytes.length)) != -1) {
+            out.write(bytes, 0, n);
+        }
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void testEscape() throws IOException {
+        Table table = new Dom4JParser("./config/aolog.xml").getTable("log_money");
+        RecordBatch batch = table.binder().newBatch("log_money", 4);
+        Assert.assertNull(batch.add(new String[]{"log_money", "2016-06-24 10:00:00", "a\tb\nc\\d\re", "1", "", "105", "15", "100"}));
+        Assert.assertNull(batch.add(new String[]{"log_money", "2016-06-24 10:00:01", "中文\u0000", "0", "1", "2", "3", "4"}));
+        String expected = "2016-06-24 10:00:00\ta\\tb\\nc\\\\d\\re\t1\t\\N\t105\t15\t100\n"
+                + "2016-06-24 10:00:01\t中文\\0\t0\t1\t2\t3\t4\n";
+        Assert.assertEquals(expected, readAll(new TsvInputStream(batch), 3));
+        Assert.assertEquals(expected, readAll(new TsvInputStream(batch), 8192));
+        Assert.assertEquals(-1, new TsvInputStream(table.binder().newBatch("log_money", 1)).read());
+    }
+
+    @Test
+    public void testLoadDataSQL() {
+        Table table = new Dom4JParser("./config/aolog.xml").getTable("log_money");
+        table.setWriter(Table.WRITER_LOAD);
+        Assert.assertTrue(table.isLoadData());
+        String sql = MySQL.loadDataSQL(table);
+        Assert.assertTrue(sql.startsWith("LOAD DATA LOCAL INFILE 'okra-log.tsv' INTO TABLE "));
+        Assert.assertTrue(sql.endsWith(" FIELDS TERMINATED BY '\\t' ESCAPED BY '\\\\' LINES TERMINATED BY '\\n' "
+                + "(`logDate`,`openId`,`io`,`ioType`,`type`,`value`,`afterValue`);"));
+    }
+}
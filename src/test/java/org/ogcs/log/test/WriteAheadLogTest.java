@@ -0,0 +1,172 @@
+/*
+ *     Copyright 2016-2026 TinyZ
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ogcs.log.test;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.ogcs.log.config.OkraConfig;
+import org.ogcs.log.core.MissionBoard;
+import org.ogcs.log.core.Struct;
+import org.ogcs.log.core.builder.RecordBatch;
+import org.ogcs.log.core.handler.LogRecordExceptionHandler;
+import org.ogcs.log.core.handler.LogRecordTask;
+import org.ogcs.log.core.store.WriteAheadLog;
+import org.ogcs.utilities.StringUtil;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @author TinyZ
+ * @date 2016-10-27.
+ */
+public class WriteAheadLogTest {
+
+    private static final String LOG = "log_money|2016-06-24|openid|0|105|15|100|1000";
+
+    private static File tempDir() throws Exception {
+        File dir = Files.createTempDirectory("okra-wal").toFile();
+        dir.deleteOnExit();
+        return dir;
+    }
+
+    @Test
+    public void testAppendCommitAndRecover() throws Exception {
+        File dir = tempDir();
+        WriteAheadLog wal = new WriteAheadLog(dir.getPath(), 256);
+        for (int i = 0; i < 100; i++) {
+            wal.append(new String[]{"log_money", "中文😀", null, String.valueOf(i)});
+        }
+        Assert.assertTrue(wal.segments() > 1);
+        //  提交前90条, 封存段全部删除
+        long seq = wal.claim(90);
+        wal.commit(seq, 90);
+        wal.sync();
+        Assert.assertEquals(10, wal.uncommitted());
+        wal.close();
+
+        WriteAheadLog reopen = new WriteAheadLog(dir.getPath(), 256);
+        List<String[]> logs = reopen.recover();
+        Assert.assertTrue(logs.size() >= 10 && logs.size() < 100);
+        String[] last = logs.get(logs.size() - 1);
+        Assert.assertArrayEquals(new String[]{"log_money", "中文😀", null, "99"}, last);
+        reopen.deleteRecovered();
+        Assert.assertEquals(0, dir.listFiles((d, name) -> name.endsWith(".wal")).length);
+        reopen.close();
+    }
+
+    @Test
+    public void testStructReplay() throws Exception {
+        File dir = tempDir();
+        OkraConfig config = TestBoards.config(10);
+        config.setWalEnable(true);
+        config.setWalPath(dir.getPath());
+        config.setWalSegmentSize(1024);
+        //  进程崩溃 : 日志已入队但未写入数据库
+        MissionBoard crashed = new MissionBoard(config) {
+            @Override
+            public void publish(Struct struct, RecordBatch batch) {
+                struct.recycle(batch);
+            }
+        };
+        Struct struct = new Struct(TestBoards.table(), crashed);
+        for (int i = 0; i < 25; i++) {
+            struct.add(StringUtil.split(LOG, '|'));
+        }
+        struct.getWal().sync();
+
+        final int[] recorded = new int[1];
+        MissionBoard board = new MissionBoard(config) {
+            @Override
+            public void publish(Struct struct, RecordBatch batch) {
+                recorded[0] += batch.size();
+                struct.commit(batch);
+                struct.recycle(batch);
+            }
+        };
+        Struct restarted = new Struct(TestBoards.table(), board);
+        Assert.assertEquals(25, restarted.replay());
+        restarted.recordAll();
+        Assert.assertEquals(25, recorded[0]);
+        Assert.assertEquals(0, restarted.getWal().uncommitted());
+        restarted.getWal().close();
+        File[] segments = new File(dir, "log_money").listFiles((d, name) -> name.endsWith(".wal"));
+        Assert.assertEquals(0, segments.length);
+    }
+
+    @Test
+    public void testWriterThrows() throws Exception {
+        File dir = tempDir();
+        OkraConfig config = TestBoards.config(10);
+        config.setWalEnable(true);
+        config.setWalPath(dir.getPath());
+        config.setWalSegmentSize(1024);
+        config.setRetryMaxAttempts(1);
+        final List<String[]> deadLetters = new ArrayList<>();
+        final boolean[] consumerFailed = new boolean[1];
+        //  绑定参数时抛出非SQLException的异常
+        Connection connection = TestBoards.proxy(Connection.class, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "createStatement":
+                    return TestBoards.statement(new ArrayList<>());
+                case "prepareStatement":
+                    throw new IllegalStateException("binder error");
+                default:
+                    return null;
+            }
+        });
+        TestBoards.Board board = new TestBoards.Board(config, connection) {
+            @Override
+            public void publish(Struct struct, RecordBatch batch) {
+                LogRecordTask task = new LogRecordTask();
+                task.setValues(struct, batch);
+                if (consumerFailed[0]) {
+                    new LogRecordExceptionHandler().handleEventException(new Error("consumer error"), 0L, task);
+                } else {
+                    task.record();
+                }
+            }
+
+            @Override
+            public boolean deadLetter(String[] params) {
+                deadLetters.add(params);
+                return true;
+            }
+        };
+        Struct struct = board.struct(TestBoards.table());
+        for (int i = 0; i < 25; i++) {
+            struct.add(StringUtil.split(LOG, '|'));
+        }
+        struct.recordAll();
+        Assert.assertEquals(25, deadLetters.size());
+        Assert.assertEquals(0, struct.getWal().uncommitted());
+        //  消费者线程异常 : 事件中的批次写入死信文件
+        consumerFailed[0] = true;
+        for (int i = 0; i < 5; i++) {
+            struct.add(StringUtil.split(LOG, '|'));
+        }
+        struct.recordAll();
+        Assert.assertEquals(30, deadLetters.size());
+        Assert.assertEquals(0, struct.getWal().uncommitted());
+        Assert.assertEquals(30, struct.getDeadLettered());
+        struct.getWal().close();
+        File[] segments = new File(dir, "log_money").listFiles((d, name) -> name.endsWith(".wal"));
+        Assert.assertEquals(0, segments.length);
+    }
+}